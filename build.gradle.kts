@@ -38,6 +38,7 @@ dependencies {
     }
     
     compileOnly(files(hytaleServerJar))
+    testImplementation(files(hytaleServerJar))
     
     // Common dependencies (will be bundled in JAR)
     implementation("com.google.code.gson:gson:2.10.1")
@@ -45,6 +46,7 @@ dependencies {
     
     // Test dependencies
     testImplementation("org.junit.jupiter:junit-jupiter:5.10.0")
+    testImplementation("org.mockito:mockito-core:5.20.0")
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
@@ -0,0 +1,391 @@
+package com.lumengrid.lumenia;
+
+import com.hypixel.hytale.assetstore.AssetPack;
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+import com.hypixel.hytale.common.plugin.PluginManifest;
+import com.hypixel.hytale.server.core.asset.AssetModule;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.lumengrid.lumenia.index.ModOriginTable;
+import com.lumengrid.lumenia.index.RecipeGraph;
+import com.lumengrid.lumenia.util.BinaryIO;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+
+/**
+ * Derived data that only depends on the installed asset packs, kept in a binary file in the plugin data directory
+ * so that a warm start does not build it again: the mod of every item, the recipe graph, and what mob loot is made
+ * of, the built NPC roles and the flattened drop lists.
+ * The file is read and decoded once at startup. The item and recipe sections record the fingerprint of the
+ * packs they were built from and a hash of the assets they cover (for recipes, including the stamp of each recipe's
+ * file), and are only used while both still match; a
+ * section that does not match is built as usual, and the file is written again on the next {@link #flush()}. Roles
+ * and drop lists carry a stamp each instead, so only the ones that changed are built again.
+ * <p>
+ * Only used from the index builder thread.
+ */
+final class IndexCache {
+    static final String FILE_NAME = "index.bin";
+
+    private static final int MAGIC = 0x4C4D4958; // "LMIX"
+    private static final int FORMAT_VERSION = 3;
+    private static final long FNV_OFFSET = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    @Nullable
+    private final Path file; // Null when nothing is read or written
+    private Section<Map<String, String>> modOrigins; // Item ID -> mod name
+    private Section<RecipeGraph> recipeGraph;
+    private Map<String, MobRoleInfo> mobRoles = Collections.emptyMap(); // Role ID -> role, in discovery order
+    private Map<String, MobDropTable> dropTables = Collections.emptyMap(); // Drop list ID -> table
+    private boolean dirty; // Changed since the file was read or written
+
+    private IndexCache(@Nullable Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Cache that starts empty and is never written, until the real one is opened
+     */
+    @Nonnull
+    static IndexCache detached() {
+        return new IndexCache(null);
+    }
+
+    /**
+     * Reads and decodes the cache file; a missing, outdated or unreadable file gives an empty cache.
+     * The file is read whole rather than mapped: every section is decoded into copies anyway, and a mapping would
+     * keep the file open until collected, so replacing it on save would fail on Windows.
+     */
+    @Nonnull
+    static IndexCache open(@Nonnull Path file) {
+        IndexCache cache = new IndexCache(file);
+        if (!Files.isRegularFile(file)) {
+            return cache;
+        }
+        try {
+            ByteBuffer in = ByteBuffer.wrap(Files.readAllBytes(file));
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                Lumenia.LOGGER.atInfo().log("Lumenia: Index cache " + file + " is from another version, rebuilding it");
+                return cache;
+            }
+            if (in.get() != 0) {
+                cache.modOrigins = new Section<>(in.getLong(), in.getLong(), readModOrigins(in));
+            }
+            if (in.get() != 0) {
+                cache.recipeGraph = new Section<>(in.getLong(), in.getLong(), RecipeGraph.read(in));
+            }
+            cache.mobRoles = readMobRoles(in);
+            cache.dropTables = readDropTables(in);
+            return cache;
+        } catch (IOException | RuntimeException e) {
+            Lumenia.LOGGER.atWarning().log("Lumenia: Ignoring unreadable index cache " + file + ": " + e.getMessage());
+            return new IndexCache(file);
+        }
+    }
+
+    /**
+     * Item ID -> mod name, or null when the cached table was built from other packs or items
+     */
+    @Nullable
+    Map<String, String> getModOrigins(long packs, long items) {
+        return this.modOrigins != null && this.modOrigins.matches(packs, items) ? this.modOrigins.value : null;
+    }
+
+    void putModOrigins(long packs, long items, @Nonnull ModOriginTable table) {
+        Map<String, String> modByItem = new Object2ObjectOpenHashMap<>();
+        for (String modName : table.getModNames()) {
+            for (String itemId : table.getItems(modName)) {
+                modByItem.put(itemId, modName);
+            }
+        }
+        this.modOrigins = new Section<>(packs, items, modByItem);
+        this.dirty = true;
+    }
+
+    /**
+     * @param recipes {@link #hashRecipes} of the recipes the graph has to cover
+     */
+    @Nullable
+    RecipeGraph getRecipeGraph(long packs, long recipes) {
+        return this.recipeGraph != null && this.recipeGraph.matches(packs, recipes) ? this.recipeGraph.value : null;
+    }
+
+    void putRecipeGraph(long packs, long recipes, @Nonnull RecipeGraph graph) {
+        this.recipeGraph = new Section<>(packs, recipes, graph);
+        this.dirty = true;
+    }
+
+    /**
+     * Role ID -> role as last discovered, whatever its stamp. Read-only.
+     */
+    @Nonnull
+    Map<String, MobRoleInfo> getMobRoles() {
+        return this.mobRoles;
+    }
+
+    /**
+     * Drop list ID -> table as last flattened, whatever its stamp. Read-only.
+     */
+    @Nonnull
+    Map<String, MobDropTable> getDropTables() {
+        return this.dropTables;
+    }
+
+    /**
+     * @param mobRoles   role ID -> role, which is no longer modified
+     * @param dropTables drop list ID -> table, which is no longer modified
+     */
+    void putMobLoot(@Nonnull Map<String, MobRoleInfo> mobRoles, @Nonnull Map<String, MobDropTable> dropTables) {
+        this.mobRoles = Collections.unmodifiableMap(mobRoles);
+        this.dropTables = Collections.unmodifiableMap(dropTables);
+        this.dirty = true;
+    }
+
+    /**
+     * Fingerprint of the installed asset packs: their names and manifest versions, in load order.
+     * Returns 0, which no section matches, when the packs cannot be listed.
+     */
+    static long packFingerprint() {
+        try {
+            List<AssetPack> packs = AssetModule.get().getAssetPacks();
+            long hash = FNV_OFFSET;
+            for (AssetPack pack : packs) {
+                hash = hash(hash, pack.getName());
+                PluginManifest manifest = pack.getManifest();
+                hash = hash(hash, manifest != null && manifest.getVersion() != null ? manifest.getVersion().toString() : null);
+            }
+            return hash == 0 ? 1 : hash;
+        } catch (Exception e) {
+            Lumenia.LOGGER.atWarning().log("Lumenia: Cannot fingerprint asset packs, index cache disabled: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Stamp of a single asset pack: its name and manifest version, or the fingerprint of all packs when the pack
+     * is not known
+     */
+    static long packStamp(@Nullable String packName) {
+        if (packName == null || packName.isEmpty()) {
+            return packFingerprint();
+        }
+        try {
+            AssetPack pack = AssetModule.get().getAssetPack(packName);
+            if (pack == null) {
+                return packFingerprint();
+            }
+            PluginManifest manifest = pack.getManifest();
+            return stamp(packName, manifest != null && manifest.getVersion() != null ? manifest.getVersion().toString() : null);
+        } catch (Exception _) {
+            return packFingerprint();
+        }
+    }
+
+    /**
+     * Stamp of a source file: its path, size and modification time, or 0, which no entry matches, when it cannot be read
+     */
+    static long fileStamp(@Nonnull Path file) {
+        try {
+            return stamp(file.toString(), String.valueOf(Files.size(file)), String.valueOf(Files.getLastModifiedTime(file).toMillis()));
+        } catch (IOException | RuntimeException _) {
+            return 0;
+        }
+    }
+
+    /**
+     * Hash of a few values, in order
+     */
+    static long stamp(@Nonnull String... values) {
+        long hash = FNV_OFFSET;
+        for (String value : values) {
+            hash = hash(hash, value);
+        }
+        return hash;
+    }
+
+    /**
+     * Hash of a set of asset IDs, independent of their order
+     */
+    static long hashIds(@Nonnull Collection<String> ids) {
+        long hash = ids.size();
+        for (String id : ids) {
+            hash += hash(FNV_OFFSET, id);
+        }
+        return hash;
+    }
+
+    /**
+     * Hash of a set of recipes, independent of their order: each recipe ID with the stamp of the file it was loaded
+     * from, so that editing a recipe without bumping its pack's version changes the hash. Recipes without a file of
+     * their own only count by ID, and rely on the pack fingerprint.
+     */
+    static long hashRecipes(@Nonnull Collection<String> recipeIds) {
+        DefaultAssetMap<String, CraftingRecipe> assetMap = CraftingRecipe.getAssetMap();
+        Map<Path, Long> fileStamps = new HashMap<>(); // Several recipes can come from one file
+        long hash = recipeIds.size();
+        for (String recipeId : recipeIds) {
+            long stamp = 0;
+            try {
+                Path file = assetMap.getPath(recipeId);
+                if (file != null) {
+                    stamp = fileStamps.computeIfAbsent(file, IndexCache::fileStamp);
+                }
+            } catch (Exception _) {
+            }
+            hash += hash(hash(FNV_OFFSET, recipeId), Long.toString(stamp));
+        }
+        return hash;
+    }
+
+    /**
+     * FNV-1a over the characters of the value, followed by a terminator so that consecutive values cannot run together
+     */
+    private static long hash(long hash, @Nullable String value) {
+        if (value == null) {
+            return (hash ^ 0xFF) * FNV_PRIME;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+        }
+        return (hash ^ 0xFE) * FNV_PRIME;
+    }
+
+    /**
+     * Writes every section to a temporary file and moves it over the cache file, if anything changed since the
+     * last write
+     */
+    void flush() {
+        if (this.file == null || !this.dirty) {
+            return;
+        }
+        this.dirty = false;
+        Path temp = this.file.resolveSibling(FILE_NAME + ".tmp");
+        try {
+            Files.createDirectories(this.file.toAbsolutePath().getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                out.writeInt(MAGIC);
+                out.writeInt(FORMAT_VERSION);
+                if (this.startSection(out, this.modOrigins)) {
+                    writeModOrigins(out, this.modOrigins.value);
+                }
+                if (this.startSection(out, this.recipeGraph)) {
+                    this.recipeGraph.value.write(out);
+                }
+                writeMobRoles(out, this.mobRoles);
+                writeDropTables(out, this.dropTables);
+            }
+            Files.move(temp, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException | RuntimeException e) {
+            Lumenia.LOGGER.atWarning().log("Lumenia: Could not write index cache " + this.file + ": " + e.getMessage());
+        }
+    }
+
+    private boolean startSection(DataOutputStream out, @Nullable Section<?> section) throws IOException {
+        out.writeBoolean(section != null);
+        if (section != null) {
+            out.writeLong(section.packs);
+            out.writeLong(section.assets);
+        }
+        return section != null;
+    }
+
+    // Mod origins are stored per mod, so each mod name is written once
+
+    private static void writeModOrigins(DataOutputStream out, Map<String, String> modByItem) throws IOException {
+        Map<String, List<String>> itemsByMod = new HashMap<>();
+        for (Map.Entry<String, String> entry : modByItem.entrySet()) {
+            itemsByMod.computeIfAbsent(entry.getValue(), k -> new ArrayList<>()).add(entry.getKey());
+        }
+        out.writeInt(itemsByMod.size());
+        for (Map.Entry<String, List<String>> entry : itemsByMod.entrySet()) {
+            BinaryIO.writeString(out, entry.getKey());
+            BinaryIO.writeStrings(out, entry.getValue().toArray(new String[0]));
+        }
+    }
+
+    private static Map<String, String> readModOrigins(ByteBuffer in) {
+        Map<String, String> modByItem = new Object2ObjectOpenHashMap<>();
+        int modCount = in.getInt();
+        for (int i = 0; i < modCount; i++) {
+            String modName = BinaryIO.readString(in);
+            for (String itemId : BinaryIO.readStrings(in)) {
+                modByItem.put(itemId, modName);
+            }
+        }
+        return modByItem;
+    }
+
+    private static void writeMobRoles(DataOutputStream out, Map<String, MobRoleInfo> mobRoles) throws IOException {
+        out.writeInt(mobRoles.size());
+        for (MobRoleInfo role : mobRoles.values()) {
+            BinaryIO.writeString(out, role.roleId);
+            out.writeLong(role.stamp);
+            BinaryIO.writeString(out, role.translationKey);
+            BinaryIO.writeString(out, role.modelId);
+            BinaryIO.writeString(out, role.dropListId);
+        }
+    }
+
+    private static Map<String, MobRoleInfo> readMobRoles(ByteBuffer in) {
+        int roleCount = in.getInt();
+        Map<String, MobRoleInfo> mobRoles = new LinkedHashMap<>(roleCount);
+        for (int i = 0; i < roleCount; i++) {
+            String roleId = BinaryIO.readString(in);
+            long stamp = in.getLong();
+            String translationKey = BinaryIO.readString(in);
+            String modelId = BinaryIO.readString(in);
+            String dropListId = BinaryIO.readString(in);
+            mobRoles.put(roleId, new MobRoleInfo(roleId, stamp, translationKey, modelId, dropListId));
+        }
+        return Collections.unmodifiableMap(mobRoles);
+    }
+
+    private static void writeDropTables(DataOutputStream out, Map<String, MobDropTable> dropTables) throws IOException {
+        out.writeInt(dropTables.size());
+        for (MobDropTable table : dropTables.values()) {
+            BinaryIO.writeString(out, table.dropListId);
+            out.writeLong(table.stamp);
+            BinaryIO.writeStrings(out, table.itemIds);
+            BinaryIO.writeInts(out, table.minQuantities);
+            BinaryIO.writeInts(out, table.maxQuantities);
+        }
+    }
+
+    private static Map<String, MobDropTable> readDropTables(ByteBuffer in) {
+        int tableCount = in.getInt();
+        Map<String, MobDropTable> dropTables = new HashMap<>(tableCount);
+        for (int i = 0; i < tableCount; i++) {
+            String dropListId = BinaryIO.readString(in);
+            long stamp = in.getLong();
+            dropTables.put(dropListId, new MobDropTable(dropListId, stamp, BinaryIO.readStrings(in), BinaryIO.readInts(in),
+                    BinaryIO.readInts(in)));
+        }
+        return Collections.unmodifiableMap(dropTables);
+    }
+
+    private static final class Section<T> {
+        private final long packs; // Pack fingerprint the section was built with
+        private final long assets; // Hash of the assets it covers, 0 when it only depends on the packs
+        private final T value;
+
+        private Section(long packs, long assets, T value) {
+            this.packs = packs;
+            this.assets = assets;
+            this.value = value;
+        }
+
+        private boolean matches(long packs, long assets) {
+            return packs != 0 && this.packs == packs && this.assets == assets;
+        }
+    }
+}
@@ -0,0 +1,443 @@
+package com.lumengrid.lumenia;
+
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+import com.hypixel.hytale.protocol.ItemResourceType;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.asset.type.item.config.ItemDropList;
+import com.lumengrid.lumenia.index.BenchItems;
+import com.lumengrid.lumenia.index.BenchOutputs;
+import com.lumengrid.lumenia.index.ItemRecipeLists;
+import com.lumengrid.lumenia.index.LayeredMap;
+import com.lumengrid.lumenia.index.ModOriginTable;
+import com.lumengrid.lumenia.index.RecipeGraph;
+import com.lumengrid.lumenia.index.RecipeView;
+import com.lumengrid.lumenia.search.ItemSearchIndex;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Applies item and recipe asset changes to every derived index as deltas, and publishes each result as a new
+ * {@link LumeniaIndex} snapshot. Only the assets named by an event, and the items whose recipe lists they affect,
+ * are looked at again; the new snapshot shares everything else with the previous one.
+ * Working state lives here and is never handed out, except for the {@link LayeredMap}s of items, recipes and views,
+ * which no change modifies: each derives the next version, and the snapshot takes that one.
+ * <p>
+ * Builds run one at a time, in the order they were queued, on a virtual thread of their own, so asset events
+ * return right away and readers keep the previous snapshot until the next one is published.
+ * <p>
+ * The first full build of the mod origins and the recipe graph is taken from the {@link IndexCache} when the
+ * installed packs did not change since it was written. Mob loot is assembled from the roles and drop tables found by
+ * {@link MobLootDiscovery}, and drop list reloads only flatten the changed drop lists again.
+ */
+final class IndexMaintainer {
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(Thread.ofVirtual().name("Lumenia-Indexer").factory());
+    private final AtomicInteger pending = new AtomicInteger();
+    private final LongAdder builds = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private volatile long lastNanos;
+    private volatile String lastBuild = "none";
+    private LayeredMap<String, Item> items = LayeredMap.empty(); // Shared with the published snapshot
+    private LayeredMap<String, CraftingRecipe> recipes = LayeredMap.empty();
+    private LayeredMap<String, RecipeView> recipeViews = LayeredMap.empty();
+    private RecipeGraph.Builder recipeEdges = new RecipeGraph.Builder();
+    private final BenchOutputs benchOutputs = new BenchOutputs();
+    private final Map<String, String[]> resourceTypesByItem = new HashMap<>(); // Item ID -> resource type IDs, for every known item
+    private final Map<String, Set<String>> itemsByResourceType = new HashMap<>(); // Resource type ID -> item IDs
+    private IndexCache cache = IndexCache.detached();
+    private Map<String, MobRoleInfo> mobRoles = Collections.emptyMap(); // Role ID -> role, as last discovered
+    private Map<String, MobDropTable> dropTables = Collections.emptyMap(); // Drop list ID -> table
+    @Nullable
+    private volatile Set<String> droppedItemIds; // Items any loaded drop list can drop, collected on first use
+
+    /**
+     * Runs an index build after every build queued before it. Whatever the build reads from an event must be
+     * copied before queueing, as the event may be reused once its handler returns. Once no other build is queued,
+     * the index cache is written if any build changed it, so the builds of a startup write it only once.
+     *
+     * @param description what is being indexed, for the log and {@link #describeStats()}
+     */
+    void queue(@Nonnull String description, @Nonnull Runnable build) {
+        this.pending.incrementAndGet();
+        try {
+            this.executor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    build.run();
+                    long nanos = System.nanoTime() - start;
+                    this.lastNanos = nanos;
+                    this.lastBuild = description;
+                    this.builds.increment();
+                    this.totalNanos.add(nanos);
+                    Lumenia.LOGGER.atInfo().log("Lumenia: Indexed " + description + " in " + TimeUnit.NANOSECONDS.toMillis(nanos)
+                            + " ms (index version " + Lumenia.INDEX.getVersion() + ")");
+                } catch (Throwable e) {
+                    Lumenia.LOGGER.atSevere().log("Lumenia: Error indexing " + description + ": " + e.getMessage(), e);
+                } finally {
+                    if (this.pending.get() == 1) {
+                        this.flushCache();
+                    }
+                    this.pending.decrementAndGet();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.pending.decrementAndGet();
+            Lumenia.LOGGER.atWarning().log("Lumenia: Index builder is shut down, dropped " + description);
+        }
+    }
+
+    /**
+     * Whether a build is queued or running; until it finishes readers see the previous snapshot
+     */
+    boolean isIndexing() {
+        return this.pending.get() > 0;
+    }
+
+    @Nonnull
+    String describeStats() {
+        long count = this.builds.sum();
+        long totalMillis = TimeUnit.NANOSECONDS.toMillis(this.totalNanos.sum());
+        return String.format("builds=%d pending=%d last=%dms (%s) total=%dms version=%d", count, this.pending.get(),
+                TimeUnit.NANOSECONDS.toMillis(this.lastNanos), this.lastBuild, totalMillis, Lumenia.INDEX.getVersion());
+    }
+
+    void shutdown() {
+        this.executor.shutdownNow();
+    }
+
+    synchronized void openCache(@Nonnull Path file) {
+        this.cache = IndexCache.open(file);
+    }
+
+    private synchronized void flushCache() {
+        this.cache.flush();
+    }
+
+    /**
+     * @param loadedItems items that were loaded, new or updated; every item for the first build, which indexes them all
+     */
+    synchronized void applyItemChanges(@Nonnull DefaultAssetMap<String, Item> assetMap, @Nonnull Map<String, Item> loadedItems,
+                                       @Nonnull Collection<String> removedItemIds) {
+        boolean initial = this.resourceTypesByItem.isEmpty();
+
+        List<String> addedItemIds = new ArrayList<>();
+        Map<String, Item> loadedById = new Object2ObjectOpenHashMap<>(loadedItems.size());
+        for (String itemId : removedItemIds) {
+            this.unlinkResourceTypes(itemId);
+        }
+        for (Map.Entry<String, Item> entry : loadedItems.entrySet()) {
+            if (entry.getKey() == null || entry.getValue() == null) {
+                continue;
+            }
+            loadedById.put(entry.getKey(), entry.getValue());
+            if (!this.unlinkResourceTypes(entry.getKey())) {
+                addedItemIds.add(entry.getKey());
+            }
+            this.linkResourceTypes(entry.getKey(), entry.getValue());
+        }
+        this.items = this.items.with(loadedById, removedItemIds);
+
+        LumeniaIndex current = Lumenia.INDEX;
+        LayeredMap<String, Item> items = this.items;
+        LumeniaIndex.Builder next = current.toBuilder().items(items);
+        if (initial) {
+            long packs = IndexCache.packFingerprint();
+            long itemIds = IndexCache.hashIds(items.keySet());
+            Map<String, String> cachedModOrigins = this.cache.getModOrigins(packs, itemIds);
+            ModOriginTable modOrigins;
+            if (cachedModOrigins != null) {
+                modOrigins = ModOriginTable.of(cachedModOrigins);
+            } else {
+                modOrigins = ModOriginTable.build(items.keySet(), assetMap);
+                this.cache.putModOrigins(packs, itemIds, modOrigins);
+            }
+            next.modOrigins(modOrigins)
+                    .searchIndex(ItemSearchIndex.build(items, modOrigins::getModName, this.benchOutputs.asMap()))
+                    .recipeLists(ItemRecipeLists.build(items, this.recipeEdges, this.recipeViews))
+                    .benchItems(BenchItems.build(items, this.collectBenchIds()));
+        } else {
+            Set<String> changedItemIds = loadedItems.keySet();
+            Set<String> affectedItemIds = new HashSet<>(changedItemIds);
+            affectedItemIds.addAll(removedItemIds);
+            ModOriginTable modOrigins = current.getModOrigins().withItemChanges(changedItemIds, removedItemIds, assetMap);
+            next.modOrigins(modOrigins)
+                    .searchIndex(current.getSearchIndex().withItemChanges(items, changedItemIds, removedItemIds,
+                            modOrigins::getModName, this.benchOutputs.asMap()))
+                    .recipeLists(current.getRecipeLists().withChanges(items, this.recipeEdges, this.recipeViews, affectedItemIds))
+                    .benchItems(current.getBenchItems().withItemChanges(items, addedItemIds, removedItemIds));
+        }
+        Lumenia.INDEX = next.build();
+    }
+
+    /**
+     * @param loadedRecipes recipes that were loaded, new or reloaded
+     */
+    synchronized void applyRecipeChanges(@Nonnull Collection<CraftingRecipe> loadedRecipes, @Nonnull Collection<String> removedRecipeIds) {
+        boolean initial = this.recipes.isEmpty() && removedRecipeIds.isEmpty();
+        Set<String> removed = new HashSet<>();
+        for (String recipeId : removedRecipeIds) {
+            CraftingRecipe previous = this.recipes.get(recipeId);
+            if (previous != null && removed.add(recipeId)) {
+                this.recipeEdges.remove(recipeId);
+                this.benchOutputs.remove(previous);
+            }
+        }
+        // Flatten each recipe once; rendering and the recipe graph only read the view. Views are independent
+        // of each other, so big batches are flattened on the common ForkJoinPool.
+        List<CraftingRecipe> recipes = new ArrayList<>(loadedRecipes);
+        List<RecipeView> views = recipes.size() >= RecipeGraph.Builder.PARALLEL_THRESHOLD
+                ? recipes.parallelStream().map(RecipeView::of).toList()
+                : recipes.stream().map(RecipeView::of).toList();
+
+        Map<String, CraftingRecipe> loaded = new Object2ObjectOpenHashMap<>(recipes.size());
+        Map<String, RecipeView> loadedViews = new Object2ObjectOpenHashMap<>(recipes.size());
+        for (int i = 0; i < recipes.size(); i++) {
+            CraftingRecipe recipe = recipes.get(i);
+            String recipeId = recipe.getId();
+            CraftingRecipe previous = loaded.put(recipeId, recipe);
+            if (previous == null && !removed.contains(recipeId)) {
+                previous = this.recipes.get(recipeId);
+            }
+            if (previous != null) {
+                this.benchOutputs.remove(previous);
+            }
+            loadedViews.put(recipeId, views.get(i));
+            this.benchOutputs.add(recipe);
+        }
+        if (loaded.isEmpty() && removed.isEmpty()) {
+            return;
+        }
+        this.recipes = this.recipes.with(loaded, removed);
+        this.recipeViews = this.recipeViews.with(loadedViews, removed);
+
+        LumeniaIndex current = Lumenia.INDEX;
+        if (initial) {
+            // Nothing to apply a delta to: take the whole graph from the cache, keyed on the packs and the recipe files
+            // so a hit needs no edge of any recipe, or build it and cache it
+            long packs = IndexCache.packFingerprint();
+            long recipeStamps = IndexCache.hashRecipes(loaded.keySet());
+            RecipeGraph graph = this.cache.getRecipeGraph(packs, recipeStamps);
+            if (graph != null) {
+                this.recipeEdges = RecipeGraph.Builder.of(graph);
+            } else {
+                this.putEdges(recipes, views);
+                this.recipeEdges.drainDirtyKeys();
+                this.cache.putRecipeGraph(packs, recipeStamps, this.recipeEdges.build());
+            }
+            Lumenia.INDEX = current.toBuilder()
+                    .recipes(this.recipes, this.recipeViews)
+                    .recipeLists(ItemRecipeLists.build(current.getItems(), this.recipeEdges, this.recipeViews))
+                    .searchIndex(current.getSearchIndex().withBenchChanges(this.benchOutputs.drainChanges()))
+                    .build();
+            return;
+        }
+
+        this.putEdges(recipes, views);
+
+        // Items whose own rows changed, and items carrying a resource type whose row changed
+        Set<String> affectedItemIds = new HashSet<>();
+        for (String key : this.recipeEdges.drainDirtyKeys()) {
+            if (this.resourceTypesByItem.containsKey(key)) {
+                affectedItemIds.add(key);
+            }
+            Set<String> itemIds = this.itemsByResourceType.get(key);
+            if (itemIds != null) {
+                affectedItemIds.addAll(itemIds);
+            }
+        }
+
+        Lumenia.INDEX = current.toBuilder()
+                .recipes(this.recipes, this.recipeViews)
+                .recipeLists(current.getRecipeLists().withChanges(current.getItems(), this.recipeEdges, this.recipeViews,
+                        affectedItemIds))
+                .searchIndex(current.getSearchIndex().withBenchChanges(this.benchOutputs.drainChanges()))
+                .build();
+    }
+
+    /**
+     * Adds the edges of loaded recipes, or replaces them for reloaded ones
+     */
+    private void putEdges(List<CraftingRecipe> recipes, List<RecipeView> views) {
+        List<String> recipeIds = new ArrayList<>(recipes.size());
+        List<List<String>> outputIds = new ArrayList<>(recipes.size());
+        List<List<String>> inputIds = new ArrayList<>(recipes.size());
+        for (int i = 0; i < recipes.size(); i++) {
+            RecipeView view = views.get(i);
+            List<String> outputs = new ArrayList<>(view.outputs.length);
+            for (RecipeView.Material output : view.outputs) {
+                outputs.add(output.itemId);
+            }
+            List<String> inputs = new ArrayList<>(view.inputs.length);
+            for (RecipeView.Material input : view.inputs) {
+                if (input.itemId != null) {
+                    inputs.add(input.itemId);
+                }
+                if (input.resourceTypeId != null) {
+                    inputs.add(input.resourceTypeId);
+                }
+            }
+            recipeIds.add(recipes.get(i).getId());
+            outputIds.add(outputs);
+            inputIds.add(inputs);
+        }
+        this.recipeEdges.putAll(recipeIds, outputIds, inputIds);
+    }
+
+    /**
+     * Roles and drop tables from the cache, for discovery to reuse those whose stamp did not change. Read-only.
+     */
+    @Nonnull
+    synchronized Map<String, MobRoleInfo> getCachedMobRoles() {
+        return this.cache.getMobRoles();
+    }
+
+    @Nonnull
+    synchronized Map<String, MobDropTable> getCachedDropTables() {
+        return this.cache.getDropTables();
+    }
+
+    /**
+     * Whether any loaded drop list can drop the item, mob or not. Every drop list is flattened the first time this is
+     * asked, reusing cached tables whose stamp matches, and again after drop lists change; only assets are read.
+     */
+    synchronized boolean isDropped(@Nonnull String itemId) {
+        if (this.droppedItemIds == null) {
+            Map<String, MobDropTable> cachedTables = this.cache.getDropTables();
+            Set<String> droppedItemIds = ConcurrentHashMap.newKeySet();
+            new ArrayList<>(ItemDropList.getAssetMap().getAssetMap().keySet()).parallelStream().forEach(dropListId -> {
+                try {
+                    long stamp = MobDropTable.stamp(dropListId);
+                    MobDropTable table = cachedTables.get(dropListId);
+                    if (table == null || stamp == 0 || table.stamp != stamp) {
+                        table = MobDropTable.read(dropListId, stamp);
+                    }
+                    if (table != null) {
+                        Collections.addAll(droppedItemIds, table.itemIds);
+                    }
+                } catch (Throwable e) {
+                    Lumenia.LOGGER.atWarning().log("Lumenia: Error reading drop list " + dropListId + ": " + e.getMessage());
+                }
+            });
+            this.droppedItemIds = Collections.unmodifiableSet(droppedItemIds);
+        }
+        return this.droppedItemIds.contains(itemId);
+    }
+
+    /**
+     * Items any loaded drop list can drop, or null until {@link #isDropped} flattened the drop lists. Any thread.
+     */
+    @Nullable
+    Set<String> getDroppedItemIds() {
+        return this.droppedItemIds;
+    }
+
+    /**
+     * @param mobRoles   role ID -> role, in discovery order; taken over
+     * @param dropTables drop list ID -> table, for the drop lists of those roles; taken over
+     */
+    synchronized void publishMobLoot(@Nonnull Map<String, MobRoleInfo> mobRoles, @Nonnull Map<String, MobDropTable> dropTables) {
+        this.mobRoles = mobRoles;
+        this.dropTables = dropTables;
+        Lumenia.INDEX = Lumenia.INDEX.toBuilder().mobLoot(MobDropTable.assemble(mobRoles.values(), dropTables)).build();
+        this.cache.putMobLoot(mobRoles, dropTables);
+    }
+
+    /**
+     * Flattens the changed drop lists again and reassembles the mob loot; nothing to do before the first discovery
+     *
+     * @param dropListIds drop lists that were loaded or removed
+     */
+    synchronized void applyDropListChanges(@Nonnull Collection<String> dropListIds) {
+        this.droppedItemIds = null;
+        if (this.mobRoles.isEmpty()) {
+            return;
+        }
+        Set<String> usedDropListIds = new HashSet<>();
+        for (MobRoleInfo role : this.mobRoles.values()) {
+            usedDropListIds.add(role.dropListId);
+        }
+
+        Map<String, MobDropTable> dropTables = new HashMap<>(this.dropTables);
+        boolean changed = false;
+        for (String dropListId : dropListIds) {
+            if (!usedDropListIds.contains(dropListId)) {
+                continue;
+            }
+            MobDropTable table = MobDropTable.read(dropListId, MobDropTable.stamp(dropListId));
+            if (table != null) {
+                dropTables.put(dropListId, table);
+            } else {
+                dropTables.remove(dropListId);
+            }
+            changed = true;
+        }
+        if (changed) {
+            this.publishMobLoot(this.mobRoles, dropTables);
+        }
+    }
+
+    /**
+     * Drops the translated names of every language once translations reload; each is built again on first use
+     */
+    synchronized void applyTranslationChanges() {
+        Lumenia.INDEX = Lumenia.INDEX.toBuilder().withoutTranslations().build();
+    }
+
+    /**
+     * IDs of the benches shown on recipes, whose items are resolved up front
+     */
+    private Set<String> collectBenchIds() {
+        Set<String> benchIds = new HashSet<>();
+        for (RecipeView view : this.recipeViews.values()) {
+            if (view.benchId != null) {
+                benchIds.add(view.benchId);
+            }
+        }
+        return benchIds;
+    }
+
+    private void linkResourceTypes(String itemId, Item item) {
+        List<String> resourceTypeIds = new ArrayList<>();
+        ItemResourceType[] resourceTypes = item.getResourceTypes();
+        if (resourceTypes != null) {
+            for (ItemResourceType resourceType : resourceTypes) {
+                if (resourceType != null && resourceType.id != null && !resourceType.id.isEmpty()) {
+                    resourceTypeIds.add(resourceType.id);
+                    this.itemsByResourceType.computeIfAbsent(resourceType.id, k -> new HashSet<>()).add(itemId);
+                }
+            }
+        }
+        this.resourceTypesByItem.put(itemId, resourceTypeIds.toArray(new String[0]));
+    }
+
+    /**
+     * Forgets the resource types of an item, returning false when the item was not known
+     */
+    private boolean unlinkResourceTypes(String itemId) {
+        String[] resourceTypeIds = this.resourceTypesByItem.remove(itemId);
+        if (resourceTypeIds == null) {
+            return false;
+        }
+        for (String resourceTypeId : resourceTypeIds) {
+            Set<String> itemIds = this.itemsByResourceType.get(resourceTypeId);
+            if (itemIds != null) {
+                itemIds.remove(itemId);
+                if (itemIds.isEmpty()) {
+                    this.itemsByResourceType.remove(resourceTypeId);
+                }
+            }
+        }
+        return true;
+    }
+}
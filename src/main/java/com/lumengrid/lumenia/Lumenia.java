@@ -5,33 +5,12 @@ import com.hypixel.hytale.assetstore.event.RemovedAssetsEvent;
 import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
 import com.hypixel.hytale.builtin.crafting.BenchRecipeRegistry;
 import com.hypixel.hytale.logger.HytaleLogger;
-import com.hypixel.hytale.protocol.BenchRequirement;
-import com.hypixel.hytale.protocol.BenchType;
 import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.asset.type.item.config.ItemDropList;
-import com.hypixel.hytale.server.core.asset.type.item.config.ItemDrop;
-import com.hypixel.hytale.server.core.asset.type.item.config.container.ItemDropContainer;
-import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
+import com.hypixel.hytale.server.core.modules.i18n.event.MessagesUpdated;
 import com.hypixel.hytale.server.core.universe.world.events.StartWorldEvent;
-import com.hypixel.hytale.server.npc.NPCPlugin;
-import com.hypixel.hytale.server.npc.role.Role;
-import com.hypixel.hytale.server.npc.asset.builder.Builder;
-import com.hypixel.hytale.server.npc.asset.builder.BuilderInfo;
-import com.hypixel.hytale.server.npc.asset.builder.BuilderSupport;
-import com.hypixel.hytale.server.npc.role.support.RoleStats;
-import com.hypixel.hytale.server.npc.util.expression.ExecutionContext;
-import com.hypixel.hytale.server.npc.entities.NPCEntity;
-import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
-import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.component.Holder;
-import it.unimi.dsi.fastutil.Pair;
 import com.hypixel.hytale.server.core.universe.world.World;
-import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
-import com.hypixel.hytale.server.npc.systems.PositionCacheSystems;
-import com.hypixel.hytale.math.vector.Vector3d;
-import com.hypixel.hytale.math.vector.Vector3f;
-import com.hypixel.hytale.function.consumer.TriConsumer;
 import com.hypixel.hytale.server.core.modules.interaction.interaction.config.Interaction;
 import com.hypixel.hytale.server.core.plugin.JavaPlugin;
 import com.hypixel.hytale.server.core.plugin.JavaPluginInit;
@@ -39,20 +18,26 @@ import com.hypixel.hytale.server.core.plugin.registry.CodecMapRegistry;
 import com.hypixel.hytale.server.core.util.Config;
 import com.lumengrid.lumenia.commands.OpenJEICommand;
 import com.lumengrid.lumenia.interactions.OpenLumeniaBookInteraction;
+import com.lumengrid.lumenia.search.SearchResultCache;
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import org.checkerframework.checker.nullness.compatqual.NonNullDecl;
 
+import javax.annotation.Nonnull;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Lumenia extends JavaPlugin {
     public static final HytaleLogger LOGGER = HytaleLogger.forEnclosingClass();
-    public static Map<String, Item> ITEMS = new HashMap<>();
-    public static Map<String, CraftingRecipe> RECIPES = new HashMap<>();
-    public static Map<String, List<String>> ITEM_TO_RECIPES = new HashMap<>(); // Item ID -> Recipe IDs that produce it
-    public static Map<String, List<String>> ITEM_FROM_RECIPES = new HashMap<>(); // Item ID -> Recipe IDs that use it as input
-    public static final Map<String, Map<String, MobDropInfo>> MOB_LOOT = new HashMap<>(); // Item ID -> Map of role ID -> MobDropInfo
+    public static volatile LumeniaIndex INDEX = LumeniaIndex.EMPTY; // Current snapshot, replaced whole on every change
+    public static volatile SearchResultCache SEARCH_CACHE = new SearchResultCache(0); // Sized from the config in setup
+    private static final IndexMaintainer INDEX_MAINTAINER = new IndexMaintainer();
     private static final Map<String, BenchRecipeRegistry> registries = new Object2ObjectOpenHashMap<>();
-    private static boolean discoveredMobLoot = false;
+    private static final AtomicBoolean itemsLoaded = new AtomicBoolean(); // Set by the first item load, which copies every item
+    private static final AtomicBoolean mobLootRequested = new AtomicBoolean();
+    private static final CompletableFuture<Void> mobLootPublished = new CompletableFuture<>(); // Done once discovery published or failed
+    private static volatile World mobLootWorld; // First started world, where discovery spawns its temporary NPC
     private static Lumenia instance;
     public final Config<LumeniaConfig> config;
     private com.hypixel.hytale.component.ComponentType<com.hypixel.hytale.server.core.universe.world.storage.EntityStore, LumeniaComponent> componentType;
@@ -76,11 +61,21 @@ public class Lumenia extends JavaPlugin {
         instance = this;
         this.config.save();
 
+        SEARCH_CACHE = new SearchResultCache(this.config.get().searchCacheSize);
+
+        // Queued ahead of the asset loads, so the first builds can take what is still valid from it
+        Path indexCacheFile = this.getDataDirectory().resolve(IndexCache.FILE_NAME);
+        INDEX_MAINTAINER.queue("index cache", () -> INDEX_MAINTAINER.openCache(indexCacheFile));
+
         this.componentType = this.getEntityStoreRegistry().registerComponent(LumeniaComponent.class, "Lumengrid_Lumenia", LumeniaComponent.CODEC);
 
         this.getEventRegistry().register(LoadedAssetsEvent.class, Item.class, Lumenia::onItemAssetLoad);
+        this.getEventRegistry().register(RemovedAssetsEvent.class, Item.class, Lumenia::onItemAssetRemove);
         this.getEventRegistry().register(LoadedAssetsEvent.class, CraftingRecipe.class, Lumenia::onRecipeLoad);
         this.getEventRegistry().register(RemovedAssetsEvent.class, CraftingRecipe.class, Lumenia::onRecipeRemove);
+        this.getEventRegistry().register(LoadedAssetsEvent.class, ItemDropList.class, Lumenia::onDropListLoad);
+        this.getEventRegistry().register(RemovedAssetsEvent.class, ItemDropList.class, Lumenia::onDropListRemove);
+        this.getEventRegistry().registerGlobal(MessagesUpdated.class, Lumenia::onMessagesUpdated);
         this.getEventRegistry().registerGlobal(StartWorldEvent.class, Lumenia::onStartWorld);
 
         this.getCommandRegistry().registerCommand(new OpenJEICommand());
@@ -91,361 +86,168 @@ public class Lumenia extends JavaPlugin {
         interactionRegistry.register("OpenLumeniaBookInteraction", OpenLumeniaBookInteraction.class, OpenLumeniaBookInteraction.CODEC);
     }
 
-    private static void onItemAssetLoad(LoadedAssetsEvent<String, Item, DefaultAssetMap<String, Item>> event) {
-        ITEMS = event.getAssetMap().getAssetMap();
+    @Override
+    protected void shutdown() {
+        INDEX_MAINTAINER.shutdown();
+        super.shutdown();
     }
 
-    private static void onRecipeLoad(LoadedAssetsEvent<String, CraftingRecipe, DefaultAssetMap<String, CraftingRecipe>> event) {
-        java.lang.reflect.Method getInputMethod = null;
-        BenchRequirement benchReq = new BenchRequirement();
-        benchReq.id = CraftingRecipe.FIELDCRAFT_REQUIREMENT;
-        benchReq.requiredTierLevel = 1;
-        benchReq.type = BenchType.fromValue(0);
-        benchReq.categories = new String[] { "Lumenia" };
-        BenchRequirement[] benchField = new BenchRequirement[] { benchReq };
-        try {
-            getInputMethod = CraftingRecipe.class.getMethod("getInput");
-        } catch (NoSuchMethodException _) {
-        }
+    /**
+     * Whether the index is being rebuilt or mob loot discovered; until it is done the previous snapshot is served
+     */
+    public static boolean isIndexing() {
+        return INDEX_MAINTAINER.isIndexing() || MobLootDiscovery.isRunning();
+    }
 
-        for (CraftingRecipe recipe : event.getLoadedAssets().values()) {
-            String recipeId = recipe.getId();
-            if (RECIPES.containsKey(recipeId)) {
-                continue;
-            }
-            RECIPES.put(recipeId, recipe);
+    /**
+     * Whether mob loot discovery is over, so the mob loot in {@link #INDEX} is all there will be
+     */
+    public static boolean isMobLootReady() {
+        return mobLootPublished.isDone();
+    }
 
-            // Track recipes that produce each item
-            for (MaterialQuantity output : recipe.getOutputs()) {
-                ITEM_TO_RECIPES.computeIfAbsent(output.getItemId(), k -> new ArrayList<>()).add(recipeId);
+    /**
+     * Makes sure the drops of an item are discovered. With {@code LazyMobLoot}, discovery starts the first time a page
+     * shows an item that some drop list can drop; items no drop list contains never start it. The loot then stays
+     * in the index. Only the first request flattens the drop lists, on the indexer; later ones are answered right away.
+     *
+     * @return completes once the item's drops, if any, are in {@link #INDEX}
+     */
+    @Nonnull
+    public static CompletableFuture<Void> requestMobLoot(@Nonnull String itemId) {
+        if (mobLootRequested.get()) {
+            return mobLootPublished;
+        }
+        Set<String> droppedItemIds = INDEX_MAINTAINER.getDroppedItemIds();
+        if (droppedItemIds != null) {
+            if (!droppedItemIds.contains(itemId)) {
+                return CompletableFuture.completedFuture(null);
             }
-
-            if (getInputMethod != null) {
-                try {
-                    Object inputsObj = getInputMethod.invoke(recipe);
-                    if (inputsObj != null) {
-                        // Process inputs whether they're a List, array, Collection, or single MaterialQuantity
-                        if (inputsObj instanceof MaterialQuantity) {
-                            // getInput() returns a single MaterialQuantity
-                            MaterialQuantity input = (MaterialQuantity) inputsObj;
-                            if (input != null && input.getItemId() != null) {
-                                ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                            }
-                            if (input != null && input.getResourceTypeId() != null) {
-                                ITEM_FROM_RECIPES.computeIfAbsent(input.getResourceTypeId(), k -> new ArrayList<>()).add(recipeId);
-                            }
-                        } else if (inputsObj instanceof List) {
-                            @SuppressWarnings("unchecked")
-                            List<MaterialQuantity> inputs = (List<MaterialQuantity>) inputsObj;
-                            if (inputs != null && !inputs.isEmpty()) {
-                                for (MaterialQuantity input : inputs) {
-                                    if (input == null) {
-                                        continue;
-                                    }
-                                    if (input.getItemId() != null) {
-                                        ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                                    }
-                                    if (input.getResourceTypeId() != null) {
-                                        ITEM_FROM_RECIPES.computeIfAbsent(input.getResourceTypeId(), k -> new ArrayList<>()).add(recipeId);
-                                    }
-                                }
-                            }
-                        } else if (inputsObj instanceof MaterialQuantity[]) {
-                            MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-                            if (inputs != null && inputs.length > 0) {
-                                for (MaterialQuantity input : inputs) {
-                                    if (input == null) {
-                                        continue;
-                                    }
-                                    if (input.getItemId() != null) {
-                                        ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                                    }
-                                    if (input.getResourceTypeId() != null) {
-                                        ITEM_FROM_RECIPES.computeIfAbsent(input.getResourceTypeId(), k -> new ArrayList<>()).add(recipeId);
-                                    }
-                                }
-                            }
-                        } else if (inputsObj instanceof java.util.Collection) {
-                            @SuppressWarnings("unchecked")
-                            java.util.Collection<MaterialQuantity> inputs = (java.util.Collection<MaterialQuantity>) inputsObj;
-                            if (inputs != null && !inputs.isEmpty()) {
-                                for (MaterialQuantity input : inputs) {
-                                    if (input == null) {
-                                        continue;
-                                    }
-                                    if (input.getItemId() != null) {
-                                        ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                                    }
-                                    if (input.getResourceTypeId() != null) {
-                                        ITEM_FROM_RECIPES.computeIfAbsent(input.getResourceTypeId(), k -> new ArrayList<>()).add(recipeId);
-                                    }
-                                }
-                            }
-                        }
-                    }
-                } catch (Exception e) {
-                    Lumenia.LOGGER.atSevere().log("Lumenia: onRecipeLoad: " + e.getMessage(), e);
-                }
+            startMobLootDiscovery();
+            return mobLootPublished;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        INDEX_MAINTAINER.queue("drop lists for " + itemId, () -> {
+            if (INDEX_MAINTAINER.isDropped(itemId)) {
+                startMobLootDiscovery();
+                mobLootPublished.whenComplete((result, error) -> done.complete(null));
             } else {
-                String[] methodNames = {"getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials"};
-                for (String methodName : methodNames) {
-                    try {
-                        java.lang.reflect.Method fallbackMethod = CraftingRecipe.class.getMethod(methodName);
-                        Object inputsObj = fallbackMethod.invoke(recipe);
-                        if (inputsObj != null) {
-                            if (inputsObj instanceof List) {
-                                @SuppressWarnings("unchecked")
-                                List<MaterialQuantity> inputs = (List<MaterialQuantity>) inputsObj;
-                                if (inputs != null && !inputs.isEmpty()) {
-                                    for (MaterialQuantity input : inputs) {
-                                        if (input == null) {
-                                            continue;
-                                        }
-                                        if (input.getItemId() != null) {
-                                            ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                                        }
-                                        if (input.getResourceTypeId() != null) {
-                                            ITEM_FROM_RECIPES.computeIfAbsent(input.getResourceTypeId(), k -> new ArrayList<>()).add(recipeId);
-                                        }
-                                    }
-                                }
-                            } else if (inputsObj instanceof MaterialQuantity[]) {
-                                MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-                                if (inputs != null && inputs.length > 0) {
-                                    for (MaterialQuantity input : inputs) {
-                                        if (input == null) {
-                                            continue;
-                                        }
-                                        if (input.getItemId() != null) {
-                                            ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                                        }
-                                        if (input.getResourceTypeId() != null) {
-                                            ITEM_FROM_RECIPES.computeIfAbsent(input.getResourceTypeId(), k -> new ArrayList<>()).add(recipeId);
-                                        }
-                                    }
-                                }
-                            } else if (inputsObj instanceof java.util.Collection) {
-                                @SuppressWarnings("unchecked")
-                                java.util.Collection<MaterialQuantity> inputs = (java.util.Collection<MaterialQuantity>) inputsObj;
-                                if (inputs != null && !inputs.isEmpty()) {
-                                    for (MaterialQuantity input : inputs) {
-                                        if (input == null) {
-                                            continue;
-                                        }
-                                        if (input.getItemId() != null) {
-                                            ITEM_FROM_RECIPES.computeIfAbsent(input.getItemId(), k -> new ArrayList<>()).add(recipeId);
-                                        }
-                                        if (input.getResourceTypeId() != null) {
-                                            ITEM_FROM_RECIPES.computeIfAbsent(input.getResourceTypeId(), k -> new ArrayList<>()).add(recipeId);
-                                        }
-                                    }
-                                }
-                            }
-                            break; // Found a working method, stop trying others
-                        }
-                    } catch (NoSuchMethodException | java.lang.reflect.InvocationTargetException | IllegalAccessException ignored) {
-                        // Try next method
-                    }
-                }
+                done.complete(null);
             }
-        }
-        computeBenchRecipeRegistries();
+        });
+        return done;
     }
 
-    private static void computeBenchRecipeRegistries() {
-        for (BenchRecipeRegistry registry : registries.values()) {
-            registry.recompute();
+    /**
+     * Starts mob loot discovery unless it was already started. Discovery runs once: when it cannot run or fails,
+     * the mob loot stays empty and waiting pages are released all the same.
+     */
+    private static void startMobLootDiscovery() {
+        World world = mobLootWorld;
+        if (world == null || !mobLootRequested.compareAndSet(false, true)) {
+            return;
         }
-    }
-
-    private static void onRecipeRemove(RemovedAssetsEvent<String, CraftingRecipe, DefaultAssetMap<String, CraftingRecipe>> event) {
-        for (String recipeId : event.getRemovedAssets()) {
-            CraftingRecipe recipe = RECIPES.remove(recipeId);
-            if (recipe != null) {
-                for (MaterialQuantity output : recipe.getOutputs()) {
-                    List<String> recipes = ITEM_TO_RECIPES.get(output.getItemId());
-                    if (recipes != null) {
-                        recipes.remove(recipeId);
-                    }
-                }
-
-                try {
-                    java.lang.reflect.Method getInputMethod = CraftingRecipe.class.getMethod("getInput");
-                    Object inputsObj = getInputMethod.invoke(recipe);
-                    
-                    if (inputsObj != null) {
-                        if (inputsObj instanceof List) {
-                            @SuppressWarnings("unchecked")
-                            List<MaterialQuantity> inputs = (List<MaterialQuantity>) inputsObj;
-                            for (MaterialQuantity input : inputs) {
-                                List<String> recipes = ITEM_FROM_RECIPES.get(input.getItemId());
-                                if (recipes != null) {
-                                    recipes.remove(recipeId);
-                                }
-                            }
-                        } else if (inputsObj instanceof MaterialQuantity[]) {
-                            MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-                            for (MaterialQuantity input : inputs) {
-                                List<String> recipes = ITEM_FROM_RECIPES.get(input.getItemId());
-                                if (recipes != null) {
-                                    recipes.remove(recipeId);
-                                }
-                            }
-                        } else if (inputsObj instanceof java.util.Collection) {
-                            @SuppressWarnings("unchecked")
-                            java.util.Collection<MaterialQuantity> inputs = (java.util.Collection<MaterialQuantity>) inputsObj;
-                            for (MaterialQuantity input : inputs) {
-                                List<String> recipes = ITEM_FROM_RECIPES.get(input.getItemId());
-                                if (recipes != null) {
-                                    recipes.remove(recipeId);
-                                }
+        INDEX_MAINTAINER.queue("cached roles and drop lists", () -> {
+            try {
+                MobLootDiscovery.start(world, INDEX_MAINTAINER.getCachedMobRoles(), INDEX_MAINTAINER.getCachedDropTables(),
+                        (mobRoles, dropTables) -> INDEX_MAINTAINER.queue("mob loot for " + mobRoles.size() + " roles", () -> {
+                            try {
+                                INDEX_MAINTAINER.publishMobLoot(mobRoles, dropTables);
+                            } finally {
+                                mobLootPublished.complete(null);
                             }
-                        }
+                        })).whenComplete((result, error) -> {
+                    if (error != null) {
+                        mobLootPublished.complete(null);
                     }
-                } catch (Exception _) {
-                }
+                });
+            } catch (Throwable e) {
+                mobLootPublished.complete(null);
+                throw e;
             }
-        }
+        });
     }
 
-    private static void onStartWorld(StartWorldEvent event) {
-        if (!discoveredMobLoot) {
-            discoveredMobLoot = true;
-            NPCPlugin npcPlugin = NPCPlugin.get();
-            if (npcPlugin == null) {
-                LOGGER.atWarning().log("Lumenia: NPCPlugin not available, cannot discover mob loot");
-                return;
-            }
+    /**
+     * Timings of the index builds so far, for logs and diagnostics
+     */
+    public static String describeIndexStats() {
+        return INDEX_MAINTAINER.describeStats();
+    }
 
-            try {
-                List<String> roles = npcPlugin.getRoleTemplateNames(true);
-                if (roles == null || roles.isEmpty()) {
-                    LOGGER.atWarning().log("Lumenia: No roles found");
-                    return;
-                }
+    // Asset events only copy what changed and queue the build, so loading and hot reloads are not held up by indexing
 
-                World world = event.getWorld();
-                Store<EntityStore> store = world.getEntityStore().getStore();
-                
-                // Get first role to spawn an entity
-                String firstRoleName = roles.get(0);
-                int firstRoleIndex = npcPlugin.getIndex(firstRoleName);
-                if (firstRoleIndex < 0) {
-                    LOGGER.atWarning().log("Lumenia: Invalid first role: " + firstRoleName);
-                    return;
-                }
+    private static void onItemAssetLoad(LoadedAssetsEvent<String, Item, DefaultAssetMap<String, Item>> event) {
+        DefaultAssetMap<String, Item> assetMap = event.getAssetMap();
+        // The first build indexes every item, so it copies the whole map now instead of reading it on the indexer
+        Map<String, Item> loadedItems = new HashMap<>(itemsLoaded.compareAndSet(false, true)
+                ? assetMap.getAssetMap() : event.getLoadedAssets());
+        INDEX_MAINTAINER.queue(loadedItems.size() + " loaded items", () -> {
+            INDEX_MAINTAINER.applyItemChanges(assetMap, loadedItems, Collections.emptySet());
+            invalidateSearchCache();
+        });
+    }
 
-                // Spawn a temporary NPC entity
-                TransformComponent transformComponent = new TransformComponent();
-                Vector3d pos = new Vector3d(transformComponent.getPosition());
-                Pair<com.hypixel.hytale.component.Ref<EntityStore>, NPCEntity> npcPair = 
-                    npcPlugin.spawnEntity(store, firstRoleIndex, pos, (Vector3f) null, null, (TriConsumer<NPCEntity, com.hypixel.hytale.component.Ref<EntityStore>, Store<EntityStore>>) null);
-                NPCEntity npcComponent = npcPair.second();
+    private static void onItemAssetRemove(RemovedAssetsEvent<String, Item, DefaultAssetMap<String, Item>> event) {
+        DefaultAssetMap<String, Item> assetMap = event.getAssetMap();
+        Set<String> removedItemIds = new HashSet<>(event.getRemovedAssets());
+        INDEX_MAINTAINER.queue(removedItemIds.size() + " removed items", () -> {
+            INDEX_MAINTAINER.applyItemChanges(assetMap, Collections.emptyMap(), removedItemIds);
+            invalidateSearchCache();
+        });
+    }
 
-                // Process each role
-                for (String roleName : roles) {
-                    try {
-                        int roleIndex = npcPlugin.getIndex(roleName);
-                        if (roleIndex < 0) {
-                            continue;
-                        }
+    private static void invalidateSearchCache() {
+        LOGGER.atInfo().log("Lumenia: Invalidating search cache (" + SEARCH_CACHE.describeStats() + ")");
+        SEARCH_CACHE.invalidate();
+    }
 
-                        BuilderInfo builderInfo = npcPlugin.prepareRoleBuilderInfo(roleIndex);
-                        if (builderInfo == null) {
-                            continue;
-                        }
+    private static void onRecipeLoad(LoadedAssetsEvent<String, CraftingRecipe, DefaultAssetMap<String, CraftingRecipe>> event) {
+        List<CraftingRecipe> loadedRecipes = new ArrayList<>(event.getLoadedAssets().values());
+        INDEX_MAINTAINER.queue(loadedRecipes.size() + " loaded recipes", () -> {
+            INDEX_MAINTAINER.applyRecipeChanges(loadedRecipes, Collections.emptySet());
+            computeBenchRecipeRegistries();
+            invalidateSearchCache();
+        });
+    }
 
-                        Builder<?> roleBuilder = builderInfo.getBuilder();
-                        if (roleBuilder == null) {
-                            continue;
-                        }
+    private static void computeBenchRecipeRegistries() {
+        for (BenchRecipeRegistry registry : registries.values()) {
+            registry.recompute();
+        }
+    }
 
-                        Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
-                        holder.addComponent(NPCEntity.getComponentType(), npcComponent);
-                        @SuppressWarnings("unchecked")
-                        Builder<Role> roleBuilderTyped = (Builder<Role>) roleBuilder;
-                        BuilderSupport builderSupport = new BuilderSupport(
-                            npcPlugin.getBuilderManager(), 
-                            npcComponent, 
-                            holder, 
-                            new ExecutionContext(), 
-                            roleBuilderTyped, 
-                            (RoleStats) null
-                        );
-                        
-                        Role role = NPCPlugin.buildRole(roleBuilderTyped, builderInfo, builderSupport, roleIndex);
-                        if (role == null) {
-                            continue;
-                        }
+    private static void onRecipeRemove(RemovedAssetsEvent<String, CraftingRecipe, DefaultAssetMap<String, CraftingRecipe>> event) {
+        Set<String> removedRecipeIds = new HashSet<>(event.getRemovedAssets());
+        INDEX_MAINTAINER.queue(removedRecipeIds.size() + " removed recipes", () -> {
+            INDEX_MAINTAINER.applyRecipeChanges(Collections.emptySet(), removedRecipeIds);
+            invalidateSearchCache();
+        });
+    }
 
-                        PositionCacheSystems.initialisePositionCache(role, builderSupport.getStateEvaluator(), 0.0D);
-                        
-                        // Try to get model ID from builder using reflection
-                        String modelId = null;
-                        try {
-                            java.lang.reflect.Method getModelMethod = roleBuilderTyped.getClass().getMethod("getModel");
-                            Object modelObj = getModelMethod.invoke(roleBuilderTyped);
-                            if (modelObj != null) {
-                                java.lang.reflect.Method getIdMethod = modelObj.getClass().getMethod("getId");
-                                Object idObj = getIdMethod.invoke(modelObj);
-                                if (idObj != null) {
-                                    modelId = idObj.toString();
-                                }
-                            }
-                        } catch (Exception e) {
-                            // Try alternative method names
-                            String[] methodNames = {"getModelId", "getModelAsset", "model", "modelId"};
-                            for (String methodName : methodNames) {
-                                try {
-                                    java.lang.reflect.Method method = roleBuilderTyped.getClass().getMethod(methodName);
-                                    Object result = method.invoke(roleBuilderTyped);
-                                    if (result != null) {
-                                        modelId = result.toString();
-                                        break;
-                                    }
-                                } catch (Exception _) {
-                                }
-                            }
-                        }
-                        
-                        String roleTranslationKey = role.getNameTranslationKey();
-                        
-                        String dropListId = role.getDropListId();
-                        if (dropListId != null && !dropListId.isEmpty()) {
-                            ItemDropList itemDropList = (ItemDropList) ItemDropList.getAssetMap().getAsset(dropListId);
-                            if (itemDropList != null) {
-                                LinkedList<ItemDrop> drops = new LinkedList<>();
-                                ItemDropContainer container = itemDropList.getContainer();
-                                if (container != null) {
-                                    container.getAllDrops(drops);
-                                    for (ItemDrop drop : drops) {
-                                        String itemId = drop.getItemId();
-                                        if (itemId != null && !itemId.isEmpty()) {
-                                            Map<String, MobDropInfo> dropRates = 
-                                                MOB_LOOT.computeIfAbsent(itemId, k -> new HashMap<>());
-                                            MobDropInfo dropInfo = new MobDropInfo(
-                                                roleName, 
-                                                roleTranslationKey, 
-                                                modelId,
-                                                Map.entry(drop.getQuantityMin(), drop.getQuantityMax())
-                                            );
-                                            dropRates.put(roleName, dropInfo);
-                                        }
-                                    }
-                                }
-                            }
-                        }
-                    } catch (Throwable e) {
-                        LOGGER.atWarning().log("Lumenia: Error processing role " + roleName + ": " + e.getMessage());
-                    }
-                }
+    private static void onDropListLoad(LoadedAssetsEvent<String, ItemDropList, DefaultAssetMap<String, ItemDropList>> event) {
+        Set<String> dropListIds = new HashSet<>(event.getLoadedAssets().keySet());
+        INDEX_MAINTAINER.queue(dropListIds.size() + " loaded drop lists", () -> INDEX_MAINTAINER.applyDropListChanges(dropListIds));
+    }
 
-                // Clean up the temporary NPC
-                npcComponent.remove();
-                LOGGER.atInfo().log("Lumenia: Discovered mob loot for " + MOB_LOOT.size() + " items");
-            } catch (Exception e) {
-                LOGGER.atSevere().log("Lumenia: Error discovering mob loot: " + e.getMessage(), e);
-            }
+    private static void onDropListRemove(RemovedAssetsEvent<String, ItemDropList, DefaultAssetMap<String, ItemDropList>> event) {
+        Set<String> dropListIds = new HashSet<>(event.getRemovedAssets());
+        INDEX_MAINTAINER.queue(dropListIds.size() + " removed drop lists", () -> INDEX_MAINTAINER.applyDropListChanges(dropListIds));
+    }
+
+    private static void onMessagesUpdated(MessagesUpdated event) {
+        INDEX_MAINTAINER.queue("translations", () -> {
+            INDEX_MAINTAINER.applyTranslationChanges();
+            invalidateSearchCache();
+        });
+    }
+
+    private static void onStartWorld(StartWorldEvent event) {
+        if (mobLootWorld == null) {
+            mobLootWorld = event.getWorld();
+        }
+        if (!instance.config.get().lazyMobLoot) {
+            startMobLootDiscovery();
         }
     }
 }
@@ -7,6 +7,9 @@ import com.hypixel.hytale.codec.builder.BuilderCodec;
 public class LumeniaConfig {
     public static final BuilderCodec<LumeniaConfig> CODEC;
     public boolean defaultOpenJeiKeybind = true;
+    public int searchCacheSize = 1024;
+    public int searchDebounceMillis = 100;
+    public boolean lazyMobLoot = false;
 
     static {
         CODEC = BuilderCodec.builder(LumeniaConfig.class, LumeniaConfig::new)
@@ -14,6 +17,18 @@ public class LumeniaConfig {
                         (o, i) -> o.defaultOpenJeiKeybind = i,
                         (o) -> o.defaultOpenJeiKeybind)
                 .add()
+                .append(new KeyedCodec<>("SearchCacheSize", Codec.INTEGER),
+                        (o, i) -> o.searchCacheSize = i,
+                        (o) -> o.searchCacheSize)
+                .add()
+                .append(new KeyedCodec<>("SearchDebounceMillis", Codec.INTEGER),
+                        (o, i) -> o.searchDebounceMillis = i,
+                        (o) -> o.searchDebounceMillis)
+                .add()
+                .append(new KeyedCodec<>("LazyMobLoot", Codec.BOOLEAN),
+                        (o, i) -> o.lazyMobLoot = i,
+                        (o) -> o.lazyMobLoot)
+                .add()
                 .build();
     }
 }
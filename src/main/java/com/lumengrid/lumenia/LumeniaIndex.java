@@ -0,0 +1,276 @@
+package com.lumengrid.lumenia;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.lumengrid.lumenia.index.BenchItems;
+import com.lumengrid.lumenia.index.ItemRecipeLists;
+import com.lumengrid.lumenia.index.LayeredMap;
+import com.lumengrid.lumenia.index.ModOriginTable;
+import com.lumengrid.lumenia.index.RecipeView;
+import com.lumengrid.lumenia.search.ItemSearchIndex;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.text.CollationKey;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Immutable snapshot of everything derived from the loaded items, recipes and mob loot.
+ * Every change builds a new version off the world threads and publishes it through {@link Lumenia#INDEX};
+ * readers take the reference once and keep using it, so they never lock and never see a half-built index.
+ */
+public final class LumeniaIndex {
+    public static final LumeniaIndex EMPTY = new LumeniaIndex(0, LayeredMap.empty(), LayeredMap.empty(),
+            LayeredMap.empty(), ItemRecipeLists.EMPTY, BenchItems.EMPTY, ModOriginTable.EMPTY,
+            ItemSearchIndex.EMPTY, Collections.emptyMap(), Collections.emptyMap(), new ConcurrentHashMap<>());
+
+    private final long version;
+    private final Map<String, Item> items;
+    private final Map<String, CraftingRecipe> recipes;
+    private final Map<String, RecipeView> recipeViews; // Recipe ID -> flattened recipe
+    private final ItemRecipeLists recipeLists;
+    private final BenchItems benchItems;
+    private final ModOriginTable modOrigins;
+    private final ItemSearchIndex searchIndex;
+    private final Map<String, Map<String, MobDropInfo>> mobLoot; // Item ID -> role ID -> drop
+    private final Map<String, Map<String, MobDropInfo>> roleDrops; // Role ID -> item ID -> drop, the same drops
+    // Language -> item ID -> drops by translated role name, sorted on first use and shared by the next snapshots
+    // until the mob loot or translations change
+    private final Map<String, Map<String, List<Map.Entry<String, MobDropInfo>>>> sortedMobDrops;
+
+    private LumeniaIndex(long version, Map<String, Item> items, Map<String, CraftingRecipe> recipes,
+                         Map<String, RecipeView> recipeViews, ItemRecipeLists recipeLists,
+                         BenchItems benchItems, ModOriginTable modOrigins, ItemSearchIndex searchIndex,
+                         Map<String, Map<String, MobDropInfo>> mobLoot, Map<String, Map<String, MobDropInfo>> roleDrops,
+                         Map<String, Map<String, List<Map.Entry<String, MobDropInfo>>>> sortedMobDrops) {
+        this.version = version;
+        this.items = items;
+        this.recipes = recipes;
+        this.recipeViews = recipeViews;
+        this.recipeLists = recipeLists;
+        this.benchItems = benchItems;
+        this.modOrigins = modOrigins;
+        this.searchIndex = searchIndex;
+        this.mobLoot = mobLoot;
+        this.roleDrops = roleDrops;
+        this.sortedMobDrops = sortedMobDrops;
+    }
+
+    /**
+     * Increases by one with every published snapshot
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Item ID -> item. Read-only.
+     */
+    @Nonnull
+    public Map<String, Item> getItems() {
+        return this.items;
+    }
+
+    @Nullable
+    public Item getItem(@Nonnull String itemId) {
+        return this.items.get(itemId);
+    }
+
+    /**
+     * Recipe ID -> recipe. Read-only.
+     */
+    @Nonnull
+    public Map<String, CraftingRecipe> getRecipes() {
+        return this.recipes;
+    }
+
+    /**
+     * Recipe ID -> flattened recipe. Read-only.
+     */
+    @Nonnull
+    public Map<String, RecipeView> getRecipeViews() {
+        return this.recipeViews;
+    }
+
+    @Nonnull
+    public ItemRecipeLists getRecipeLists() {
+        return this.recipeLists;
+    }
+
+    @Nonnull
+    public BenchItems getBenchItems() {
+        return this.benchItems;
+    }
+
+    @Nonnull
+    public ModOriginTable getModOrigins() {
+        return this.modOrigins;
+    }
+
+    @Nonnull
+    public ItemSearchIndex getSearchIndex() {
+        return this.searchIndex;
+    }
+
+    /**
+     * Item ID -> role ID -> drop. Read-only.
+     */
+    @Nonnull
+    public Map<String, Map<String, MobDropInfo>> getMobLoot() {
+        return this.mobLoot;
+    }
+
+    /**
+     * Role ID -> drop for the mobs dropping the item, null when none does. Read-only.
+     */
+    @Nullable
+    public Map<String, MobDropInfo> getMobDrops(@Nonnull String itemId) {
+        return this.mobLoot.get(itemId);
+    }
+
+    /**
+     * Item ID -> drop for everything a mob drops, null when the role drops nothing. Read-only.
+     */
+    @Nullable
+    public Map<String, MobDropInfo> getRoleDrops(@Nonnull String roleId) {
+        return this.roleDrops.get(roleId);
+    }
+
+    /**
+     * Drops of an item sorted by translated role name in the language, empty when no mob drops it. Read-only.
+     */
+    @Nonnull
+    public List<Map.Entry<String, MobDropInfo>> getSortedMobDrops(@Nonnull String itemId, @Nullable String language) {
+        Map<String, MobDropInfo> drops = this.mobLoot.get(itemId);
+        if (drops == null || drops.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<String, List<Map.Entry<String, MobDropInfo>>> byItem =
+                this.sortedMobDrops.computeIfAbsent(language != null ? language : "", k -> new ConcurrentHashMap<>());
+        List<Map.Entry<String, MobDropInfo>> sorted = byItem.get(itemId);
+        if (sorted == null) {
+            sorted = byItem.computeIfAbsent(itemId, k -> this.sortDrops(drops, language));
+        }
+        return sorted;
+    }
+
+    private List<Map.Entry<String, MobDropInfo>> sortDrops(Map<String, MobDropInfo> drops, @Nullable String language) {
+        // One collation key per role instead of two translations and a collation per comparison
+        ItemSearchIndex.LocaleNames names = this.searchIndex.getLocaleNames(language);
+        Map<String, CollationKey> keys = new HashMap<>(drops.size());
+        for (Map.Entry<String, MobDropInfo> entry : drops.entrySet()) {
+            String translationKey = entry.getValue().roleTranslationKey;
+            String name = names.translate(translationKey);
+            keys.put(entry.getKey(), names.getCollationKey(name != null ? name : translationKey != null ? translationKey : entry.getKey()));
+        }
+        List<Map.Entry<String, MobDropInfo>> sorted = new ArrayList<>(drops.entrySet());
+        sorted.sort(Comparator.comparing((Map.Entry<String, MobDropInfo> entry) -> keys.get(entry.getKey()))
+                .thenComparing(Map.Entry::getKey));
+        return Collections.unmodifiableList(sorted);
+    }
+
+    @Nonnull
+    Builder toBuilder() {
+        return new Builder(this);
+    }
+
+    /**
+     * Next version of a snapshot; parts that are not set are shared with it
+     */
+    static final class Builder {
+        private final LumeniaIndex source;
+        private Map<String, Item> items;
+        private Map<String, CraftingRecipe> recipes;
+        private Map<String, RecipeView> recipeViews;
+        private ItemRecipeLists recipeLists;
+        private BenchItems benchItems;
+        private ModOriginTable modOrigins;
+        private ItemSearchIndex searchIndex;
+        private Map<String, Map<String, MobDropInfo>> mobLoot;
+        private Map<String, Map<String, MobDropInfo>> roleDrops;
+        private Map<String, Map<String, List<Map.Entry<String, MobDropInfo>>>> sortedMobDrops;
+
+        private Builder(LumeniaIndex source) {
+            this.source = source;
+            this.items = source.items;
+            this.recipes = source.recipes;
+            this.recipeViews = source.recipeViews;
+            this.recipeLists = source.recipeLists;
+            this.benchItems = source.benchItems;
+            this.modOrigins = source.modOrigins;
+            this.searchIndex = source.searchIndex;
+            this.mobLoot = source.mobLoot;
+            this.roleDrops = source.roleDrops;
+            this.sortedMobDrops = source.sortedMobDrops;
+        }
+
+        Builder items(@Nonnull LayeredMap<String, Item> items) {
+            this.items = items;
+            return this;
+        }
+
+        Builder recipes(@Nonnull LayeredMap<String, CraftingRecipe> recipes, @Nonnull LayeredMap<String, RecipeView> recipeViews) {
+            this.recipes = recipes;
+            this.recipeViews = recipeViews;
+            return this;
+        }
+
+        Builder recipeLists(@Nonnull ItemRecipeLists recipeLists) {
+            this.recipeLists = recipeLists;
+            return this;
+        }
+
+        Builder benchItems(@Nonnull BenchItems benchItems) {
+            this.benchItems = benchItems;
+            return this;
+        }
+
+        Builder modOrigins(@Nonnull ModOriginTable modOrigins) {
+            this.modOrigins = modOrigins;
+            return this;
+        }
+
+        Builder searchIndex(@Nonnull ItemSearchIndex searchIndex) {
+            this.searchIndex = searchIndex;
+            return this;
+        }
+
+        /**
+         * Takes the drops by item, and indexes the same drops by role
+         *
+         * @param mobLoot a private copy the snapshot takes ownership of, inner maps included
+         */
+        Builder mobLoot(@Nonnull Map<String, Map<String, MobDropInfo>> mobLoot) {
+            Map<String, Map<String, MobDropInfo>> roleDrops = new HashMap<>();
+            for (Map.Entry<String, Map<String, MobDropInfo>> entry : mobLoot.entrySet()) {
+                for (Map.Entry<String, MobDropInfo> drop : entry.getValue().entrySet()) {
+                    roleDrops.computeIfAbsent(drop.getKey(), k -> new HashMap<>()).put(entry.getKey(), drop.getValue());
+                }
+                entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+            }
+            for (Map.Entry<String, Map<String, MobDropInfo>> entry : roleDrops.entrySet()) {
+                entry.setValue(Collections.unmodifiableMap(entry.getValue()));
+            }
+            this.mobLoot = Collections.unmodifiableMap(mobLoot);
+            this.roleDrops = Collections.unmodifiableMap(roleDrops);
+            this.sortedMobDrops = new ConcurrentHashMap<>();
+            return this;
+        }
+
+        /**
+         * Drops everything derived from the translations, after they reload
+         */
+        Builder withoutTranslations() {
+            this.searchIndex = this.searchIndex.withoutLocales();
+            this.sortedMobDrops = new ConcurrentHashMap<>();
+            return this;
+        }
+
+        LumeniaIndex build() {
+            return new LumeniaIndex(this.source.version + 1, this.items, this.recipes, this.recipeViews,
+                    this.recipeLists, this.benchItems, this.modOrigins, this.searchIndex, this.mobLoot,
+                    this.roleDrops, this.sortedMobDrops);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.lumengrid.lumenia;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.ItemDrop;
+import com.hypixel.hytale.server.core.asset.type.item.config.ItemDropList;
+import com.hypixel.hytale.server.core.asset.type.item.config.container.ItemDropContainer;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Every item a drop list can drop, flattened once from its {@link ItemDropContainer} and cached per drop list
+ */
+final class MobDropTable {
+    final String dropListId;
+    final long stamp; // Identifies the drop list asset it was flattened from
+    final String[] itemIds; // In drop list order, may repeat
+    final int[] minQuantities;
+    final int[] maxQuantities;
+
+    MobDropTable(String dropListId, long stamp, String[] itemIds, int[] minQuantities, int[] maxQuantities) {
+        this.dropListId = dropListId;
+        this.stamp = stamp;
+        this.itemIds = itemIds;
+        this.minQuantities = minQuantities;
+        this.maxQuantities = maxQuantities;
+    }
+
+    /**
+     * Stamp of a drop list: the size and modification time of its file, so editing it in place invalidates it,
+     * or else the asset pack it comes from and that pack's version
+     */
+    static long stamp(@Nonnull String dropListId) {
+        String packName = null;
+        try {
+            Path file = ItemDropList.getAssetMap().getPath(dropListId);
+            long stamp = file != null ? IndexCache.fileStamp(file) : 0;
+            if (stamp != 0) {
+                return stamp;
+            }
+            packName = ItemDropList.getAssetMap().getAssetPack(dropListId);
+        } catch (Exception _) {
+        }
+        return IndexCache.packStamp(packName);
+    }
+
+    /**
+     * Flattens the loaded drop list, or returns null when there is no such drop list
+     */
+    @Nullable
+    static MobDropTable read(@Nonnull String dropListId, long stamp) {
+        ItemDropList itemDropList = (ItemDropList) ItemDropList.getAssetMap().getAsset(dropListId);
+        if (itemDropList == null) {
+            return null;
+        }
+        List<ItemDrop> drops = new ArrayList<>();
+        ItemDropContainer container = itemDropList.getContainer();
+        if (container != null) {
+            container.getAllDrops(drops);
+        }
+
+        List<String> itemIds = new ArrayList<>(drops.size());
+        int[] minQuantities = new int[drops.size()];
+        int[] maxQuantities = new int[drops.size()];
+        for (ItemDrop drop : drops) {
+            String itemId = drop.getItemId();
+            if (itemId != null && !itemId.isEmpty()) {
+                minQuantities[itemIds.size()] = drop.getQuantityMin();
+                maxQuantities[itemIds.size()] = drop.getQuantityMax();
+                itemIds.add(itemId);
+            }
+        }
+        return new MobDropTable(dropListId, stamp, itemIds.toArray(new String[0]),
+                Arrays.copyOf(minQuantities, itemIds.size()), Arrays.copyOf(maxQuantities, itemIds.size()));
+    }
+
+    /**
+     * Item ID -> role ID -> drop, for roles in order; a role listing an item twice keeps its last entry
+     */
+    @Nonnull
+    static Map<String, Map<String, MobDropInfo>> assemble(@Nonnull Collection<MobRoleInfo> roles,
+                                                         @Nonnull Map<String, MobDropTable> tables) {
+        Map<String, Map<String, MobDropInfo>> mobLoot = new HashMap<>();
+        for (MobRoleInfo role : roles) {
+            MobDropTable table = role.dropListId != null ? tables.get(role.dropListId) : null;
+            if (table == null) {
+                continue;
+            }
+            for (int i = 0; i < table.itemIds.length; i++) {
+                mobLoot.computeIfAbsent(table.itemIds[i], k -> new HashMap<>()).put(role.roleId, new MobDropInfo(
+                        role.roleId,
+                        role.translationKey,
+                        role.modelId,
+                        Map.entry(table.minQuantities[i], table.maxQuantities[i])
+                ));
+            }
+        }
+        return mobLoot;
+    }
+}
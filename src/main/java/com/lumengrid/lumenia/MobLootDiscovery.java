@@ -0,0 +1,353 @@
+package com.lumengrid.lumenia;
+
+import com.hypixel.hytale.component.Holder;
+import com.hypixel.hytale.component.Ref;
+import com.hypixel.hytale.component.Store;
+import com.hypixel.hytale.function.consumer.TriConsumer;
+import com.hypixel.hytale.math.vector.Vector3d;
+import com.hypixel.hytale.math.vector.Vector3f;
+import com.hypixel.hytale.server.core.modules.entity.component.TransformComponent;
+import com.hypixel.hytale.server.core.universe.world.World;
+import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
+import com.hypixel.hytale.server.npc.NPCPlugin;
+import com.hypixel.hytale.server.npc.asset.builder.Builder;
+import com.hypixel.hytale.server.npc.asset.builder.BuilderInfo;
+import com.hypixel.hytale.server.npc.asset.builder.BuilderSupport;
+import com.hypixel.hytale.server.npc.entities.NPCEntity;
+import com.hypixel.hytale.server.npc.role.Role;
+import com.hypixel.hytale.server.npc.role.support.RoleStats;
+import com.hypixel.hytale.server.npc.systems.PositionCacheSystems;
+import com.hypixel.hytale.server.npc.util.expression.ExecutionContext;
+import com.lumengrid.lumenia.util.Accessors;
+import it.unimi.dsi.fastutil.Pair;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+/**
+ * Finds which mobs drop which items by building every NPC role once, as a background job.
+ * Building a role needs a live NPC entity and the NPC builders, so roles are built on the world thread in small
+ * batches and the world keeps ticking between them. Everything else (model IDs, drop list flattening) only reads
+ * assets, and runs in parallel on the common ForkJoinPool.
+ * Roles and drop tables from the index cache are reused while their stamp matches, so only roles and drop lists
+ * that changed since the last discovery are built again. The result is handed over in one piece when the job is done.
+ */
+final class MobLootDiscovery {
+    private static final int BATCH_SIZE = 32; // Roles prepared per world task
+    private static final AtomicInteger RUNNING = new AtomicInteger();
+
+    private final World world;
+    private final NPCPlugin npcPlugin;
+    private final List<String> roles;
+    private final Map<String, MobRoleInfo> cachedRoles;
+    private final Map<String, MobDropTable> cachedTables;
+    private final BiConsumer<Map<String, MobRoleInfo>, Map<String, MobDropTable>> publisher;
+    private NPCEntity npc; // Spawned on the world thread once a role has to be built
+    private boolean spawnFailed;
+
+    private MobLootDiscovery(World world, NPCPlugin npcPlugin, List<String> roles, Map<String, MobRoleInfo> cachedRoles,
+                             Map<String, MobDropTable> cachedTables,
+                             BiConsumer<Map<String, MobRoleInfo>, Map<String, MobDropTable>> publisher) {
+        this.world = world;
+        this.npcPlugin = npcPlugin;
+        this.roles = roles;
+        this.cachedRoles = cachedRoles;
+        this.cachedTables = cachedTables;
+        this.publisher = publisher;
+    }
+
+    /**
+     * Starts discovery on a virtual thread of its own and returns right away
+     *
+     * @param cachedRoles  role ID -> role from an earlier discovery, reused while its stamp matches
+     * @param cachedTables drop list ID -> table from an earlier discovery, reused while its stamp matches
+     * @param publisher    receives role ID -> role and drop list ID -> table once every role is done, and takes
+     *                     ownership of them
+     * @return completes once the publisher was called, or exceptionally when discovery could not run or failed, in
+     * which case the publisher is never called
+     */
+    @Nonnull
+    static CompletableFuture<Void> start(@Nonnull World world, @Nonnull Map<String, MobRoleInfo> cachedRoles,
+                      @Nonnull Map<String, MobDropTable> cachedTables,
+                      @Nonnull BiConsumer<Map<String, MobRoleInfo>, Map<String, MobDropTable>> publisher) {
+        NPCPlugin npcPlugin = NPCPlugin.get();
+        if (npcPlugin == null) {
+            Lumenia.LOGGER.atWarning().log("Lumenia: NPCPlugin not available, cannot discover mob loot");
+            return CompletableFuture.failedFuture(new IllegalStateException("NPCPlugin not available"));
+        }
+        List<String> roles = npcPlugin.getRoleTemplateNames(true);
+        if (roles == null || roles.isEmpty()) {
+            Lumenia.LOGGER.atWarning().log("Lumenia: No roles found");
+            return CompletableFuture.failedFuture(new IllegalStateException("No roles found"));
+        }
+
+        MobLootDiscovery discovery = new MobLootDiscovery(world, npcPlugin, new ArrayList<>(roles), cachedRoles, cachedTables, publisher);
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        RUNNING.incrementAndGet();
+        Thread.ofVirtual().name("Lumenia-MobLoot").start(() -> {
+            try {
+                discovery.run();
+                done.complete(null);
+            } catch (Throwable e) {
+                Lumenia.LOGGER.atSevere().log("Lumenia: Error discovering mob loot: " + e.getMessage(), e);
+                done.completeExceptionally(e);
+            } finally {
+                RUNNING.decrementAndGet();
+            }
+        });
+        return done;
+    }
+
+    /**
+     * Whether a discovery job has not handed over its result yet
+     */
+    static boolean isRunning() {
+        return RUNNING.get() > 0;
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        long packs = IndexCache.packFingerprint();
+
+        List<CompletableFuture<List<MobRoleInfo>>> batches = new ArrayList<>();
+        int built = 0;
+        try {
+            for (int from = 0; from < this.roles.size(); from += BATCH_SIZE) {
+                List<String> batch = this.roles.subList(from, Math.min(from + BATCH_SIZE, this.roles.size()));
+                List<PreparedRole> prepared = CompletableFuture.supplyAsync(() -> this.prepareRoles(batch, packs), this.world).join();
+                for (PreparedRole role : prepared) {
+                    if (role.cached == null) {
+                        built++;
+                    }
+                }
+                batches.add(CompletableFuture.supplyAsync(() -> prepared.parallelStream().map(MobLootDiscovery::toRoleInfo).toList()));
+                Lumenia.LOGGER.atInfo().log("Lumenia: Prepared " + (from + batch.size()) + "/" + this.roles.size() + " roles for mob loot");
+            }
+        } finally {
+            if (this.npc != null) {
+                // Clean up the temporary NPC
+                CompletableFuture.runAsync(this.npc::remove, this.world).join();
+            }
+        }
+
+        Map<String, MobRoleInfo> mobRoles = new LinkedHashMap<>();
+        for (CompletableFuture<List<MobRoleInfo>> batch : batches) {
+            for (MobRoleInfo role : batch.join()) {
+                mobRoles.put(role.roleId, role);
+            }
+        }
+
+        // Each drop list is flattened once, however many roles use it
+        Set<String> dropListIds = new HashSet<>();
+        for (MobRoleInfo role : mobRoles.values()) {
+            if (role.dropListId != null && !role.dropListId.isEmpty()) {
+                dropListIds.add(role.dropListId);
+            }
+        }
+        Map<String, MobDropTable> dropTables = new ConcurrentHashMap<>();
+        LongAdder flattened = new LongAdder();
+        dropListIds.parallelStream().forEach(dropListId -> {
+            try {
+                long stamp = MobDropTable.stamp(dropListId);
+                MobDropTable table = this.cachedTables.get(dropListId);
+                if (table == null || !matches(table.stamp, stamp)) {
+                    table = MobDropTable.read(dropListId, stamp);
+                    flattened.increment();
+                }
+                if (table != null) {
+                    dropTables.put(dropListId, table);
+                }
+            } catch (Throwable e) {
+                Lumenia.LOGGER.atWarning().log("Lumenia: Error reading drop list " + dropListId + ": " + e.getMessage());
+            }
+        });
+
+        Lumenia.LOGGER.atInfo().log("Lumenia: Discovered mob loot from " + mobRoles.size() + " roles (" + built + " built, "
+                + (mobRoles.size() - built) + " cached) and " + dropTables.size() + " drop lists (" + flattened.sum()
+                + " flattened) in " + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) + " ms");
+        this.publisher.accept(mobRoles, new HashMap<>(dropTables));
+    }
+
+    /**
+     * Spawns the temporary NPC every role is built against. World thread only.
+     */
+    @Nullable
+    private NPCEntity spawnNpc() {
+        // Get first role to spawn an entity
+        String firstRoleName = this.roles.get(0);
+        int firstRoleIndex = this.npcPlugin.getIndex(firstRoleName);
+        if (firstRoleIndex < 0) {
+            Lumenia.LOGGER.atWarning().log("Lumenia: Invalid first role: " + firstRoleName);
+            return null;
+        }
+
+        Store<EntityStore> store = this.world.getEntityStore().getStore();
+        TransformComponent transformComponent = new TransformComponent();
+        Vector3d pos = new Vector3d(transformComponent.getPosition());
+        Pair<Ref<EntityStore>, NPCEntity> npcPair = this.npcPlugin.spawnEntity(store, firstRoleIndex, pos, (Vector3f) null, null,
+                (TriConsumer<NPCEntity, Ref<EntityStore>, Store<EntityStore>>) null);
+        return npcPair.second();
+    }
+
+    /**
+     * Prepares the roles of one batch, building those that are not cached with a matching stamp. World thread only.
+     */
+    private List<PreparedRole> prepareRoles(List<String> batch, long packs) {
+        List<PreparedRole> prepared = new ArrayList<>(batch.size());
+        for (String roleName : batch) {
+            try {
+                int roleIndex = this.npcPlugin.getIndex(roleName);
+                if (roleIndex < 0) {
+                    continue;
+                }
+
+                BuilderInfo builderInfo = this.npcPlugin.prepareRoleBuilderInfo(roleIndex);
+                if (builderInfo == null) {
+                    continue;
+                }
+
+                long stamp = roleStamp(builderInfo, packs);
+                MobRoleInfo cached = this.cachedRoles.get(roleName);
+                if (cached != null && matches(cached.stamp, stamp)) {
+                    prepared.add(new PreparedRole(roleName, stamp, cached, null, null, null));
+                    continue;
+                }
+
+                Builder<?> roleBuilder = builderInfo.getBuilder();
+                if (roleBuilder == null) {
+                    continue;
+                }
+
+                NPCEntity npcComponent = this.spawnedNpc();
+                if (npcComponent == null) {
+                    continue;
+                }
+
+                Holder<EntityStore> holder = EntityStore.REGISTRY.newHolder();
+                holder.addComponent(NPCEntity.getComponentType(), npcComponent);
+                @SuppressWarnings("unchecked")
+                Builder<Role> roleBuilderTyped = (Builder<Role>) roleBuilder;
+                BuilderSupport builderSupport = new BuilderSupport(
+                        this.npcPlugin.getBuilderManager(),
+                        npcComponent,
+                        holder,
+                        new ExecutionContext(),
+                        roleBuilderTyped,
+                        (RoleStats) null
+                );
+
+                Role role = NPCPlugin.buildRole(roleBuilderTyped, builderInfo, builderSupport, roleIndex);
+                if (role == null) {
+                    continue;
+                }
+
+                PositionCacheSystems.initialisePositionCache(role, builderSupport.getStateEvaluator(), 0.0D);
+                prepared.add(new PreparedRole(roleName, stamp, null, roleBuilderTyped, role.getNameTranslationKey(), role.getDropListId()));
+            } catch (Throwable e) {
+                Lumenia.LOGGER.atWarning().log("Lumenia: Error processing role " + roleName + ": " + e.getMessage());
+            }
+        }
+        return prepared;
+    }
+
+    /**
+     * The temporary NPC, spawned by the first role that has to be built. World thread only.
+     */
+    @Nullable
+    private NPCEntity spawnedNpc() {
+        if (this.npc == null && !this.spawnFailed) {
+            this.npc = this.spawnNpc();
+            this.spawnFailed = this.npc == null;
+        }
+        return this.npc;
+    }
+
+    /**
+     * Stamp of a role: the size and modification time of its definition file when the builder tells where it is,
+     * otherwise the fingerprint of all packs
+     */
+    private static long roleStamp(BuilderInfo builderInfo, long packs) {
+        Object path = Accessors.find(builderInfo.getClass(), "getPath").get(builderInfo);
+        long stamp = path instanceof Path file ? IndexCache.fileStamp(file) : 0;
+        return stamp != 0 ? stamp : packs;
+    }
+
+    private static boolean matches(long cachedStamp, long stamp) {
+        return stamp != 0 && cachedStamp == stamp;
+    }
+
+    /**
+     * Role as cached; reading the model ID only reads the builder, so roles are read in parallel
+     */
+    private static MobRoleInfo toRoleInfo(PreparedRole prepared) {
+        if (prepared.cached != null) {
+            return prepared.cached;
+        }
+        String modelId = null;
+        try {
+            modelId = getModelId(prepared.builder);
+        } catch (Throwable e) {
+            Lumenia.LOGGER.atWarning().log("Lumenia: Error reading model of role " + prepared.roleName + ": " + e.getMessage());
+        }
+        return new MobRoleInfo(prepared.roleName, prepared.stamp, prepared.translationKey, modelId, prepared.dropListId);
+    }
+
+    /**
+     * Model ID from the role builder; the accessors are resolved once per builder class
+     */
+    @Nullable
+    private static String getModelId(Builder<Role> roleBuilder) {
+        Accessors.Accessor getModel = Accessors.find(roleBuilder.getClass(), "getModel");
+        if (getModel.isPresent()) {
+            Object modelObj = getModel.get(roleBuilder);
+            if (modelObj != null) {
+                Object idObj = Accessors.get(modelObj, "getId");
+                if (idObj != null) {
+                    return idObj.toString();
+                }
+            }
+            return null;
+        }
+
+        // Try alternative method names
+        String[] methodNames = {"getModelId", "getModelAsset", "model", "modelId"};
+        for (String methodName : methodNames) {
+            Object result = Accessors.get(roleBuilder, methodName);
+            if (result != null) {
+                return result.toString();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * What the world thread hands over about a role: the cached role when it is still valid, or what was built
+     */
+    private static final class PreparedRole {
+        private final String roleName;
+        private final long stamp;
+        @Nullable
+        private final MobRoleInfo cached;
+        private final Builder<Role> builder;
+        private final String translationKey;
+        private final String dropListId;
+
+        private PreparedRole(String roleName, long stamp, @Nullable MobRoleInfo cached, Builder<Role> builder,
+                             String translationKey, String dropListId) {
+            this.roleName = roleName;
+            this.stamp = stamp;
+            this.cached = cached;
+            this.builder = builder;
+            this.translationKey = translationKey;
+            this.dropListId = dropListId;
+        }
+    }
+}
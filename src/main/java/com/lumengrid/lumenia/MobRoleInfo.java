@@ -0,0 +1,21 @@
+package com.lumengrid.lumenia;
+
+/**
+ * What mob loot needs from a built NPC role. Building a role is the costly part of discovery, so this is cached
+ * per role and only built again when the role's stamp changes.
+ */
+final class MobRoleInfo {
+    final String roleId;
+    final long stamp; // Identifies the role definition it was built from
+    final String translationKey;
+    final String modelId;
+    final String dropListId;
+
+    MobRoleInfo(String roleId, long stamp, String translationKey, String modelId, String dropListId) {
+        this.roleId = roleId;
+        this.stamp = stamp;
+        this.translationKey = translationKey;
+        this.modelId = modelId;
+        this.dropListId = dropListId;
+    }
+}
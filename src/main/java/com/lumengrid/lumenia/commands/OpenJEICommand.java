@@ -3,6 +3,7 @@ package com.lumengrid.lumenia.commands;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
 import com.hypixel.hytale.protocol.GameMode;
+import com.hypixel.hytale.protocol.ItemResourceType;
 import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
 import com.hypixel.hytale.server.core.command.system.AbstractCommand;
@@ -12,12 +13,12 @@ import com.hypixel.hytale.server.core.command.system.ParseResult;
 import com.hypixel.hytale.server.core.command.system.arguments.system.OptionalArg;
 import com.hypixel.hytale.server.core.command.system.arguments.types.SingleArgumentType;
 import com.hypixel.hytale.server.core.entity.entities.Player;
-import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
 import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.lumengrid.lumenia.Lumenia;
 import com.lumengrid.lumenia.gui.JEIGui;
+import com.lumengrid.lumenia.search.ItemSearchIndex;
 import org.checkerframework.checker.nullness.compatqual.NullableDecl;
 
 import javax.annotation.Nonnull;
@@ -102,29 +103,34 @@ public class OpenJEICommand extends AbstractCommand {
      * Finds an item ID by searching through item IDs and translated names
      */
     private String findItemId(String search, String language) {
+        Map<String, Item> items = Lumenia.INDEX.getItems();
+
         // First try exact match
-        if (Lumenia.ITEMS.containsKey(search)) {
+        if (items.containsKey(search)) {
             return search;
         }
 
-        // Search by translated name
-        search = search.toLowerCase();
+        // Search by translated name, from the names already translated for the language
+        search = ItemSearchIndex.normalize(search);
         String finalSearch = search;
-        for (Map.Entry<String, Item> entry : Lumenia.ITEMS.entrySet()) {
-            String translationKey = entry.getValue().getTranslationKey();
-            String translatedName = I18nModule.get().getMessage(language, translationKey);
-            if (translatedName != null && translatedName.toLowerCase().contains(search)) {
-                return entry.getKey();
+        ItemSearchIndex searchIndex = Lumenia.INDEX.getSearchIndex();
+        ItemSearchIndex.LocaleNames names = searchIndex.getLocaleNames(language);
+        for (int ordinal : searchIndex.all()) {
+            String translatedName = names.getNormalizedName(ordinal);
+            if (translatedName != null && translatedName.contains(search)) {
+                return searchIndex.getId(ordinal);
             }
-            if (Arrays.stream(entry.getValue().getResourceTypes())
+            Item item = searchIndex.getItem(ordinal);
+            ItemResourceType[] resourceTypes = item != null ? item.getResourceTypes() : null;
+            if (resourceTypes != null && Arrays.stream(resourceTypes)
                     .filter(Objects::nonNull)
-                    .anyMatch(s -> s.id != null && s.id.toLowerCase().contains(finalSearch))) {
-                return entry.getKey();
+                    .anyMatch(s -> s.id != null && ItemSearchIndex.normalize(s.id).contains(finalSearch))) {
+                return searchIndex.getId(ordinal);
             }
         }
         // Search by partial ID match
-        for (String itemId : Lumenia.ITEMS.keySet()) {
-            if (itemId.toLowerCase().contains(search)) {
+        for (String itemId : items.keySet()) {
+            if (ItemSearchIndex.normalize(itemId).contains(search)) {
                 return itemId;
             }
         }
@@ -0,0 +1,162 @@
+package com.lumengrid.lumenia.gui;
+
+import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
+import com.hypixel.hytale.server.core.Message;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.ui.builder.EventData;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+import com.lumengrid.lumenia.search.ItemSearchIndex;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Renders one page of the item grid as a delta against what the client already shows.
+ * Cells are appended once and then reused: a cell whose item changed gets its fields set again, cells past the end
+ * of the page are hidden, and cells showing the same item are left alone.
+ * Event bindings can only be added, never replaced, so a cell keeps the bindings of the item it was first bound to;
+ * a row with a cell bound to another item is cleared and its cells appended again.
+ */
+final class ItemGridRenderer {
+    private static final String EMPTY = ""; // Shown by a cell appended again, until it is filled
+
+    private final String selector;
+    private final int columns;
+    private final String[] shownItemIds; // Item ID per appended cell, null while hidden
+    private final String[] boundItemIds; // Item ID the bindings of each appended cell carry, null before it is bound
+    private int cells; // Cells appended to the client's grid, in rows of columns
+    @Nullable
+    private ItemSearchIndex shownIndex; // Index the shown cells were rendered from
+
+    ItemGridRenderer(@Nonnull String selector, int columns, int capacity) {
+        this.selector = selector;
+        this.columns = columns;
+        this.shownItemIds = new String[capacity];
+        this.boundItemIds = new String[capacity];
+    }
+
+    /**
+     * Forgets the client's grid, e.g. when the page is built again from its UI file; the next render starts over
+     */
+    void reset() {
+        Arrays.fill(this.shownItemIds, null);
+        Arrays.fill(this.boundItemIds, null);
+        this.cells = 0;
+        this.shownIndex = null;
+    }
+
+    /**
+     * @param ordinals the items of the page, in display order; at most the capacity
+     */
+    void render(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder,
+                @Nonnull ItemSearchIndex index, @Nonnull int[] ordinals) {
+        int count = Math.min(ordinals.length, this.shownItemIds.length);
+        if (this.cells == 0) {
+            // Nothing to reuse; also drops anything a previous full render left behind
+            commandBuilder.clear(this.selector);
+        }
+        // An item of the same ID can have changed in a newer index, so every cell is set again
+        boolean sameIndex = index == this.shownIndex;
+        this.shownIndex = index;
+
+        for (int i = 0; i < count; i++) {
+            String itemId = index.getId(ordinals[i]);
+            String cell = this.cell(i);
+            if (i % this.columns == 0 && i < this.cells && this.isRowBoundElsewhere(index, ordinals, i, count)) {
+                this.appendRowAgain(commandBuilder, i, count);
+            }
+            if (i >= this.cells) {
+                if (i % this.columns == 0) {
+                    commandBuilder.appendInline(this.selector, "Group { LayoutMode: Left; Anchor: (Bottom: 0); }");
+                }
+                this.appendCell(commandBuilder, i);
+                this.cells++;
+            } else if (this.shownItemIds[i] == null) {
+                if (i % this.columns == 0) {
+                    commandBuilder.set(this.row(i) + ".Visible", true);
+                }
+                commandBuilder.set(cell + ".Visible", true);
+            } else if (sameIndex && itemId.equals(this.shownItemIds[i])) {
+                continue;
+            }
+
+            commandBuilder.set(cell + " #ItemIcon.ItemId", itemId);
+            Item item = index.getItem(ordinals[i]);
+            commandBuilder.set(cell + " #ItemName.TextSpans", item != null ? Message.translation(item.getTranslationKey()) : Message.raw(itemId));
+            commandBuilder.set(cell + " #ItemId.Text", itemId);
+            if (this.boundItemIds[i] == null) {
+                eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, cell + " #ItemId",
+                        EventData.of(JEIGui.GuiData.KEY_COPY_ITEM_ID, itemId), false);
+                eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, cell,
+                        EventData.of(JEIGui.GuiData.KEY_SELECTED_ITEM, itemId), false);
+                this.boundItemIds[i] = itemId;
+            }
+            this.shownItemIds[i] = itemId;
+        }
+
+        // Hide the cells past the end of the page, and rows left without any shown cell
+        for (int i = count; i < this.cells; i++) {
+            if (this.shownItemIds[i] == null) {
+                continue;
+            }
+            if (i % this.columns == 0) {
+                commandBuilder.set(this.row(i) + ".Visible", false);
+            }
+            commandBuilder.set(this.cell(i) + ".Visible", false);
+            this.shownItemIds[i] = null;
+        }
+    }
+
+    /**
+     * Whether an appended cell of the row starting at a cell is bound to another item than it is about to show
+     */
+    private boolean isRowBoundElsewhere(ItemSearchIndex index, int[] ordinals, int start, int count) {
+        int end = Math.min(Math.min(start + this.columns, count), this.cells);
+        for (int i = start; i < end; i++) {
+            String bound = this.boundItemIds[i];
+            if (bound != null && !bound.equals(index.getId(ordinals[i]))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the appended cells of a row by unbound ones; those on the page are filled by the caller
+     */
+    private void appendRowAgain(UICommandBuilder commandBuilder, int start, int count) {
+        commandBuilder.clear(this.row(start));
+        if (this.shownItemIds[start] == null) {
+            commandBuilder.set(this.row(start) + ".Visible", true);
+        }
+        int end = Math.min(start + this.columns, this.cells);
+        for (int i = start; i < end; i++) {
+            this.appendCell(commandBuilder, i);
+            this.boundItemIds[i] = null;
+            if (i < count) {
+                this.shownItemIds[i] = EMPTY;
+            } else {
+                commandBuilder.set(this.cell(i) + ".Visible", false);
+                this.shownItemIds[i] = null;
+            }
+        }
+    }
+
+    private void appendCell(UICommandBuilder commandBuilder, int i) {
+        String cell = this.cell(i);
+        commandBuilder.append(this.row(i), "Pages/Lumengrid_Lumenia_ItemIcon.ui");
+        commandBuilder.set(cell + " #ItemIcon.Visible", true);
+        commandBuilder.set(cell + " #ResourceIcon.AssetPath", "");
+        commandBuilder.set(cell + " #ResourceIcon.Visible", false);
+    }
+
+    private String row(int cell) {
+        return this.selector + "[" + (cell / this.columns) + "]";
+    }
+
+    private String cell(int cell) {
+        return this.row(cell) + "[" + (cell % this.columns) + "]";
+    }
+}
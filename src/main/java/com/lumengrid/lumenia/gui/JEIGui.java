@@ -5,53 +5,58 @@ import com.hypixel.hytale.codec.KeyedCodec;
 import com.hypixel.hytale.codec.builder.BuilderCodec;
 import com.hypixel.hytale.component.Ref;
 import com.hypixel.hytale.component.Store;
-import com.hypixel.hytale.assetstore.AssetPack;
-import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
-import com.hypixel.hytale.common.plugin.PluginManifest;
 import com.hypixel.hytale.component.ComponentAccessor;
-import com.hypixel.hytale.protocol.BenchRequirement;
 import com.hypixel.hytale.protocol.GameMode;
 import com.hypixel.hytale.protocol.ItemResourceType;
 import com.hypixel.hytale.protocol.packets.interface_.CustomPageLifetime;
 import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
-import com.hypixel.hytale.server.core.asset.AssetModule;
-import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
 import com.hypixel.hytale.server.core.asset.type.item.config.ItemQuality;
 import com.hypixel.hytale.server.core.asset.type.item.config.ResourceType;
 import com.hypixel.hytale.server.core.asset.util.ColorParseUtil;
-import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
 import com.hypixel.hytale.server.core.Message;
 import com.hypixel.hytale.server.core.asset.type.item.config.Item;
-import com.hypixel.hytale.server.core.command.system.MatchResult;
 import com.hypixel.hytale.server.core.entity.entities.Player;
 import com.hypixel.hytale.server.core.entity.entities.player.pages.InteractiveCustomUIPage;
 import com.hypixel.hytale.server.core.inventory.ItemStack;
 import com.hypixel.hytale.server.core.inventory.container.ItemContainer;
-import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
 import com.hypixel.hytale.server.core.ui.DropdownEntryInfo;
 import com.hypixel.hytale.server.core.ui.LocalizableString;
 import com.hypixel.hytale.server.core.ui.builder.EventData;
 import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
 import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
 import com.hypixel.hytale.server.core.universe.PlayerRef;
+import com.hypixel.hytale.server.core.universe.world.World;
 import com.hypixel.hytale.server.core.universe.world.storage.EntityStore;
 import com.lumengrid.lumenia.Lumenia;
 import com.lumengrid.lumenia.LumeniaComponent;
+import com.lumengrid.lumenia.LumeniaIndex;
 import com.lumengrid.lumenia.MobDropInfo;
-import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import com.lumengrid.lumenia.index.ItemRecipeLists;
+import com.lumengrid.lumenia.index.ModOrigins;
+import com.lumengrid.lumenia.index.RecipeView;
+import com.lumengrid.lumenia.search.ItemSearchIndex;
+import com.lumengrid.lumenia.search.QueryPlan;
+import com.lumengrid.lumenia.search.SearchResultCache;
+import com.lumengrid.lumenia.search.SearchResults;
+import com.lumengrid.lumenia.util.Accessors;
 
 import javax.annotation.Nonnull;
-import java.lang.reflect.Method;
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JEI-like GUI for browsing items and viewing recipes
  */
 public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
 
+    private final LumeniaIndex index = Lumenia.INDEX; // Pinned for the lifetime of the page
     private String searchQuery = "";
-    private final Map<String, Item> visibleItems = new HashMap<>();
+    private QueryPlan searchPlan = QueryPlan.EMPTY;
+    private SearchResults visibleResults = null;
+    private final ItemGridRenderer itemGrid = new ItemGridRenderer("#ItemGrid", 5, ITEMS_PER_PAGE);
     private String selectedItem = null;
     private int currentPage = 0;
     private static final int ITEMS_PER_PAGE = 20; // 5 columns * 4 rows
@@ -59,20 +64,34 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
     private int craftPage = 0;
     private int usagePage = 0;
     private int dropsPage = 0;
+    private CompletableFuture<Void> pendingMobLoot = null; // Mob loot discovery this page draws its drops again after
     private static final int CRAFT_RECIPES_PER_PAGE = 1;
     private static final int USAGE_RECIPES_PER_PAGE = 1;
     private static final int DROPS_PER_PAGE = 3;
     private String selectedModFilter = ""; // Empty string means "All Mods"
 
+    // Grid state changes vs. the last rendered state, used to coalesce rapid search/filter events
+    private long gridVersion = 0;
+    private long renderedGridVersion = 0;
+
+    // Matches of the last search, reused while the player keeps typing
+    private ItemSearchIndex lastSearchIndex = null;
+    private String lastSearchLanguage = null;
+    private String lastSearchModFilter = null;
+    private QueryPlan lastSearchPlan = null;
+    private int[] lastSearchMatches = null;
+
 
     public JEIGui(@Nonnull PlayerRef playerRef, @Nonnull CustomPageLifetime lifetime, String defaultSearchQuery) {
         super(playerRef, lifetime, GuiData.CODEC);
         this.searchQuery = defaultSearchQuery != null ? defaultSearchQuery : "";
+        this.searchPlan = QueryPlan.compile(this.searchQuery);
     }
 
     public JEIGui(@Nonnull PlayerRef playerRef, @Nonnull CustomPageLifetime lifetime, String defaultSearchQuery, String selectedItemId) {
         super(playerRef, lifetime, GuiData.CODEC);
         this.searchQuery = defaultSearchQuery != null ? defaultSearchQuery : "";
+        this.searchPlan = QueryPlan.compile(this.searchQuery);
     }
 
     public JEIGui(@Nonnull PlayerRef playerRef, @Nonnull CustomPageLifetime lifetime) {
@@ -83,6 +102,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
     public void build(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder uiCommandBuilder,
                       @Nonnull UIEventBuilder uiEventBuilder, @Nonnull Store<EntityStore> store) {
         uiCommandBuilder.append("Pages/Lumengrid_Lumenia_Gui.ui");
+        this.itemGrid.reset(); // The grid comes empty from the UI file
 
         // Append the item info panel
         uiCommandBuilder.append("#RecipeSection", "Pages/Lumengrid_Lumenia_ItemInfo.ui");
@@ -141,20 +161,15 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
 
         if (data.searchQuery != null) {
             this.searchQuery = data.searchQuery.trim().toLowerCase();
+            this.searchPlan = QueryPlan.compile(this.searchQuery);
             this.currentPage = 0; // Reset to first page when searching
-            UICommandBuilder commandBuilder = new UICommandBuilder();
-            UIEventBuilder eventBuilder = new UIEventBuilder();
-            this.buildItemGrid(ref, commandBuilder, eventBuilder, store);
-            this.sendUpdate(commandBuilder, eventBuilder, false);
+            this.requestGridUpdate(ref, store);
         }
 
         if (data.modFilter != null) {
             this.selectedModFilter = data.modFilter;
             this.currentPage = 0; // Reset to first page when filtering
-            UICommandBuilder commandBuilder = new UICommandBuilder();
-            UIEventBuilder eventBuilder = new UIEventBuilder();
-            this.buildItemGrid(ref, commandBuilder, eventBuilder, store);
-            this.sendUpdate(commandBuilder, eventBuilder, false);
+            this.requestGridUpdate(ref, store);
         }
 
 
@@ -183,7 +198,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             UICommandBuilder commandBuilder = new UICommandBuilder();
             UIEventBuilder eventBuilder = new UIEventBuilder();
 
-            Item item = Lumenia.ITEMS.get(this.selectedItem);
+            Item item = this.index.getItem(this.selectedItem);
 
             // Re-register event bindings for section buttons
             eventBuilder.addEventBinding(CustomUIEventBindingType.Activating, "#RecipePanel #SectionButtons #InfoButton",
@@ -205,25 +220,21 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
                 commandBuilder.set("#RecipePanel #UsageSection.Visible", false);
                 commandBuilder.set("#RecipePanel #InfoSection.Visible", false);
                 commandBuilder.set("#RecipePanel #CraftSection.Visible", true);
-                List<String> recipeIds = Lumenia.ITEM_TO_RECIPES.getOrDefault(this.selectedItem, Collections.emptyList());
-                this.buildCraftSection(ref, commandBuilder, eventBuilder, store, recipeIds);
+                this.buildCraftSection(ref, commandBuilder, eventBuilder, store);
             } else if ("usage".equals(this.activeSection)) {
                 commandBuilder.set("#RecipePanel #CraftSection.Visible", false);
                 commandBuilder.set("#RecipePanel #InfoSection.Visible", false);
                 commandBuilder.set("#RecipePanel #UsageSection.Visible", true);
-                List<String> usageRecipeIds = this.getUsageRecipeIdsWithResources(this.selectedItem);
-                int validUsageCount = usageRecipeIds.size();
-                this.buildUsageSection(ref, commandBuilder, eventBuilder, store, usageRecipeIds, validUsageCount);
+                this.buildUsageSection(ref, commandBuilder, eventBuilder, store);
             }
 
             this.sendUpdate(commandBuilder, eventBuilder, false);
         }
 
         if (data.craftPageChange != null && this.selectedItem != null && !this.selectedItem.isEmpty()) {
-            List<String> recipeIds = Lumenia.ITEM_TO_RECIPES.getOrDefault(this.selectedItem, Collections.emptyList());
-            List<String> validRecipeIds = this.getValidCraftRecipes(recipeIds);
+            int craftRecipeCount = this.index.getRecipeLists().getCraftRecipes(this.selectedItem).length;
 
-            int totalCraftPages = (int) Math.ceil((double) validRecipeIds.size() / CRAFT_RECIPES_PER_PAGE);
+            int totalCraftPages = (int) Math.ceil((double) craftRecipeCount / CRAFT_RECIPES_PER_PAGE);
             if ("prev".equals(data.craftPageChange) && this.craftPage > 0) {
                 this.craftPage--;
             } else if ("next".equals(data.craftPageChange) && this.craftPage < totalCraftPages - 1) {
@@ -232,14 +243,14 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
 
             UICommandBuilder commandBuilder = new UICommandBuilder();
             UIEventBuilder eventBuilder = new UIEventBuilder();
-            this.buildCraftSection(ref, commandBuilder, eventBuilder, store, recipeIds);
+            this.buildCraftSection(ref, commandBuilder, eventBuilder, store);
             this.sendUpdate(commandBuilder, eventBuilder, false);
         }
 
         if (data.usagePageChange != null && this.selectedItem != null && !this.selectedItem.isEmpty()) {
-            List<String> usageRecipeIds = this.getUsageRecipeIdsWithResources(this.selectedItem);
+            int usageRecipeCount = this.index.getRecipeLists().getUsageRecipes(this.selectedItem).length;
 
-            int totalUsagePages = (int) Math.ceil((double) usageRecipeIds.size() / USAGE_RECIPES_PER_PAGE);
+            int totalUsagePages = (int) Math.ceil((double) usageRecipeCount / USAGE_RECIPES_PER_PAGE);
             if ("prev".equals(data.usagePageChange) && this.usagePage > 0) {
                 this.usagePage--;
             } else if ("next".equals(data.usagePageChange) && this.usagePage < totalUsagePages - 1) {
@@ -248,16 +259,14 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
 
             UICommandBuilder commandBuilder = new UICommandBuilder();
             UIEventBuilder eventBuilder = new UIEventBuilder();
-            int validUsageCount = usageRecipeIds.size();
-            this.buildUsageSection(ref, commandBuilder, eventBuilder, store, usageRecipeIds, validUsageCount);
+            this.buildUsageSection(ref, commandBuilder, eventBuilder, store);
             this.sendUpdate(commandBuilder, eventBuilder, false);
         }
 
         if (data.dropsPageChange != null && this.selectedItem != null && !this.selectedItem.isEmpty()) {
-            Map<String, MobDropInfo> itemDrops = Lumenia.MOB_LOOT.get(this.selectedItem);
-            if (itemDrops != null && !itemDrops.isEmpty()) {
-                List<Map.Entry<String, MobDropInfo>> dropsList = new ArrayList<>(itemDrops.entrySet());
-                int totalDropsPages = (int) Math.ceil((double) dropsList.size() / DROPS_PER_PAGE);
+            int dropCount = Lumenia.INDEX.getSortedMobDrops(this.selectedItem, this.playerRef.getLanguage()).size();
+            if (dropCount > 0) {
+                int totalDropsPages = (int) Math.ceil((double) dropCount / DROPS_PER_PAGE);
                 if ("prev".equals(data.dropsPageChange) && this.dropsPage > 0) {
                     this.dropsPage--;
                 } else if ("next".equals(data.dropsPageChange) && this.dropsPage < totalDropsPages - 1) {
@@ -304,15 +313,12 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             if ("prev".equals(data.pageChange) && this.currentPage > 0) {
                 this.currentPage--;
             } else if ("next".equals(data.pageChange)) {
-                int totalPages = (int) Math.ceil((double) this.visibleItems.size() / ITEMS_PER_PAGE);
+                int totalPages = this.visibleResults != null ? this.visibleResults.pageCount(ITEMS_PER_PAGE) : 0;
                 if (this.currentPage < totalPages - 1) {
                     this.currentPage++;
                 }
             }
-            UICommandBuilder commandBuilder = new UICommandBuilder();
-            UIEventBuilder eventBuilder = new UIEventBuilder();
-            this.buildItemGrid(ref, commandBuilder, eventBuilder, store);
-            this.sendUpdate(commandBuilder, eventBuilder, false);
+            this.sendGridUpdate(ref, store);
         }
 
         if (data.copyItemId != null && !data.copyItemId.isEmpty()) {
@@ -372,6 +378,39 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
 
     }
 
+    /**
+     * Debounces search and filter changes: every change schedules a grid update on the world thread after the
+     * debounce delay, and only the one scheduled by the latest change renders, once no change followed it in time
+     */
+    private void requestGridUpdate(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        long version = ++this.gridVersion;
+        int debounceMillis = Lumenia.getInstance().config.get().searchDebounceMillis;
+        if (debounceMillis <= 0) {
+            this.sendGridUpdate(ref, store);
+            return;
+        }
+
+        World world = store.getExternalData().getWorld();
+        CompletableFuture.delayedExecutor(debounceMillis, TimeUnit.MILLISECONDS, world).execute(() -> {
+            // A later change is pending, or another update (e.g. a page change) already rendered the latest state
+            if (version != this.gridVersion || this.renderedGridVersion == version || !ref.isValid()) {
+                return;
+            }
+            Player player = store.getComponent(ref, Player.getComponentType());
+            if (player == null || player.getPageManager().getCustomPage() != this) {
+                return;
+            }
+            this.sendGridUpdate(ref, store);
+        });
+    }
+
+    private void sendGridUpdate(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        UICommandBuilder commandBuilder = new UICommandBuilder();
+        UIEventBuilder eventBuilder = new UIEventBuilder();
+        this.buildItemGrid(ref, commandBuilder, eventBuilder, store);
+        this.sendUpdate(commandBuilder, eventBuilder, false);
+    }
+
     private void buildKeybindDropdown(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
                                      @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store,
                                      String currentKeybind) {
@@ -401,30 +440,9 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
 
     private void buildModFilterDropdown(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
                                        @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
-        List<DropdownEntryInfo> modEntries = new ArrayList<>();
-        
-        // Add "All Mods" option
-        modEntries.add(new DropdownEntryInfo(LocalizableString.fromString("All Mods"), ""));
-        
-        // Get all unique mods/namespaces from items
-        Set<String> modNames = new HashSet<>();
-        DefaultAssetMap<String, Item> assetMap = Item.getAssetMap();
-        
-        for (String itemId : Lumenia.ITEMS.keySet()) {
-            String modName = this.getModNameForItem(itemId, assetMap);
-            if (modName != null && !modName.isEmpty()) {
-                modNames.add(modName);
-            }
-        }
-        
-        // Sort mod names and add to dropdown
-        List<String> sortedModNames = new ArrayList<>(modNames);
-        sortedModNames.sort(String.CASE_INSENSITIVE_ORDER);
-        
-        for (String modName : sortedModNames) {
-            modEntries.add(new DropdownEntryInfo(LocalizableString.fromString(modName), modName));
-        }
-        
+        // "All Mods" followed by every mod, built once per item load and shared by all GUIs
+        List<DropdownEntryInfo> modEntries = this.index.getModOrigins().getDropdownEntries();
+
         commandBuilder.set("#Title #HeaderControls #ModFilterDropdown.Entries", modEntries);
         if (this.selectedModFilter != null) {
             commandBuilder.set("#Title #HeaderControls #ModFilterDropdown.Value", this.selectedModFilter);
@@ -436,172 +454,65 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
                 EventData.of(GuiData.KEY_MOD_FILTER, "#Title #HeaderControls #ModFilterDropdown.Value"), false);
     }
 
-    private String getModNameForItem(String itemId, DefaultAssetMap<String, Item> assetMap) {
-        try {
-            if (assetMap == null) {
-                // Fallback: check namespace in itemId
-                int colonIndex = itemId.indexOf(':');
-                if (colonIndex > 0) {
-                    String namespace = itemId.substring(0, colonIndex);
-                    if (namespace.equalsIgnoreCase("core") || namespace.equalsIgnoreCase("hytale")) {
-                        return "Vanilla";
-                    }
-                    return namespace;
-                }
-                return "Vanilla";
-            }
-
-            // Get the pack name that contains this item
-            String packName = assetMap.getAssetPack(itemId);
-            if (packName == null || packName.isEmpty()) {
-                // Fallback: check namespace in itemId
-                int colonIndex = itemId.indexOf(':');
-                if (colonIndex > 0) {
-                    String namespace = itemId.substring(0, colonIndex);
-                    if (namespace.equalsIgnoreCase("core") || namespace.equalsIgnoreCase("hytale")) {
-                        return "Vanilla";
-                    }
-                    return namespace;
-                }
-                return "Vanilla";
-            }
-
-            // Get the AssetPack object
-            AssetPack pack = AssetModule.get().getAssetPack(packName);
-            if (pack == null) {
-                // Fallback to pack name
-                return packName;
-            }
-
-            // Check if it's the base pack (vanilla)
-            AssetPack basePack = AssetModule.get().getBaseAssetPack();
-            if (pack.equals(basePack)) {
-                return "Vanilla";
-            }
-
-            // Get the mod name from manifest
-            try {
-                PluginManifest manifest = pack.getManifest();
-                if (manifest != null) {
-                    String modName = manifest.getName();
-                    if (modName != null && !modName.isEmpty()) {
-                        return modName;
-                    }
-                }
-            } catch (Exception e) {
-                // Ignore manifest errors
-            }
-
-            // Fallback to pack name
-            return packName;
-        } catch (Exception e) {
-            return "Vanilla";
-        }
-    }
-
     private void buildItemGrid(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
                                @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
-        // Clear the grid first to remove old items
-        commandBuilder.clear("#ItemGrid");
+        this.renderedGridVersion = this.gridVersion;
 
-        Map<String, Item> itemList = new HashMap<>(Lumenia.ITEMS);
+        // The grid keeps showing the pinned snapshot while a newer index is being built
+        commandBuilder.set("#Title #HeaderControls #IndexingStatus.Visible", Lumenia.isIndexing());
+
+        ItemSearchIndex searchIndex = this.index.getSearchIndex();
         ComponentAccessor<EntityStore> componentAccessor = store;
         Player playerComponent = componentAccessor.getComponent(ref, Player.getComponentType());
 
         assert playerComponent != null;
 
-        // Filter items by mod/namespace if a filter is selected
-        if (this.selectedModFilter != null && !this.selectedModFilter.isEmpty()) {
-            DefaultAssetMap<String, Item> assetMap = Item.getAssetMap();
-            Map<String, Item> filteredByMod = new HashMap<>();
-            for (Map.Entry<String, Item> entry : itemList.entrySet()) {
-                String modName = this.getModNameForItem(entry.getKey(), assetMap);
-                if (modName != null && modName.equals(this.selectedModFilter)) {
-                    filteredByMod.put(entry.getKey(), entry.getValue());
+        // Results are shared between players through the search cache; skip it for the unfiltered catalog
+        boolean filterByMod = this.selectedModFilter != null && !this.selectedModFilter.isEmpty();
+        boolean cacheable = !this.searchPlan.isEmpty() || filterByMod;
+        SearchResultCache.Key cacheKey = cacheable
+                ? new SearchResultCache.Key(searchIndex, this.playerRef.getLanguage(), this.selectedModFilter, this.searchPlan)
+                : null;
+        SearchResults results = cacheable ? Lumenia.SEARCH_CACHE.get(cacheKey) : null;
+
+        if (results == null) {
+            // The mod filter is a facet bitset the search only has to intersect with
+            BitSet modFilter = null;
+            if (filterByMod) {
+                modFilter = searchIndex.getFacets().getMod(this.selectedModFilter);
+                if (modFilter == null) {
+                    modFilter = new BitSet();
                 }
             }
-            itemList = filteredByMod;
-        }
-
-        // Filter items based on search query
-        if (!this.searchQuery.isEmpty()) {
-            this.visibleItems.clear();
-            ObjectArrayList<SearchResult> results = new ObjectArrayList<>();
-
-            for (Map.Entry<String, Item> entry : itemList.entrySet()) {
-                if (entry.getValue() != null) {
-                    results.add(new SearchResult(entry.getKey(), MatchResult.EXACT));
-                }
-            }
-
-            String[] terms = this.searchQuery.split(" ");
 
-            for (String term : terms) {
-                term = term.toLowerCase(Locale.ENGLISH);
-
-                for (int cmdIndex = results.size() - 1; cmdIndex >= 0; --cmdIndex) {
-                    SearchResult result = results.get(cmdIndex);
-                    Item item = itemList.get(result.name);
-                    MatchResult match = MatchResult.NONE;
-                    if (item != null) {
-                        // Search in item name (translation)
-                        var message = I18nModule.get().getMessage(this.playerRef.getLanguage(), item.getTranslationKey());
-                        if (message != null && message.toLowerCase(Locale.ENGLISH).contains(term)) {
-                            match = MatchResult.EXACT;
-                        }
-
-                        // Search in item ID if name didn't match
-                        if (match == MatchResult.NONE) {
-                            String itemId = result.name.toLowerCase(Locale.ENGLISH);
-                            if (itemId.toLowerCase().contains(term)) {
-                                match = MatchResult.EXACT;
-                            }
-                        }
-
-                        // Search in item group/type if still no match
-                        if (match == MatchResult.NONE) {
-                            String itemGroup = getItemGroupString(item).toLowerCase(Locale.ENGLISH);
-                            if (itemGroup.toLowerCase().contains(term)) {
-                                match = MatchResult.EXACT;
-                            }
-                        }
-
-                        if (match == MatchResult.NONE && item.getResourceTypes() != null && item.getResourceTypes().length > 0) {
-                            try {
-                                String finalTerm = term;
-                                if (Arrays.stream(item.getResourceTypes())
-                                        .filter(Objects::nonNull)
-                                        .anyMatch(s -> s.id != null && s.id.toLowerCase().contains(finalTerm))) {
-                                    match = MatchResult.EXACT;
-                                }
-                            } catch (Exception _) {
-                            }
-                        }
-                    }
-
-                    if (match == MatchResult.NONE) {
-                        results.remove(cmdIndex);
-                    } else {
-                        result.match = result.match.min(match);
-                    }
+            // Filter items based on the compiled query, using the facet bitsets and trigram index instead of scanning every item
+            String language = this.playerRef.getLanguage();
+            String[] terms = this.searchPlan.getTerms();
+            if (this.searchPlan.isEmpty()) {
+                // Browsing: the catalog or mod is already sorted by name, so pages are plain slices
+                this.lastSearchMatches = null;
+                results = SearchResults.unranked(searchIndex.getSortedOrdinals(language, filterByMod ? this.selectedModFilter : null));
+            } else {
+                int[] visibleOrdinals = searchIndex.sortByName(language, this.findSearchMatches(searchIndex, modFilter));
+
+                // Ranks only matter for text queries; facet filters keep name order, and so do equal ranks
+                if (terms.length == 0) {
+                    results = SearchResults.unranked(visibleOrdinals);
+                } else {
+                    int[] ranks = searchIndex.rank(language, visibleOrdinals, terms);
+                    results = SearchResults.ranked(visibleOrdinals, ranks);
                 }
             }
 
-            results.sort(SearchResult.COMPARATOR);
-            this.visibleItems.clear();
-
-            for (SearchResult result : results) {
-                this.visibleItems.put(result.name, itemList.get(result.name));
+            if (cacheable) {
+                Lumenia.SEARCH_CACHE.put(cacheKey, results);
             }
-        } else {
-            this.visibleItems.clear();
-            this.visibleItems.putAll(itemList);
         }
+        this.visibleResults = results;
 
-
-        // Pagination: Calculate which items to show
-        List<Map.Entry<String, Item>> allItems = new ArrayList<>(this.visibleItems.entrySet());
-        int totalPages = (int) Math.ceil((double) allItems.size() / ITEMS_PER_PAGE);
+        // Pagination: only materialize the rows of the current page
+        int totalItems = results.size();
+        int totalPages = results.pageCount(ITEMS_PER_PAGE);
         if (this.currentPage >= totalPages && totalPages > 0) {
             this.currentPage = totalPages - 1;
         }
@@ -609,47 +520,15 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             this.currentPage = 0;
         }
 
-        int startIndex = this.currentPage * ITEMS_PER_PAGE;
-        int endIndex = Math.min(startIndex + ITEMS_PER_PAGE, allItems.size());
-        List<Map.Entry<String, Item>> pageItems = allItems.subList(startIndex, endIndex);
+        int[] pageOrdinals = results.page(this.currentPage, ITEMS_PER_PAGE);
 
-        // Build item grid (5 items per row)
-        int rowIndex = 0;
-        int cardsInCurrentRow = 0;
-
-        for (Map.Entry<String, Item> entry : pageItems) {
-            if (cardsInCurrentRow == 0) {
-                commandBuilder.appendInline("#ItemGrid", "Group { LayoutMode: Left; Anchor: (Bottom: 0); }");
-            }
-
-            commandBuilder.append("#ItemGrid[" + rowIndex + "]", "Pages/Lumengrid_Lumenia_ItemIcon.ui");
-            commandBuilder.set("#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "] #ItemIcon.ItemId", entry.getKey());
-            commandBuilder.set("#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "] #ItemIcon.Visible", true);
-            commandBuilder.set("#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "] #ResourceIcon.AssetPath", "");
-            commandBuilder.set("#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "] #ResourceIcon.Visible", false);
-            commandBuilder.set("#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "] #ItemName.TextSpans", Message.translation(entry.getValue().getTranslationKey()));
-            commandBuilder.set("#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "] #ItemId.Text", entry.getKey());
-
-            // Add event binding for clicking on item ID
-            eventBuilder.addEventBinding(CustomUIEventBindingType.Activating,
-                    "#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "] #ItemId",
-                    EventData.of(GuiData.KEY_COPY_ITEM_ID, entry.getKey()), false);
-
-            eventBuilder.addEventBinding(CustomUIEventBindingType.Activating,
-                    "#ItemGrid[" + rowIndex + "][" + cardsInCurrentRow + "]",
-                    EventData.of(GuiData.KEY_SELECTED_ITEM, entry.getKey()), false);
-
-            ++cardsInCurrentRow;
-            if (cardsInCurrentRow >= 5) {
-                cardsInCurrentRow = 0;
-                ++rowIndex;
-            }
-        }
+        // Only the cells whose item changed are sent; the rest of the grid stays as the client shows it
+        this.itemGrid.render(commandBuilder, eventBuilder, searchIndex, pageOrdinals);
 
         // Add pagination controls - always show buttons if more than 1 page
         if (totalPages > 1) {
             commandBuilder.set("#PaginationControls #PaginationInfo.Visible", true);
-            commandBuilder.set("#PaginationControls #PaginationInfo.Text", (this.currentPage + 1) + " / " + totalPages + " (" + allItems.size() + " items)");
+            commandBuilder.set("#PaginationControls #PaginationInfo.Text", (this.currentPage + 1) + " / " + totalPages + " (" + totalItems + " items)");
 
             // Always show previous button if more than 1 page
             commandBuilder.set("#PaginationControls #PrevPageButton.Visible", true);
@@ -671,15 +550,26 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         }
     }
 
-    private String getItemGroupString(Item item) {
-        if (item.getTool() != null) return "Tool";
-        if (item.getWeapon() != null) return "Weapon";
-        if (item.getArmor() != null) return "Armor";
-        if (item.getGlider() != null) return "Glider";
-        if (item.getUtility() != null) return "Utility";
-        if (item.getPortalKey() != null) return "PortalKey";
-        if (item.hasBlockType()) return "Block";
-        return "Item";
+    private int[] findSearchMatches(@Nonnull ItemSearchIndex searchIndex, @Nullable BitSet modFilter) {
+        QueryPlan plan = this.searchPlan;
+        String language = this.playerRef.getLanguage();
+        int[] matches;
+        // Only filter the previous matches when the query got narrower, e.g. "iro" -> "iron"
+        if (this.lastSearchMatches != null && this.lastSearchIndex == searchIndex
+                && Objects.equals(this.lastSearchLanguage, language)
+                && Objects.equals(this.lastSearchModFilter, this.selectedModFilter)
+                && plan.refines(this.lastSearchPlan)) {
+            matches = plan.refine(searchIndex, language, this.lastSearchMatches, this.lastSearchPlan);
+        } else {
+            matches = plan.execute(searchIndex, language, modFilter);
+        }
+
+        this.lastSearchIndex = searchIndex;
+        this.lastSearchLanguage = language;
+        this.lastSearchModFilter = this.selectedModFilter;
+        this.lastSearchPlan = plan;
+        this.lastSearchMatches = matches;
+        return matches;
     }
 
     private void buildItemInfoPanel(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
@@ -698,7 +588,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             return;
         }
 
-        Item item = Lumenia.ITEMS.get(this.selectedItem);
+        Item item = this.index.getItem(this.selectedItem);
         if (item == null) {
             commandBuilder.set("#RecipePanel #ItemInfo.Visible", false);
             commandBuilder.set("#RecipePanel #SectionButtons.Visible", false);
@@ -771,6 +661,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         }
 
         this.buildInfoSection(ref, commandBuilder, eventBuilder, store, item);
+        this.requestMobLoot(ref, store);
     }
 
     private void buildInfoSection(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
@@ -794,8 +685,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         commandBuilder.set("#RecipePanel #InfoSection #ItemPropertiesInfo #MaxStackRow #MaxStackLabel.Text", maxStackText);
 
         try {
-            java.lang.reflect.Method getQualityIndexMethod = Item.class.getMethod("getQualityIndex");
-            Object qualityObj = getQualityIndexMethod.invoke(item);
+            Object qualityObj = Accessors.find(Item.class, "getQualityIndex").get(item);
             if (qualityObj != null) {
                 ItemQuality itemQuality = ItemQuality.getAssetMap().getAsset((Integer) qualityObj);
                 if (itemQuality != null) {
@@ -807,7 +697,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
                                 Message.raw("Quality: ").insert(Message.translation(itemQuality.getLocalizationKey()).color(color)));
                     } catch (Exception e) {
                         Lumenia.LOGGER.atSevere().log("Lumenia: buildInfoSection: " + e.getMessage(), e);
-                        String qual = I18nModule.get().getMessage(this.playerRef.getLanguage(), itemQuality.getLocalizationKey());
+                        String qual = this.getLocaleNames().translate(itemQuality.getLocalizationKey());
                         if (qual == null || qual.isEmpty()) {
                             qual = itemQuality.getLocalizationKey();
                         }
@@ -833,8 +723,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         }
 
         try {
-            java.lang.reflect.Method isConsumableMethod = Item.class.getMethod("isConsumable");
-            Object consumableObj = isConsumableMethod.invoke(item);
+            Object consumableObj = Accessors.find(Item.class, "isConsumable").get(item);
             if (consumableObj != null) {
                 commandBuilder.appendInline("#RecipePanel #InfoSection #ItemPropertiesInfo #ItemPropertiesList", "Label { Style: (FontSize: 14, TextColor: #aaaaaa, Wrap: true); }");
                 commandBuilder.set("#RecipePanel #InfoSection #ItemPropertiesInfo #ItemPropertiesList[" + propIndex + "].Text", "Is Consumable: " + this.formatBoolean((Boolean) consumableObj));
@@ -844,8 +733,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         }
 
         try {
-            java.lang.reflect.Method getFuelQualityMethod = Item.class.getMethod("getFuelQuality");
-            Object fuelQualityObj = getFuelQualityMethod.invoke(item);
+            Object fuelQualityObj = Accessors.find(Item.class, "getFuelQuality").get(item);
             if (fuelQualityObj != null) {
                 int fuelQuality = (Integer) fuelQualityObj;
                 if (fuelQuality > 0) {
@@ -901,12 +789,43 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         }
 
         // Build drops section if item has drops
-        Map<String, MobDropInfo> itemDrops = Lumenia.MOB_LOOT.get(this.selectedItem);
-        if (itemDrops != null && !itemDrops.isEmpty()) {
-            this.buildDropsSection(ref, commandBuilder, eventBuilder, store, this.selectedItem);
-        } else {
-            commandBuilder.set("#RecipePanel #InfoSection #DropsSection.Visible", false);
+        this.buildDropsSection(ref, commandBuilder, eventBuilder, store, this.selectedItem);
+    }
+
+    /**
+     * With lazy mob loot, the first droppable item shown starts discovery; the page then draws its drops section again
+     * once discovery is over. Every item waits on the same discovery, so the page registers for it only once.
+     */
+    private void requestMobLoot(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        if (Lumenia.isMobLootReady()) {
+            return;
+        }
+        CompletableFuture<Void> mobLoot = Lumenia.requestMobLoot(this.selectedItem);
+        if (mobLoot.isDone() || mobLoot == this.pendingMobLoot) {
+            return;
+        }
+        this.pendingMobLoot = mobLoot;
+        World world = store.getExternalData().getWorld();
+        mobLoot.thenRunAsync(() -> this.refreshDropsSection(ref, store), world);
+    }
+
+    /**
+     * Draws the drops section again if the page still shows the info of an item that has drops
+     */
+    private void refreshDropsSection(@Nonnull Ref<EntityStore> ref, @Nonnull Store<EntityStore> store) {
+        String itemId = this.selectedItem;
+        if (!ref.isValid() || itemId == null || !"info".equals(this.activeSection)
+                || Lumenia.INDEX.getSortedMobDrops(itemId, this.playerRef.getLanguage()).isEmpty()) {
+            return;
         }
+        Player player = store.getComponent(ref, Player.getComponentType());
+        if (player == null || player.getPageManager().getCustomPage() != this) {
+            return;
+        }
+        UICommandBuilder commandBuilder = new UICommandBuilder();
+        UIEventBuilder eventBuilder = new UIEventBuilder();
+        this.buildDropsSection(ref, commandBuilder, eventBuilder, store, itemId);
+        this.sendUpdate(commandBuilder, eventBuilder, false);
     }
 
     private String formatBoolean(boolean value) {
@@ -916,9 +835,11 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
     private void buildDropsSection(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
                                    @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store,
                                    String itemId) {
-        Map<String, MobDropInfo> itemDrops = Lumenia.MOB_LOOT.get(itemId);
-        
-        if (itemDrops == null || itemDrops.isEmpty()) {
+        // Sorted once per item and language, so page flips only slice it. Mob loot comes from the current index rather
+        // than the pinned one, as lazy discovery may publish it while the page is open
+        List<Map.Entry<String, MobDropInfo>> dropsList = Lumenia.INDEX.getSortedMobDrops(itemId, this.playerRef.getLanguage());
+
+        if (dropsList.isEmpty()) {
             commandBuilder.set("#RecipePanel #InfoSection #DropsSection.Visible", false);
             return;
         }
@@ -926,20 +847,6 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         commandBuilder.set("#RecipePanel #InfoSection #DropsSection.Visible", true);
         commandBuilder.clear("#RecipePanel #InfoSection #DropsSection #DropsList");
 
-        // Convert to list for pagination and sort by translation key
-        List<Map.Entry<String, MobDropInfo>> dropsList = new ArrayList<>(itemDrops.entrySet());
-        dropsList.sort((a, b) -> {
-            try {
-                String nameA = I18nModule.get().getMessage(this.playerRef.getLanguage(), a.getValue().roleTranslationKey);
-                String nameB = I18nModule.get().getMessage(this.playerRef.getLanguage(), b.getValue().roleTranslationKey);
-                if (nameA == null) nameA = a.getValue().roleTranslationKey;
-                if (nameB == null) nameB = b.getValue().roleTranslationKey;
-                return nameA.compareToIgnoreCase(nameB);
-            } catch (Exception e) {
-                return a.getValue().roleTranslationKey.compareToIgnoreCase(b.getValue().roleTranslationKey);
-            }
-        });
-        
         int totalDropsPages = (int) Math.ceil((double) dropsList.size() / DROPS_PER_PAGE);
         if (this.dropsPage >= totalDropsPages && totalDropsPages > 0) {
             this.dropsPage = totalDropsPages - 1;
@@ -1026,14 +933,15 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
     }
 
     private void buildCraftSection(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
-                                   @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store,
-                                   List<String> recipeIds) {
+                                   @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
         commandBuilder.clear("#RecipePanel #CraftSection #CraftList");
         commandBuilder.set("#RecipePanel #CraftSection.Visible", true);
 
-        List<String> validRecipeIds = this.getValidCraftRecipes(recipeIds);
+        // Precomputed when the recipes loaded: deduplicated, in display order
+        ItemRecipeLists recipeLists = this.index.getRecipeLists();
+        RecipeView[] craftRecipes = recipeLists.getCraftRecipes(this.selectedItem);
 
-        if (validRecipeIds.isEmpty()) {
+        if (craftRecipes.length == 0) {
             commandBuilder.set("#RecipePanel #CraftSection #NoRecipes.Visible", true);
             commandBuilder.set("#RecipePanel #CraftSection #NoRecipes.Text", "No recipes available for this item.");
             commandBuilder.set("#RecipePanel #CraftSection #CraftList.Visible", false);
@@ -1042,7 +950,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             commandBuilder.set("#RecipePanel #CraftSection #NoRecipes.Visible", false);
             commandBuilder.set("#RecipePanel #CraftSection #CraftList.Visible", true);
 
-            int totalCraftPages = (int) Math.ceil((double) validRecipeIds.size() / CRAFT_RECIPES_PER_PAGE);
+            int totalCraftPages = (int) Math.ceil((double) craftRecipes.length / CRAFT_RECIPES_PER_PAGE);
             if (this.craftPage >= totalCraftPages && totalCraftPages > 0) {
                 this.craftPage = totalCraftPages - 1;
             }
@@ -1051,18 +959,13 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             }
 
             int startIndex = this.craftPage * CRAFT_RECIPES_PER_PAGE;
-            int endIndex = Math.min(startIndex + CRAFT_RECIPES_PER_PAGE, validRecipeIds.size());
-            List<String> pageRecipeIds = validRecipeIds.subList(startIndex, endIndex);
+            int endIndex = Math.min(startIndex + CRAFT_RECIPES_PER_PAGE, craftRecipes.length);
 
-            this.updatePaginationControls(commandBuilder, eventBuilder, totalCraftPages, validRecipeIds.size(), this.craftPage, "craft");
+            this.updatePaginationControls(commandBuilder, eventBuilder, totalCraftPages, craftRecipes.length, this.craftPage, "craft");
 
             int recipeIndex = 0;
-            for (String recipeId : pageRecipeIds) {
-                CraftingRecipe recipe = Lumenia.RECIPES.get(recipeId);
-                if (recipe == null) {
-                    continue;
-                }
-
+            for (int i = startIndex; i < endIndex; i++) {
+                RecipeView recipe = craftRecipes[i];
                 try {
                     commandBuilder.append("#RecipePanel #CraftSection #CraftList", "Pages/Lumengrid_Lumenia_RecipeDisplay.ui");
                     this.buildRecipeDisplay(commandBuilder, eventBuilder, recipe, "#RecipePanel #CraftSection #CraftList", recipeIndex);
@@ -1074,12 +977,15 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
     }
 
     private void buildUsageSection(@Nonnull Ref<EntityStore> ref, @Nonnull UICommandBuilder commandBuilder,
-                                   @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store,
-                                   List<String> usageRecipeIds, int validUsageCount) {
+                                   @Nonnull UIEventBuilder eventBuilder, @Nonnull Store<EntityStore> store) {
         commandBuilder.clear("#RecipePanel #UsageSection #UsageList");
         commandBuilder.set("#RecipePanel #UsageSection.Visible", true);
 
-        if (usageRecipeIds.isEmpty()) {
+        // Includes recipes using any of the item's resource types, precomputed when the recipes loaded
+        ItemRecipeLists recipeLists = this.index.getRecipeLists();
+        RecipeView[] usageRecipes = recipeLists.getUsageRecipes(this.selectedItem);
+
+        if (usageRecipes.length == 0) {
             commandBuilder.set("#RecipePanel #UsageSection #NoUsageRecipes.Visible", true);
             commandBuilder.set("#RecipePanel #UsageSection #NoUsageRecipes.Text", "This item is not used in any recipes.");
             commandBuilder.set("#RecipePanel #UsageSection #UsageList.Visible", false);
@@ -1088,7 +994,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             commandBuilder.set("#RecipePanel #UsageSection #NoUsageRecipes.Visible", false);
             commandBuilder.set("#RecipePanel #UsageSection #UsageList.Visible", true);
 
-            int totalUsagePages = (int) Math.ceil((double) usageRecipeIds.size() / USAGE_RECIPES_PER_PAGE);
+            int totalUsagePages = (int) Math.ceil((double) usageRecipes.length / USAGE_RECIPES_PER_PAGE);
             if (this.usagePage >= totalUsagePages && totalUsagePages > 0) {
                 this.usagePage = totalUsagePages - 1;
             }
@@ -1097,18 +1003,13 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             }
 
             int startIndex = this.usagePage * USAGE_RECIPES_PER_PAGE;
-            int endIndex = Math.min(startIndex + USAGE_RECIPES_PER_PAGE, usageRecipeIds.size());
-            List<String> pageRecipeIds = usageRecipeIds.subList(startIndex, endIndex);
+            int endIndex = Math.min(startIndex + USAGE_RECIPES_PER_PAGE, usageRecipes.length);
 
-            this.updatePaginationControls(commandBuilder, eventBuilder, totalUsagePages, usageRecipeIds.size(), this.usagePage, "usage");
+            this.updatePaginationControls(commandBuilder, eventBuilder, totalUsagePages, usageRecipes.length, this.usagePage, "usage");
 
             int recipeIndex = 0;
-            for (String recipeId : pageRecipeIds) {
-                CraftingRecipe recipe = Lumenia.RECIPES.get(recipeId);
-                if (recipe == null) {
-                    continue;
-                }
-
+            for (int i = startIndex; i < endIndex; i++) {
+                RecipeView recipe = usageRecipes[i];
                 try {
                     commandBuilder.append("#RecipePanel #UsageSection #UsageList", "Pages/Lumengrid_Lumenia_RecipeDisplay.ui");
                     this.buildRecipeDisplay(commandBuilder, eventBuilder, recipe, "#RecipePanel #UsageSection #UsageList", recipeIndex);
@@ -1119,164 +1020,21 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         }
     }
 
-
-    private List<String> getValidCraftRecipes(List<String> recipeIds) {
-        List<String> validRecipeIds = new ArrayList<>();
-        for (String recipeId : recipeIds) {
-            CraftingRecipe recipe = Lumenia.RECIPES.get(recipeId);
-            if (recipe == null) {
-                continue;
-            }
-
-            boolean itemFoundInOutputs = false;
-            for (MaterialQuantity output : recipe.getOutputs()) {
-                if (output == null) {
-                    continue;
-                }
-                if (output != null && this.selectedItem.equals(output.getItemId())) {
-                    itemFoundInOutputs = true;
-                    break;
-                }
-            }
-            if (itemFoundInOutputs) {
-                validRecipeIds.add(recipeId);
-            }
-        }
-        return validRecipeIds;
-    }
-
-    /**
-     * Gets all usage recipe IDs for an item, including recipes that use items from the same ResourceType
-     * Returns a distinct list of recipe IDs (no duplicates)
-     */
-    private List<String> getUsageRecipeIdsWithResources(String itemId) {
-        if (itemId == null || itemId.isEmpty()) {
-            return Collections.emptyList();
-        }
-
-        // Use a LinkedHashSet to avoid duplicate recipe IDs while preserving insertion order
-        Set<String> allRecipeIds = new LinkedHashSet<>();
-
-        // First, add recipes that directly use this item
-        List<String> directRecipes = Lumenia.ITEM_FROM_RECIPES.getOrDefault(itemId, Collections.emptyList());
-        allRecipeIds.addAll(directRecipes);
-
-        Item item = Lumenia.ITEMS.get(itemId);
-        if (item != null) {
-            try {
-                // Get item categories
-                ItemResourceType[] resources = item.getResourceTypes();
-                if (resources != null) {
-                    for (ItemResourceType resource : resources) {
-                        try {
-                            if (resource.id != null && !resource.id.isEmpty()) {
-                                List<String> recipes = Lumenia.ITEM_FROM_RECIPES.getOrDefault(resource.id, Collections.emptyList());
-                                allRecipeIds.addAll(recipes);
-                            }
-                        } catch (Exception _) {
-                        }
-                    }
-                }
-            } catch (Exception _) {
-            }
-        }
-
-        // Return as distinct list (LinkedHashSet already ensures no duplicates)
-        return new ArrayList<>(allRecipeIds);
-    }
-
-    private List<String> getValidUsageRecipes(List<String> usageRecipeIds) {
-        List<String> validUsageRecipeIds = new ArrayList<>();
-        for (String usageRecipeId : usageRecipeIds) {
-            var usageRecipe = Lumenia.RECIPES.get(usageRecipeId);
-            if (usageRecipe == null) continue;
-
-            Object inputsObj = null;
-            try {
-                Method getInputMethod = CraftingRecipe.class.getMethod("getInput");
-                inputsObj = getInputMethod.invoke(usageRecipe);
-            } catch (NoSuchMethodException e) {
-                String[] methodNames = {"getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials"};
-                for (String methodName : methodNames) {
-                    try {
-                        Method inputMethod = CraftingRecipe.class.getMethod(methodName);
-                        inputsObj = inputMethod.invoke(usageRecipe);
-                        if (inputsObj != null) break;
-                    } catch (Exception _) {
-                    }
-                }
-            } catch (Exception _) {
-            }
-
-            boolean itemFoundInInputs = false;
-            if (inputsObj != null) {
-                if (inputsObj instanceof MaterialQuantity) {
-                    MaterialQuantity input = (MaterialQuantity) inputsObj;
-                    if (input != null && this.selectedItem.equals(input.getItemId())) {
-                        itemFoundInInputs = true;
-                    }
-                } else if (inputsObj instanceof List) {
-                    @SuppressWarnings("unchecked")
-                    List<MaterialQuantity> inputs = (List<MaterialQuantity>) inputsObj;
-                    if (inputs != null && !inputs.isEmpty()) {
-                        for (MaterialQuantity input : inputs) {
-                            if (input != null && this.selectedItem.equals(input.getItemId())) {
-                                itemFoundInInputs = true;
-                                break;
-                            }
-                        }
-                    }
-                } else if (inputsObj instanceof MaterialQuantity[]) {
-                    MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-                    if (inputs != null && inputs.length > 0) {
-                        for (MaterialQuantity input : inputs) {
-                            if (input != null && this.selectedItem.equals(input.getItemId())) {
-                                itemFoundInInputs = true;
-                                break;
-                            }
-                        }
-                    }
-                } else if (inputsObj instanceof Collection) {
-                    @SuppressWarnings("unchecked")
-                    Collection<MaterialQuantity> inputs = (Collection<MaterialQuantity>) inputsObj;
-                    if (inputs != null && !inputs.isEmpty()) {
-                        for (MaterialQuantity input : inputs) {
-                            if (input != null && this.selectedItem.equals(input.getItemId())) {
-                                itemFoundInInputs = true;
-                                break;
-                            }
-                        }
-                    }
-                }
-            }
-
-            if (itemFoundInInputs) {
-                validUsageRecipeIds.add(usageRecipeId);
-            }
-        }
-        return validUsageRecipeIds;
-    }
-
-    private int countValidUsageRecipes(List<String> usageRecipeIds) {
-        return this.getValidUsageRecipes(usageRecipeIds).size();
-    }
-
     private void buildRecipeDisplay(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder,
-                                    @Nonnull CraftingRecipe recipe, @Nonnull String listSelector, int recipeIndex) {
+                                    @Nonnull RecipeView recipe, @Nonnull String listSelector, int recipeIndex) {
         String recipeSelector = listSelector + "[" + recipeIndex + "]";
         String contentSelector = recipeSelector + " #RecipeContentContainer #RecipeContent";
 
         commandBuilder.set(recipeSelector + " #RecipeTitle.Visible", false);
 
-        if (recipe.getBenchRequirement() != null && recipe.getBenchRequirement().length > 0) {
-            BenchRequirement bench = recipe.getBenchRequirement()[0];
-            String benchName = this.formatBench(bench.id);
+        if (!recipe.isHandCrafted()) {
+            String benchName = this.formatBench(recipe.benchId);
             commandBuilder.set(contentSelector + " #BenchInfo.Visible", true);
-            commandBuilder.set(contentSelector + " #BenchInfo #BenchText.Text", benchName + " Tier " + bench.requiredTierLevel);
-            commandBuilder.set(contentSelector + " #BenchInfo #BenchId.Text", bench.id);
+            commandBuilder.set(contentSelector + " #BenchInfo #BenchText.Text", benchName + " Tier " + recipe.benchTier);
+            commandBuilder.set(contentSelector + " #BenchInfo #BenchId.Text", recipe.benchId);
 
-            String benchItemId = this.findBenchItemId(bench.id);
-            if (benchItemId != null && Lumenia.ITEMS.containsKey(benchItemId)) {
+            String benchItemId = this.index.getBenchItems().getItemId(recipe.benchId);
+            if (benchItemId != null && this.index.getItems().containsKey(benchItemId)) {
                 commandBuilder.set(contentSelector + " #BenchInfo #BenchIcon.ItemId", "");
                 commandBuilder.set(contentSelector + " #BenchInfo #BenchIcon.ItemId", benchItemId);
                 commandBuilder.set(contentSelector + " #BenchInfo #BenchIcon.Visible", true);
@@ -1290,83 +1048,12 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             commandBuilder.set(contentSelector + " #BenchInfo #BenchIcon.Visible", false);
         }
 
-        Object inputsObj = null;
-        try {
-            Method getInputMethod = CraftingRecipe.class.getMethod("getInput");
-            inputsObj = getInputMethod.invoke(recipe);
-        } catch (NoSuchMethodException e) {
-            String[] methodNames = {"getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials"};
-            for (String methodName : methodNames) {
-                try {
-                    Method inputMethod = CraftingRecipe.class.getMethod(methodName);
-                    inputsObj = inputMethod.invoke(recipe);
-                    if (inputsObj != null) break;
-                } catch (NoSuchMethodException ignored) {
-                } catch (Exception ignored) {
-                }
-            }
-        } catch (Exception _) {
-        }
-
         int inputIndex = 0;
         String inputGridSelector = contentSelector + " #InputGrid";
 
-        boolean hasInputs = false;
-        if (inputsObj != null) {
-            if (inputsObj instanceof MaterialQuantity) {
-                MaterialQuantity input = (MaterialQuantity) inputsObj;
-                hasInputs = input != null && input.getItemId() != null;
-            } else if (inputsObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<MaterialQuantity> inputs = (List<MaterialQuantity>) inputsObj;
-                hasInputs = inputs != null && !inputs.isEmpty();
-            } else if (inputsObj instanceof MaterialQuantity[]) {
-                MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-                hasInputs = inputs != null && inputs.length > 0;
-            } else if (inputsObj instanceof Collection) {
-                @SuppressWarnings("unchecked")
-                Collection<MaterialQuantity> inputs = (Collection<MaterialQuantity>) inputsObj;
-                hasInputs = inputs != null && !inputs.isEmpty();
-            }
-        }
-        commandBuilder.set(contentSelector + " #InputLabel.Visible", hasInputs);
-
-        if (inputsObj != null) {
-            if (inputsObj instanceof MaterialQuantity) {
-                MaterialQuantity input = (MaterialQuantity) inputsObj;
-                if (input != null) {
-                    this.addIngredientItem(commandBuilder, eventBuilder, inputGridSelector, input, inputIndex++);
-                }
-            } else if (inputsObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<MaterialQuantity> inputs = (List<MaterialQuantity>) inputsObj;
-                if (inputs != null && !inputs.isEmpty()) {
-                    for (MaterialQuantity input : inputs) {
-                        if (input != null) {
-                            this.addIngredientItem(commandBuilder, eventBuilder, inputGridSelector, input, inputIndex++);
-                        }
-                    }
-                }
-            } else if (inputsObj instanceof MaterialQuantity[]) {
-                MaterialQuantity[] inputs = (MaterialQuantity[]) inputsObj;
-                if (inputs != null && inputs.length > 0) {
-                    for (MaterialQuantity input : inputs) {
-                        if (input != null) {
-                            this.addIngredientItem(commandBuilder, eventBuilder, inputGridSelector, input, inputIndex++);
-                        }
-                    }
-                }
-            } else if (inputsObj instanceof Collection) {
-                @SuppressWarnings("unchecked")
-                Collection<MaterialQuantity> inputs = (Collection<MaterialQuantity>) inputsObj;
-                if (inputs != null && !inputs.isEmpty()) {
-                    for (MaterialQuantity input : inputs) {
-                        if (input != null) {
-                            this.addIngredientItem(commandBuilder, eventBuilder, inputGridSelector, input, inputIndex++);
-                        }
-                    }
-                }
-            }
+        commandBuilder.set(contentSelector + " #InputLabel.Visible", recipe.inputs.length > 0);
+        for (RecipeView.Material input : recipe.inputs) {
+            this.addIngredientItem(commandBuilder, eventBuilder, inputGridSelector, input, inputIndex++);
         }
 
         if (inputIndex == 0) {
@@ -1374,43 +1061,12 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             commandBuilder.set(inputGridSelector + "[0].Text", "(Ingredients not available - API may not expose recipe inputs)");
         }
 
-        Object outputsObj = recipe.getOutputs();
         int outputIndex = 0;
         String outputGridSelector = contentSelector + " #OutputGrid";
 
         commandBuilder.set(contentSelector + " #OutputLabel.Visible", true);
-
-        if (outputsObj != null) {
-            if (outputsObj instanceof List) {
-                @SuppressWarnings("unchecked")
-                List<MaterialQuantity> outputs = (List<MaterialQuantity>) outputsObj;
-                if (outputs != null && !outputs.isEmpty()) {
-                    for (MaterialQuantity output : outputs) {
-                        if (output != null && output.getItemId() != null) {
-                            this.addOutputItem(commandBuilder, eventBuilder, outputGridSelector, output, outputIndex++);
-                        }
-                    }
-                }
-            } else if (outputsObj instanceof MaterialQuantity[]) {
-                MaterialQuantity[] outputs = (MaterialQuantity[]) outputsObj;
-                if (outputs != null && outputs.length > 0) {
-                    for (MaterialQuantity output : outputs) {
-                        if (output != null && output.getItemId() != null) {
-                            this.addOutputItem(commandBuilder, eventBuilder, outputGridSelector, output, outputIndex++);
-                        }
-                    }
-                }
-            } else if (outputsObj instanceof Collection) {
-                @SuppressWarnings("unchecked")
-                Collection<MaterialQuantity> outputs = (Collection<MaterialQuantity>) outputsObj;
-                if (outputs != null && !outputs.isEmpty()) {
-                    for (MaterialQuantity output : outputs) {
-                        if (output != null && output.getItemId() != null) {
-                            this.addOutputItem(commandBuilder, eventBuilder, outputGridSelector, output, outputIndex++);
-                        }
-                    }
-                }
-            }
+        for (RecipeView.Material output : recipe.outputs) {
+            this.addOutputItem(commandBuilder, eventBuilder, outputGridSelector, output, outputIndex++);
         }
 
         if (outputIndex == 0) {
@@ -1419,37 +1075,11 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
     }
 
     private void addIngredientItem(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder,
-                                   @Nonnull String inputGridSelector, @Nonnull MaterialQuantity input, int inputIndex) {
+                                   @Nonnull String inputGridSelector, @Nonnull RecipeView.Material input, int inputIndex) {
         commandBuilder.append(inputGridSelector, "Pages/Lumengrid_Lumenia_RecipeInputItem.ui");
 
-        String itemId = input.getItemId();
-        String resourceType = null;
-
-        if (itemId == null || itemId.isEmpty()) {
-            try {
-                java.lang.reflect.Method getResourceTypeMethod = MaterialQuantity.class.getMethod("getResourceType");
-                Object resourceTypeObj = getResourceTypeMethod.invoke(input);
-                if (resourceTypeObj != null) {
-                    resourceType = resourceTypeObj.toString();
-                }
-            } catch (Exception e) {
-                try {
-                    String[] methodNames = {"getResourceTypeId", "getResourceTypeName", "getType"};
-                    for (String methodName : methodNames) {
-                        try {
-                            java.lang.reflect.Method method = MaterialQuantity.class.getMethod(methodName);
-                            Object result = method.invoke(input);
-                            if (result != null) {
-                                resourceType = result.toString();
-                                break;
-                            }
-                        } catch (Exception ignored) {
-                        }
-                    }
-                } catch (Exception ignored) {
-                }
-            }
-        }
+        String itemId = input.itemId;
+        String resourceType = itemId == null ? input.resourceTypeId : null;
 
         if ((itemId == null || itemId.isEmpty()) && (resourceType == null || resourceType.isEmpty())) {
             commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #ItemIcon.ItemId", "");
@@ -1457,7 +1087,7 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
             commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #ResourceIcon.AssetPath", "");
             commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #ResourceIcon.Visible", false);
             commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #ItemName.Text", "Unknown Material");
-            commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #Quantity.Text", "x" + input.getQuantity());
+            commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #Quantity.Text", "x" + input.quantity);
             commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #ItemId.Text", "ID: (unknown)");
             return;
         }
@@ -1487,23 +1117,16 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
 
         String itemName = displayId;
         if (itemId != null && !itemId.isEmpty()) {
-            Item inputItem = Lumenia.ITEMS.get(itemId);
-            if (inputItem != null && inputItem.getTranslationKey() != null) {
-                try {
-                    String translatedName = I18nModule.get().getMessage(this.playerRef.getLanguage(), inputItem.getTranslationKey());
-                    if (translatedName != null && !translatedName.isEmpty()) {
-                        itemName = translatedName;
-                    }
-                } catch (Exception e) {
-                    itemName = displayId;
-                }
+            String translatedName = this.index.getSearchIndex().getDisplayName(this.playerRef.getLanguage(), itemId);
+            if (translatedName != null && !translatedName.isEmpty()) {
+                itemName = translatedName;
             }
         } else if (resourceType != null && !resourceType.isEmpty()) {
             itemName = resourceType;
         }
 
         commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #ItemName.Text", itemName);
-        commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #Quantity.Text", "x" + input.getQuantity());
+        commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #Quantity.Text", "x" + input.quantity);
         commandBuilder.set(inputGridSelector + "[" + inputIndex + "] #ItemId.Text", displayType + " " + displayId);
 
         // Add event binding for clicking on item ID in recipe input
@@ -1521,10 +1144,10 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
     }
 
     private void addOutputItem(@Nonnull UICommandBuilder commandBuilder, @Nonnull UIEventBuilder eventBuilder,
-                               @Nonnull String outputGridSelector, @Nonnull MaterialQuantity output, int outputIndex) {
+                               @Nonnull String outputGridSelector, @Nonnull RecipeView.Material output, int outputIndex) {
         commandBuilder.append(outputGridSelector, "Pages/Lumengrid_Lumenia_RecipeInputItem.ui");
 
-        String itemId = output.getItemId();
+        String itemId = output.itemId;
         if (itemId == null || itemId.isEmpty()) {
             return;
         }
@@ -1533,20 +1156,13 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         commandBuilder.set(outputGridSelector + "[" + outputIndex + "] #ItemIcon.ItemId", itemId);
 
         String itemName = itemId;
-        Item outputItem = Lumenia.ITEMS.get(itemId);
-        if (outputItem != null && outputItem.getTranslationKey() != null) {
-            try {
-                String translatedName = I18nModule.get().getMessage(this.playerRef.getLanguage(), outputItem.getTranslationKey());
-                if (translatedName != null && !translatedName.isEmpty()) {
-                    itemName = translatedName;
-                }
-            } catch (Exception e) {
-                itemName = itemId;
-            }
+        String translatedName = this.index.getSearchIndex().getDisplayName(this.playerRef.getLanguage(), itemId);
+        if (translatedName != null && !translatedName.isEmpty()) {
+            itemName = translatedName;
         }
 
         commandBuilder.set(outputGridSelector + "[" + outputIndex + "] #ItemName.Text", itemName);
-        commandBuilder.set(outputGridSelector + "[" + outputIndex + "] #Quantity.Text", "x" + output.getQuantity());
+        commandBuilder.set(outputGridSelector + "[" + outputIndex + "] #Quantity.Text", "x" + output.quantity);
         commandBuilder.set(outputGridSelector + "[" + outputIndex + "] #ItemId.Text", itemId);
 
         // Add event binding for clicking on item ID in recipe output
@@ -1588,89 +1204,15 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         return name;
     }
 
-    private String findBenchItemId(String benchId) {
-        String[] patterns = {
-                "Item_" + benchId,
-                "Item_" + benchId + "_Bench",
-                benchId + "_Item",
-                benchId
-        };
-
-        for (String pattern : patterns) {
-            if (Lumenia.ITEMS.containsKey(pattern)) {
-                return pattern;
-            }
-        }
-
-        String lowerBenchId = benchId.toLowerCase();
-        for (String itemId : Lumenia.ITEMS.keySet()) {
-            String lowerItemId = itemId.toLowerCase();
-            if (lowerItemId.contains(lowerBenchId) || lowerBenchId.contains(lowerItemId)) {
-                if (lowerItemId.contains("bench") || lowerItemId.contains("workbench") || lowerItemId.contains("crafting")) {
-                    return itemId;
-                }
-            }
-        }
-
-        return null;
+    @Nonnull
+    private ItemSearchIndex.LocaleNames getLocaleNames() {
+        return this.index.getSearchIndex().getLocaleNames(this.playerRef.getLanguage());
     }
 
     @Nonnull
     private String resolveItemOrigin(@Nonnull String itemId) {
-        try {
-            // Get the asset map for items
-            DefaultAssetMap<String, Item> assetMap = Item.getAssetMap();
-            if (assetMap == null) {
-                return "vanilla";
-            }
-
-            // Get the pack name that contains this item
-            String packName = assetMap.getAssetPack(itemId);
-            if (packName == null || packName.isEmpty()) {
-                // Fallback: check namespace in itemId
-                int colonIndex = itemId.indexOf(':');
-                if (colonIndex > 0) {
-                    String namespace = itemId.substring(0, colonIndex);
-                    if (namespace.equalsIgnoreCase("core") || namespace.equalsIgnoreCase("hytale")) {
-                        return "vanilla";
-                    }
-                    return "Mod: " + namespace;
-                }
-                return "vanilla";
-            }
-
-            // Get the AssetPack object
-            AssetPack pack = AssetModule.get().getAssetPack(packName);
-            if (pack == null) {
-                // Fallback to pack name
-                return "Mod: " + packName;
-            }
-
-            // Check if it's the base pack (vanilla)
-            AssetPack basePack = AssetModule.get().getBaseAssetPack();
-            if (pack.equals(basePack)) {
-                return "vanilla";
-            }
-
-            // Get the mod name from manifest
-            try {
-                PluginManifest manifest = pack.getManifest();
-                if (manifest != null) {
-                    String modName = manifest.getName();
-                    if (modName != null && !modName.isEmpty()) {
-                        return "Mod: " + modName;
-                    }
-                }
-            } catch (Exception e) {
-                Lumenia.LOGGER.atSevere().log("Lumenia: resolveItemOrigin ignoreManifestError: " + e.getMessage(), e);
-            }
-
-            // Fallback to pack name
-            return "Mod: " + packName;
-        } catch (Exception e) {
-            Lumenia.LOGGER.atSevere().log("Lumenia: resolveItemOrigin: " + e.getMessage(), e);
-            return "vanilla";
-        }
+        String modName = this.index.getModOrigins().getModName(itemId);
+        return ModOrigins.VANILLA.equals(modName) ? "vanilla" : "Mod: " + modName;
     }
 
     public static class GuiData {
@@ -1727,15 +1269,4 @@ public class JEIGui extends InteractiveCustomUIPage<JEIGui.GuiData> {
         private String keybindSelection;
         private String modFilter;
     }
-
-    private static class SearchResult {
-        public static final Comparator<SearchResult> COMPARATOR = Comparator.comparing((o) -> o.match);
-        private final String name;
-        private MatchResult match;
-
-        public SearchResult(String name, MatchResult match) {
-            this.name = name;
-            this.match = match;
-        }
-    }
 }
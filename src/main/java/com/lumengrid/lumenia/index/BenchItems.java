@@ -0,0 +1,139 @@
+package com.lumengrid.lumenia.index;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Item shown as the icon of each crafting bench, resolved once per bench when items load and kept
+ * up to date as items are added or removed.
+ * An item matches a bench ID by one of the conventional item ID patterns, or else by sharing a substring
+ * with it while looking like a bench.
+ */
+public final class BenchItems {
+    public static final BenchItems EMPTY = build(Collections.emptyMap(), Collections.emptySet());
+
+    private static final String NONE = ""; // Cached miss
+
+    private final Map<String, Item> items;
+    private final List<String[]> candidates; // {item ID, lowercase item ID} of items that look like a bench, in catalog order
+    private final Map<String, String> itemByBench = new ConcurrentHashMap<>();
+
+    private BenchItems(Map<String, Item> items, List<String[]> candidates) {
+        this.items = items;
+        this.candidates = candidates;
+    }
+
+    /**
+     * @param benchIds bench IDs to resolve up front; other IDs are resolved on first use
+     */
+    @Nonnull
+    public static BenchItems build(@Nonnull Map<String, Item> items, @Nonnull Collection<String> benchIds) {
+        // Only items that look like a bench can match the substring rule, whatever the bench ID
+        List<String[]> candidates = new ObjectArrayList<>();
+        for (String itemId : items.keySet()) {
+            String lowerItemId = itemId.toLowerCase();
+            if (looksLikeBench(lowerItemId)) {
+                candidates.add(new String[]{itemId, lowerItemId});
+            }
+        }
+
+        BenchItems benchItems = new BenchItems(items, candidates);
+        for (String benchId : benchIds) {
+            if (benchId != null) {
+                benchItems.getItemId(benchId);
+            }
+        }
+        return benchItems;
+    }
+
+    /**
+     * Same lookup over the new items after some were added or removed; only benches one of those item IDs could match
+     * are resolved again, and updated items never change a match since it only depends on IDs
+     */
+    @Nonnull
+    public BenchItems withItemChanges(@Nonnull Map<String, Item> items, @Nonnull Collection<String> addedItemIds,
+                                      @Nonnull Collection<String> removedItemIds) {
+        Set<String> removed = new HashSet<>(removedItemIds);
+        List<String[]> candidates = new ObjectArrayList<>(this.candidates.size() + addedItemIds.size());
+        for (String[] candidate : this.candidates) {
+            if (!removed.contains(candidate[0])) {
+                candidates.add(candidate);
+            }
+        }
+        for (String itemId : addedItemIds) {
+            String lowerItemId = itemId.toLowerCase();
+            if (looksLikeBench(lowerItemId)) {
+                candidates.add(new String[]{itemId, lowerItemId});
+            }
+        }
+
+        BenchItems benchItems = new BenchItems(items, candidates);
+        for (Map.Entry<String, String> entry : this.itemByBench.entrySet()) {
+            String benchId = entry.getKey();
+            if (!mayMatch(benchId, addedItemIds) && !mayMatch(benchId, removedItemIds)) {
+                benchItems.itemByBench.put(benchId, entry.getValue());
+            } else {
+                benchItems.getItemId(benchId);
+            }
+        }
+        return benchItems;
+    }
+
+    @Nullable
+    public String getItemId(@Nonnull String benchId) {
+        String itemId = this.itemByBench.computeIfAbsent(benchId, this::resolve);
+        return itemId.isEmpty() ? null : itemId;
+    }
+
+    private String resolve(String benchId) {
+        String[] patterns = {
+                "Item_" + benchId,
+                "Item_" + benchId + "_Bench",
+                benchId + "_Item",
+                benchId
+        };
+
+        for (String pattern : patterns) {
+            if (this.items.containsKey(pattern)) {
+                return pattern;
+            }
+        }
+
+        String lowerBenchId = benchId.toLowerCase();
+        for (String[] candidate : this.candidates) {
+            String lowerItemId = candidate[1];
+            if (lowerItemId.contains(lowerBenchId) || lowerBenchId.contains(lowerItemId)) {
+                return candidate[0];
+            }
+        }
+
+        return NONE;
+    }
+
+    private static boolean looksLikeBench(String lowerItemId) {
+        return lowerItemId.contains("bench") || lowerItemId.contains("workbench") || lowerItemId.contains("crafting");
+    }
+
+    /**
+     * Whether any of the item IDs matches the bench by pattern or by substring
+     */
+    private static boolean mayMatch(String benchId, Collection<String> itemIds) {
+        String lowerBenchId = benchId.toLowerCase();
+        for (String itemId : itemIds) {
+            if (itemId.equals("Item_" + benchId) || itemId.equals("Item_" + benchId + "_Bench")
+                    || itemId.equals(benchId + "_Item") || itemId.equals(benchId)) {
+                return true;
+            }
+            String lowerItemId = itemId.toLowerCase();
+            if (looksLikeBench(lowerItemId) && (lowerItemId.contains(lowerBenchId) || lowerBenchId.contains(lowerItemId))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,95 @@
+package com.lumengrid.lumenia.index;
+
+import com.hypixel.hytale.protocol.BenchRequirement;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+
+/**
+ * Which items each crafting bench crafts, kept up to date one recipe at a time.
+ * Every (bench, item) pair counts the recipes producing it, so removing one of two recipes for the same
+ * item at the same bench keeps the item there.
+ */
+public final class BenchOutputs {
+    private final Map<String, Object2IntOpenHashMap<String>> counts = new HashMap<>(); // Bench ID -> item ID -> recipes
+    private final Map<String, Set<String>> itemsByBench = new HashMap<>(); // Bench ID -> key set of its counts
+    private final Map<String, Set<String>> view = Collections.unmodifiableMap(this.itemsByBench);
+    private final Set<String> changedBenches = new HashSet<>();
+
+    public void add(@Nonnull CraftingRecipe recipe) {
+        this.update(recipe, 1);
+    }
+
+    public void remove(@Nonnull CraftingRecipe recipe) {
+        this.update(recipe, -1);
+    }
+
+    /**
+     * Bench ID -> IDs of the items crafted at that bench. Live view, do not modify.
+     */
+    @Nonnull
+    public Map<String, Set<String>> asMap() {
+        return this.view;
+    }
+
+    /**
+     * Benches whose items changed since the previous call, with a copy of their current items (empty when none are left)
+     */
+    @Nonnull
+    public Map<String, Set<String>> drainChanges() {
+        Map<String, Set<String>> changes = new HashMap<>(this.changedBenches.size());
+        for (String benchId : this.changedBenches) {
+            Set<String> items = this.itemsByBench.get(benchId);
+            changes.put(benchId, items != null ? new HashSet<>(items) : Collections.emptySet());
+        }
+        this.changedBenches.clear();
+        return changes;
+    }
+
+    private void update(CraftingRecipe recipe, int delta) {
+        BenchRequirement[] benches = recipe.getBenchRequirement();
+        if (benches == null || recipe.getOutputs() == null) {
+            return;
+        }
+
+        // A recipe counts once per pair, however often it lists the bench or the output
+        Set<String> outputs = new HashSet<>();
+        for (MaterialQuantity output : recipe.getOutputs()) {
+            if (output != null && output.getItemId() != null) {
+                outputs.add(output.getItemId());
+            }
+        }
+        Set<String> benchIds = new HashSet<>();
+        for (BenchRequirement bench : benches) {
+            if (bench != null && bench.id != null) {
+                benchIds.add(bench.id);
+            }
+        }
+
+        for (String benchId : benchIds) {
+            Object2IntOpenHashMap<String> items = this.counts.get(benchId);
+            if (items == null) {
+                if (delta < 0) {
+                    continue;
+                }
+                items = new Object2IntOpenHashMap<>();
+                this.counts.put(benchId, items);
+                this.itemsByBench.put(benchId, items.keySet());
+            }
+            for (String itemId : outputs) {
+                int count = items.addTo(itemId, delta) + delta;
+                if (count <= 0) {
+                    items.removeInt(itemId);
+                }
+            }
+            if (items.isEmpty()) {
+                this.counts.remove(benchId);
+                this.itemsByBench.remove(benchId);
+            }
+            this.changedBenches.add(benchId);
+        }
+    }
+}
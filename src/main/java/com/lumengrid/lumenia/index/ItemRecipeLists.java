@@ -0,0 +1,152 @@
+package com.lumengrid.lumenia.index;
+
+import com.hypixel.hytale.protocol.ItemResourceType;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import it.unimi.dsi.fastutil.ints.IntIterator;
+import it.unimi.dsi.fastutil.ints.IntLinkedOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The "How to craft" and "Used in" recipe lists of every item, computed when items or recipes load and
+ * recomputed only for the items a later change touches.
+ * Lists are already deduplicated and in display order, so showing a page is a plain slice.
+ */
+public final class ItemRecipeLists {
+    private static final RecipeView[] NO_RECIPES = new RecipeView[0];
+
+    public static final ItemRecipeLists EMPTY = new ItemRecipeLists(LayeredMap.empty(), LayeredMap.empty());
+
+    private final LayeredMap<String, RecipeView[]> craftRecipes; // Item ID -> recipes producing it, only non-empty lists
+    private final LayeredMap<String, RecipeView[]> usageRecipes; // Item ID -> recipes consuming it or one of its resource types
+
+    private ItemRecipeLists(LayeredMap<String, RecipeView[]> craftRecipes, LayeredMap<String, RecipeView[]> usageRecipes) {
+        this.craftRecipes = craftRecipes;
+        this.usageRecipes = usageRecipes;
+    }
+
+    /**
+     * @param edges the recipe edges as of the given views; only read during the call
+     */
+    @Nonnull
+    public static ItemRecipeLists build(@Nonnull Map<String, Item> items, @Nonnull RecipeGraph.Builder edges,
+                                        @Nonnull Map<String, RecipeView> recipeViews) {
+        Lists lists = new Lists(edges, recipeViews);
+        for (Map.Entry<String, Item> entry : items.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                lists.compute(entry.getKey(), entry.getValue());
+            }
+        }
+        return new ItemRecipeLists(LayeredMap.of(lists.craft), LayeredMap.of(lists.usage));
+    }
+
+    /**
+     * Same lists with only the given items recomputed; the lists of every other item are shared. A changed recipe
+     * changes the rows of the keys it references, so the items showing it are always among the affected ones.
+     *
+     * @param edges           the recipe edges as of the given views; only read during the call
+     * @param affectedItemIds items that were loaded or removed, or whose recipes or resource type recipes changed
+     */
+    @Nonnull
+    public ItemRecipeLists withChanges(@Nonnull Map<String, Item> items, @Nonnull RecipeGraph.Builder edges,
+                                       @Nonnull Map<String, RecipeView> recipeViews, @Nonnull Collection<String> affectedItemIds) {
+        Lists lists = new Lists(edges, recipeViews);
+        List<String> removedCraft = new ArrayList<>();
+        List<String> removedUsage = new ArrayList<>();
+        for (String itemId : affectedItemIds) {
+            Item item = items.get(itemId);
+            if (item != null) {
+                lists.compute(itemId, item);
+            }
+            if (!lists.craft.containsKey(itemId)) {
+                removedCraft.add(itemId);
+            }
+            if (!lists.usage.containsKey(itemId)) {
+                removedUsage.add(itemId);
+            }
+        }
+        return new ItemRecipeLists(this.craftRecipes.with(lists.craft, removedCraft),
+                this.usageRecipes.with(lists.usage, removedUsage));
+    }
+
+    /**
+     * Recipes producing the item, in display order. Shared, do not modify.
+     */
+    @Nonnull
+    public RecipeView[] getCraftRecipes(@Nonnull String itemId) {
+        return this.craftRecipes.getOrDefault(itemId, NO_RECIPES);
+    }
+
+    /**
+     * Recipes consuming the item or one of its resource types, in display order. Shared, do not modify.
+     */
+    @Nonnull
+    public RecipeView[] getUsageRecipes(@Nonnull String itemId) {
+        return this.usageRecipes.getOrDefault(itemId, NO_RECIPES);
+    }
+
+    /**
+     * Non-empty lists of the items computed in one build
+     */
+    private static final class Lists {
+        private final RecipeGraph.Builder edges;
+        private final Map<String, RecipeView> recipeViews;
+        private final Map<String, RecipeView[]> craft = new Object2ObjectOpenHashMap<>();
+        private final Map<String, RecipeView[]> usage = new Object2ObjectOpenHashMap<>();
+        private final IntLinkedOpenHashSet recipes = new IntLinkedOpenHashSet();
+
+        private Lists(RecipeGraph.Builder edges, Map<String, RecipeView> recipeViews) {
+            this.edges = edges;
+            this.recipeViews = recipeViews;
+        }
+
+        private void compute(String itemId, Item item) {
+            this.recipes.clear();
+            this.edges.forEachProducingRecipe(itemId, this.recipes::add);
+            RecipeView[] craft = this.views();
+            if (craft.length > 0) {
+                this.craft.put(itemId, craft);
+            }
+
+            // Recipes using the item itself first, then those using any of its resource types
+            this.recipes.clear();
+            this.edges.forEachConsumingRecipe(itemId, this.recipes::add);
+            ItemResourceType[] resourceTypes = item.getResourceTypes();
+            if (resourceTypes != null) {
+                for (ItemResourceType resourceType : resourceTypes) {
+                    if (resourceType != null && resourceType.id != null && !resourceType.id.isEmpty()) {
+                        this.edges.forEachConsumingRecipe(resourceType.id, this.recipes::add);
+                    }
+                }
+            }
+            RecipeView[] used = this.views();
+            if (used.length > 0) {
+                this.usage.put(itemId, used);
+            }
+        }
+
+        /**
+         * Views of the collected recipes, dropping those without a view, which cannot be displayed
+         */
+        private RecipeView[] views() {
+            if (this.recipes.isEmpty()) {
+                return NO_RECIPES;
+            }
+            List<RecipeView> views = new ArrayList<>(this.recipes.size());
+            IntIterator iterator = this.recipes.iterator();
+            while (iterator.hasNext()) {
+                String recipeId = this.edges.getRecipeId(iterator.nextInt());
+                RecipeView view = recipeId != null ? this.recipeViews.get(recipeId) : null;
+                if (view != null) {
+                    views.add(view);
+                }
+            }
+            return views.isEmpty() ? NO_RECIPES : views.toArray(NO_RECIPES);
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.lumengrid.lumenia.index;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectMap;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+import it.unimi.dsi.fastutil.objects.ObjectIterators;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Read-only map whose next version is derived in time proportional to the change, sharing everything else.
+ * A version is a stack of layers, newest first, each holding the entries it set and a marker for the keys it removed.
+ * A new layer is merged into the one below while it is at least half that size, so over any run of changes an entry
+ * is copied O(log n) times and a lookup checks at most O(log n) layers. Null keys and values are not supported.
+ */
+public final class LayeredMap<K, V> extends AbstractMap<K, V> {
+    private static final Object REMOVED = new Object();
+    private static final LayeredMap<?, ?> EMPTY = new LayeredMap<>(List.of(), 0);
+
+    private final List<Object2ObjectOpenHashMap<K, Object>> layers; // Newest first; never modified once built
+    private final int size;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    private LayeredMap(List<Object2ObjectOpenHashMap<K, Object>> layers, int size) {
+        this.layers = layers;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nonnull
+    public static <K, V> LayeredMap<K, V> empty() {
+        return (LayeredMap<K, V>) EMPTY;
+    }
+
+    /**
+     * Copy of a map, as a single layer
+     */
+    @Nonnull
+    public static <K, V> LayeredMap<K, V> of(@Nonnull Map<? extends K, ? extends V> map) {
+        if (map.isEmpty()) {
+            return empty();
+        }
+        return new LayeredMap<>(List.of(new Object2ObjectOpenHashMap<>(map)), map.size());
+    }
+
+    /**
+     * Next version with the keys removed and then the entries set
+     */
+    @Nonnull
+    public LayeredMap<K, V> with(@Nonnull Map<? extends K, ? extends V> puts, @Nonnull Collection<? extends K> removals) {
+        Object2ObjectOpenHashMap<K, Object> layer = new Object2ObjectOpenHashMap<>(puts.size() + removals.size());
+        for (K key : removals) {
+            layer.put(key, REMOVED);
+        }
+        layer.putAll(puts);
+        if (layer.isEmpty()) {
+            return this;
+        }
+
+        int size = this.size;
+        for (Object2ObjectMap.Entry<K, Object> entry : layer.object2ObjectEntrySet()) {
+            boolean present = this.containsKey(entry.getKey());
+            if (entry.getValue() == REMOVED) {
+                size -= present ? 1 : 0;
+            } else {
+                size += present ? 0 : 1;
+            }
+        }
+
+        List<Object2ObjectOpenHashMap<K, Object>> layers = new ArrayList<>(this.layers.size() + 1);
+        layers.add(layer);
+        layers.addAll(this.layers);
+        while (layers.size() > 1 && layers.get(0).size() * 2 >= layers.get(1).size()) {
+            Object2ObjectOpenHashMap<K, Object> merged = layers.get(1).clone();
+            merged.putAll(layers.remove(0));
+            if (layers.size() == 1) {
+                // Nothing below the bottom layer to hide
+                merged.values().removeIf(value -> value == REMOVED);
+            }
+            layers.set(0, merged);
+        }
+        return new LayeredMap<>(Collections.unmodifiableList(layers), size);
+    }
+
+    @Nullable
+    private Object find(Object key) {
+        for (Object2ObjectOpenHashMap<K, Object> layer : this.layers) {
+            Object value = layer.get(key);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public V get(Object key) {
+        Object value = this.find(key);
+        return value == REMOVED ? null : (V) value;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        Object value = this.find(key);
+        return value != null && value != REMOVED;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Nonnull
+    @Override
+    public Set<Map.Entry<K, V>> entrySet() {
+        if (this.entrySet == null) {
+            this.entrySet = new AbstractSet<>() {
+                @Override
+                public Iterator<Map.Entry<K, V>> iterator() {
+                    return new EntryIterator();
+                }
+
+                @Override
+                public int size() {
+                    return LayeredMap.this.size;
+                }
+            };
+        }
+        return this.entrySet;
+    }
+
+    /**
+     * Entries of every layer, newest first, skipping removals and keys a newer layer set again
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<K, V>> {
+        private int layer = -1;
+        private ObjectIterator<Object2ObjectMap.Entry<K, Object>> entries = ObjectIterators.emptyIterator();
+        @Nullable
+        private Map.Entry<K, V> next;
+
+        private EntryIterator() {
+            this.advance();
+        }
+
+        @SuppressWarnings("unchecked")
+        private void advance() {
+            List<Object2ObjectOpenHashMap<K, Object>> layers = LayeredMap.this.layers;
+            while (true) {
+                while (!this.entries.hasNext()) {
+                    if (++this.layer >= layers.size()) {
+                        this.next = null;
+                        return;
+                    }
+                    this.entries = layers.get(this.layer).object2ObjectEntrySet().fastIterator();
+                }
+                Object2ObjectMap.Entry<K, Object> entry = this.entries.next();
+                if (entry.getValue() == REMOVED || this.shadowed(entry.getKey())) {
+                    continue;
+                }
+                this.next = new AbstractMap.SimpleImmutableEntry<>(entry.getKey(), (V) entry.getValue());
+                return;
+            }
+        }
+
+        private boolean shadowed(K key) {
+            for (int newer = 0; newer < this.layer; newer++) {
+                if (LayeredMap.this.layers.get(newer).containsKey(key)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.next != null;
+        }
+
+        @Override
+        public Map.Entry<K, V> next() {
+            if (this.next == null) {
+                throw new NoSuchElementException();
+            }
+            Map.Entry<K, V> entry = this.next;
+            this.advance();
+            return entry;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package com.lumengrid.lumenia.index;
+
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.ui.DropdownEntryInfo;
+import com.hypixel.hytale.server.core.ui.LocalizableString;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * Mod of every loaded item, resolved once when the item loads.
+ * Mods are interned to small indexes, so each item only stores an int, and every asset pack is
+ * looked up a single time no matter how many items it contains. Lookups are {@link LayeredMap}s, so item changes
+ * only copy the entries they touch.
+ */
+public final class ModOriginTable {
+    public static final ModOriginTable EMPTY = build(Collections.emptySet(), null);
+
+    private final String[] mods; // Mod names, in the order they were first seen
+    private final LayeredMap<String, Integer> modByItem; // Item ID -> index into mods
+    private final LayeredMap<String, Integer> modIndexes; // Mod name -> index into mods
+    private final List<List<String>> itemsByMod; // Index into mods -> item IDs, sorted
+    private final List<String> modNames; // Mods that still have items, sorted case-insensitively
+    private final List<DropdownEntryInfo> dropdownEntries;
+
+    private ModOriginTable(String[] mods, LayeredMap<String, Integer> modIndexes, LayeredMap<String, Integer> modByItem,
+                           List<List<String>> itemsByMod) {
+        this.mods = mods;
+        this.modIndexes = modIndexes;
+        this.modByItem = modByItem;
+        this.itemsByMod = itemsByMod;
+
+        List<String> modNames = new ObjectArrayList<>(mods.length);
+        for (int i = 0; i < mods.length; i++) {
+            if (!itemsByMod.get(i).isEmpty()) {
+                modNames.add(mods[i]);
+            }
+        }
+        modNames.sort(String.CASE_INSENSITIVE_ORDER);
+        this.modNames = Collections.unmodifiableList(modNames);
+
+        List<DropdownEntryInfo> entries = new ObjectArrayList<>(modNames.size() + 1);
+        entries.add(new DropdownEntryInfo(LocalizableString.fromString("All Mods"), ""));
+        for (String modName : modNames) {
+            entries.add(new DropdownEntryInfo(LocalizableString.fromString(modName), modName));
+        }
+        this.dropdownEntries = Collections.unmodifiableList(entries);
+    }
+
+    @Nonnull
+    public static ModOriginTable build(@Nonnull Collection<String> itemIds, @Nullable DefaultAssetMap<String, Item> assetMap) {
+        Map<String, String> modByPack = new Object2ObjectOpenHashMap<>();
+        Map<String, String> modByItemId = new Object2ObjectOpenHashMap<>(itemIds.size());
+        for (String itemId : itemIds) {
+            modByItemId.put(itemId, resolve(itemId, assetMap, modByPack));
+        }
+        return of(modByItemId);
+    }
+
+    /**
+     * Table of already resolved mod names, such as the ones kept in the index cache
+     *
+     * @param modByItemId item ID -> mod name
+     */
+    @Nonnull
+    public static ModOriginTable of(@Nonnull Map<String, String> modByItemId) {
+        Set<String> modNames = new HashSet<>(modByItemId.values());
+        String[] mods = modNames.toArray(new String[0]);
+        Arrays.sort(mods, String.CASE_INSENSITIVE_ORDER);
+        Map<String, Integer> indexes = new Object2ObjectOpenHashMap<>(mods.length);
+        List<List<String>> itemsByMod = new ObjectArrayList<>(mods.length);
+        for (int i = 0; i < mods.length; i++) {
+            indexes.put(mods[i], i);
+            itemsByMod.add(new ObjectArrayList<>());
+        }
+
+        Map<String, Integer> modByItem = new Object2ObjectOpenHashMap<>(modByItemId.size());
+        for (Map.Entry<String, String> entry : modByItemId.entrySet()) {
+            int modIndex = indexes.get(entry.getValue());
+            modByItem.put(entry.getKey(), modIndex);
+            itemsByMod.get(modIndex).add(entry.getKey());
+        }
+        for (int i = 0; i < mods.length; i++) {
+            List<String> items = itemsByMod.get(i);
+            Collections.sort(items);
+            itemsByMod.set(i, Collections.unmodifiableList(items));
+        }
+
+        return new ModOriginTable(mods, LayeredMap.of(indexes), LayeredMap.of(modByItem), itemsByMod);
+    }
+
+    /**
+     * Same table with only the given items resolved again; the item lists of other mods are shared
+     *
+     * @param changedItemIds items that were loaded, new or updated
+     * @param removedItemIds items that were removed
+     */
+    @Nonnull
+    public ModOriginTable withItemChanges(@Nonnull Collection<String> changedItemIds, @Nonnull Collection<String> removedItemIds,
+                                          @Nullable DefaultAssetMap<String, Item> assetMap) {
+        List<String> mods = new ObjectArrayList<>(this.mods);
+        Map<String, Integer> addedMods = new Object2ObjectOpenHashMap<>(); // Mod name -> index into mods
+        Map<String, Integer> changedItems = new Object2ObjectOpenHashMap<>(changedItemIds.size()); // Item ID -> index into mods
+        Set<String> removedItems = new HashSet<>();
+        List<List<String>> itemsByMod = new ObjectArrayList<>(this.itemsByMod);
+        Map<Integer, List<String>> touched = new HashMap<>(); // Index into mods -> mutable copy of its items
+
+        for (String itemId : removedItemIds) {
+            Integer modIndex = this.modByItem.get(itemId);
+            if (modIndex != null && removedItems.add(itemId)) {
+                removeSorted(touched.computeIfAbsent(modIndex, i -> new ObjectArrayList<>(itemsByMod.get(i))), itemId);
+            }
+        }
+
+        Map<String, String> modByPack = new Object2ObjectOpenHashMap<>();
+        for (String itemId : changedItemIds) {
+            String modName = resolve(itemId, assetMap, modByPack);
+            Integer modIndex = this.modIndexes.get(modName);
+            if (modIndex == null) {
+                modIndex = addedMods.get(modName);
+            }
+            if (modIndex == null) {
+                modIndex = mods.size();
+                mods.add(modName);
+                addedMods.put(modName, modIndex);
+                itemsByMod.add(Collections.emptyList());
+            }
+            Integer previous = changedItems.put(itemId, modIndex);
+            if (previous == null && !removedItems.remove(itemId)) {
+                previous = this.modByItem.get(itemId);
+            }
+            if (modIndex.equals(previous)) {
+                continue;
+            }
+            if (previous != null) {
+                removeSorted(touched.computeIfAbsent(previous, i -> new ObjectArrayList<>(itemsByMod.get(i))), itemId);
+            }
+            addSorted(touched.computeIfAbsent(modIndex, i -> new ObjectArrayList<>(itemsByMod.get(i))), itemId);
+        }
+
+        for (Map.Entry<Integer, List<String>> entry : touched.entrySet()) {
+            itemsByMod.set(entry.getKey(), Collections.unmodifiableList(entry.getValue()));
+        }
+        return new ModOriginTable(mods.toArray(new String[0]), this.modIndexes.with(addedMods, Collections.emptyList()),
+                this.modByItem.with(changedItems, removedItems), itemsByMod);
+    }
+
+    private static String resolve(String itemId, @Nullable DefaultAssetMap<String, Item> assetMap, Map<String, String> modByPack) {
+        String packName = null;
+        try {
+            packName = assetMap != null ? assetMap.getAssetPack(itemId) : null;
+        } catch (Exception _) {
+        }
+        if (packName == null || packName.isEmpty()) {
+            return ModOrigins.getModName(itemId, assetMap);
+        }
+        return modByPack.computeIfAbsent(packName, ModOrigins::getPackModName);
+    }
+
+    private static void addSorted(List<String> items, String itemId) {
+        int index = Collections.binarySearch(items, itemId);
+        if (index < 0) {
+            items.add(-index - 1, itemId);
+        }
+    }
+
+    private static void removeSorted(List<String> items, String itemId) {
+        int index = Collections.binarySearch(items, itemId);
+        if (index >= 0) {
+            items.remove(index);
+        }
+    }
+
+    /**
+     * Mod name of an item; items that were not loaded yet are resolved on the spot
+     */
+    @Nonnull
+    public String getModName(@Nonnull String itemId) {
+        Integer modIndex = this.modByItem.get(itemId);
+        return modIndex != null ? this.mods[modIndex] : ModOrigins.getModName(itemId, Item.getAssetMap());
+    }
+
+    /**
+     * Item IDs added by a mod, sorted by ID
+     */
+    @Nonnull
+    public List<String> getItems(@Nonnull String modName) {
+        Integer modIndex = this.modIndexes.get(modName);
+        return modIndex != null ? this.itemsByMod.get(modIndex) : Collections.emptyList();
+    }
+
+    /**
+     * Mod names, sorted case-insensitively
+     */
+    @Nonnull
+    public List<String> getModNames() {
+        return this.modNames;
+    }
+
+    /**
+     * Entries of the mod filter dropdown: "All Mods" followed by every mod. Shared, do not modify.
+     */
+    @Nonnull
+    public List<DropdownEntryInfo> getDropdownEntries() {
+        return this.dropdownEntries;
+    }
+}
@@ -0,0 +1,94 @@
+package com.lumengrid.lumenia.index;
+
+import com.hypixel.hytale.assetstore.AssetPack;
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+import com.hypixel.hytale.common.plugin.PluginManifest;
+import com.hypixel.hytale.server.core.asset.AssetModule;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+
+/**
+ * Resolves which mod an item comes from, using the asset pack that registered it
+ */
+public final class ModOrigins {
+    public static final String VANILLA = "Vanilla";
+
+    private ModOrigins() {
+    }
+
+    @Nonnull
+    public static String getModName(@Nonnull String itemId, @Nullable DefaultAssetMap<String, Item> assetMap) {
+        try {
+            if (assetMap == null) {
+                return getNamespace(itemId);
+            }
+
+            // Get the pack name that contains this item
+            String packName = assetMap.getAssetPack(itemId);
+            if (packName == null || packName.isEmpty()) {
+                return getNamespace(itemId);
+            }
+
+            return getPackModName(packName);
+        } catch (Exception e) {
+            return VANILLA;
+        }
+    }
+
+    /**
+     * Mod name of an asset pack: Vanilla for the base pack, otherwise the manifest name or the pack name
+     */
+    @Nonnull
+    public static String getPackModName(@Nonnull String packName) {
+        try {
+            // Get the AssetPack object
+            AssetPack pack = AssetModule.get().getAssetPack(packName);
+            if (pack == null) {
+                // Fallback to pack name
+                return packName;
+            }
+
+            // Check if it's the base pack (vanilla)
+            AssetPack basePack = AssetModule.get().getBaseAssetPack();
+            if (pack.equals(basePack)) {
+                return VANILLA;
+            }
+
+            // Get the mod name from manifest
+            try {
+                PluginManifest manifest = pack.getManifest();
+                if (manifest != null) {
+                    String modName = manifest.getName();
+                    if (modName != null && !modName.isEmpty()) {
+                        return modName;
+                    }
+                }
+            } catch (Exception e) {
+                // Ignore manifest errors
+            }
+
+            // Fallback to pack name
+            return packName;
+        } catch (Exception e) {
+            return VANILLA;
+        }
+    }
+
+    /**
+     * Fallback when the asset pack is unknown: the namespace in the item ID, if any
+     */
+    @Nonnull
+    static String getNamespace(@Nonnull String itemId) {
+        int colonIndex = itemId.indexOf(':');
+        if (colonIndex > 0) {
+            String namespace = itemId.substring(0, colonIndex);
+            if (namespace.equalsIgnoreCase("core") || namespace.equalsIgnoreCase("hytale")) {
+                return VANILLA;
+            }
+            return namespace;
+        }
+        return VANILLA;
+    }
+}
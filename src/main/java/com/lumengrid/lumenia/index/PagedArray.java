@@ -0,0 +1,110 @@
+package com.lumengrid.lumenia.index;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Read-only array split into fixed-size pages, whose next version only copies the page table and the pages it
+ * changes, sharing the others. Reads cost one extra indirection over a plain array.
+ */
+public final class PagedArray<E> {
+    private static final int SHIFT = 10;
+    private static final int PAGE_SIZE = 1 << SHIFT;
+    private static final int MASK = PAGE_SIZE - 1;
+
+    private final Object[][] pages; // Never modified once built
+    private final int size;
+
+    private PagedArray(Object[][] pages, int size) {
+        this.pages = pages;
+        this.size = size;
+    }
+
+    /**
+     * Copy of an array
+     */
+    @Nonnull
+    public static <E> PagedArray<E> of(@Nonnull E[] elements) {
+        Object[][] pages = new Object[pageCount(elements.length)][];
+        for (int page = 0; page < pages.length; page++) {
+            pages[page] = Arrays.copyOfRange(elements, page << SHIFT, (page << SHIFT) + PAGE_SIZE, Object[].class);
+        }
+        return new PagedArray<>(pages, elements.length);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Nullable
+    public E get(int index) {
+        if (index < 0 || index >= this.size) {
+            throw new ArrayIndexOutOfBoundsException(index);
+        }
+        return (E) this.pages[index >>> SHIFT][index & MASK];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Starts the next version, with elements past the current size null until set
+     */
+    @Nonnull
+    public Editor<E> edit(int size) {
+        return new Editor<>(this, size);
+    }
+
+    private static int pageCount(int size) {
+        return (size + PAGE_SIZE - 1) >>> SHIFT;
+    }
+
+    /**
+     * Next version of an array; each page is copied the first time one of its elements is set
+     */
+    public static final class Editor<E> {
+        private final Object[][] pages;
+        private final boolean[] copied;
+        private final int size;
+
+        private Editor(PagedArray<E> source, int size) {
+            if (size < source.size) {
+                throw new IllegalArgumentException("Cannot shrink from " + source.size + " to " + size);
+            }
+            this.pages = Arrays.copyOf(source.pages, pageCount(size));
+            this.copied = new boolean[this.pages.length];
+            this.size = size;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Nullable
+        public E get(int index) {
+            if (index < 0 || index >= this.size) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            return (E) this.pages[index >>> SHIFT][index & MASK];
+        }
+
+        public void set(int index, @Nullable E element) {
+            if (index < 0 || index >= this.size) {
+                throw new ArrayIndexOutOfBoundsException(index);
+            }
+            int page = index >>> SHIFT;
+            if (!this.copied[page]) {
+                Object[] source = this.pages[page];
+                this.pages[page] = source != null ? source.clone() : new Object[PAGE_SIZE];
+                this.copied[page] = true;
+            }
+            this.pages[page][index & MASK] = element;
+        }
+
+        @Nonnull
+        public PagedArray<E> build() {
+            for (int page = 0; page < this.pages.length; page++) {
+                if (this.pages[page] == null) {
+                    this.pages[page] = new Object[PAGE_SIZE];
+                }
+            }
+            return new PagedArray<>(this.pages, this.size);
+        }
+    }
+}
@@ -0,0 +1,490 @@
+package com.lumengrid.lumenia.index;
+
+import com.lumengrid.lumenia.util.BinaryIO;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Which recipes produce and consume each item or resource type, with every ID interned to a dense int,
+ * laid out as it is cached. Edges are stored in compressed sparse rows: the recipes of key {@code k} are
+ * {@code recipes[offsets[k]] .. recipes[offsets[k + 1] - 1]}, in the order recipes were first loaded.
+ * Item and resource type IDs share one key space, as they always did in {@code ITEM_FROM_RECIPES}.
+ * Craft and usage lookups do not read this layout: they read the rows of {@link Builder} in place
+ * (see {@link ItemRecipeLists}), which every recipe reload edits; a graph is only laid out from them to be
+ * written to the index cache, and turned back into a builder with {@link Builder#of} when read.
+ */
+public final class RecipeGraph {
+    private final String[] keys; // Item and resource type IDs
+    private final String[] recipeIds; // Null for removed recipes
+    private final int[] producedOffsets;
+    private final int[] producedRecipes;
+    private final int[] consumedOffsets;
+    private final int[] consumedRecipes;
+
+    private RecipeGraph(String[] keys, String[] recipeIds, int[] producedOffsets, int[] producedRecipes,
+                        int[] consumedOffsets, int[] consumedRecipes) {
+        this.keys = keys;
+        this.recipeIds = recipeIds;
+        this.producedOffsets = producedOffsets;
+        this.producedRecipes = producedRecipes;
+        this.consumedOffsets = consumedOffsets;
+        this.consumedRecipes = consumedRecipes;
+    }
+
+    public int getKeyCount() {
+        return this.keys.length;
+    }
+
+    public int getRecipeCount() {
+        return this.recipeIds.length;
+    }
+
+    @Nonnull
+    public String getKey(int keyOrdinal) {
+        return this.keys[keyOrdinal];
+    }
+
+    /**
+     * ID of a recipe, or null when the recipe at this ordinal was removed
+     */
+    @Nullable
+    public String getRecipeId(int recipeOrdinal) {
+        return this.recipeIds[recipeOrdinal];
+    }
+
+    /**
+     * Writes the graph as laid out in memory, for {@link #read}
+     */
+    public void write(@Nonnull DataOutputStream out) throws IOException {
+        BinaryIO.writeStrings(out, this.keys);
+        BinaryIO.writeStrings(out, this.recipeIds);
+        BinaryIO.writeInts(out, this.producedOffsets);
+        BinaryIO.writeInts(out, this.producedRecipes);
+        BinaryIO.writeInts(out, this.consumedOffsets);
+        BinaryIO.writeInts(out, this.consumedRecipes);
+    }
+
+    /**
+     * Reads a graph written by {@link #write}; the rows are bulk copies
+     */
+    @Nonnull
+    public static RecipeGraph read(@Nonnull ByteBuffer in) {
+        return new RecipeGraph(BinaryIO.readStrings(in), BinaryIO.readStrings(in), BinaryIO.readInts(in),
+                BinaryIO.readInts(in), BinaryIO.readInts(in), BinaryIO.readInts(in));
+    }
+
+    /**
+     * Mutable edge lists, kept up to date as recipes are loaded or removed and read in place by whoever applies
+     * the changes; a graph is only laid out from them to be cached.
+     * Every change only touches the rows of the keys the recipe references: recipe ordinals are stable,
+     * a reloaded recipe keeps its place and a removed one leaves a hole its ID takes back if it returns.
+     */
+    public static final class Builder {
+        /**
+         * Batches of at least this many recipes are split into partitions and interned on the common ForkJoinPool
+         */
+        public static final int PARALLEL_THRESHOLD = 4096;
+        private static final int PARTITION_SIZE = 1024;
+
+        private final List<String> keys = new ObjectArrayList<>();
+        private final Object2IntOpenHashMap<String> keyOrdinals = new Object2IntOpenHashMap<>();
+        private final List<IntArrayList> produced = new ObjectArrayList<>(); // Key ordinal -> producing recipe ordinals, ascending
+        private final List<IntArrayList> consumed = new ObjectArrayList<>(); // Key ordinal -> consuming recipe ordinals, ascending
+        private final List<String> recipeIds = new ObjectArrayList<>(); // Recipe ordinal -> ID, including removed recipes
+        private final Object2IntOpenHashMap<String> recipeOrdinals = new Object2IntOpenHashMap<>();
+        private final List<Edges> edges = new ObjectArrayList<>(); // Recipe ordinal -> edges, null once removed
+        private final IntOpenHashSet dirtyKeys = new IntOpenHashSet();
+
+        public Builder() {
+            this.keyOrdinals.defaultReturnValue(-1);
+            this.recipeOrdinals.defaultReturnValue(-1);
+        }
+
+        /**
+         * Builder holding the edges of a published graph, so later changes apply to it as deltas.
+         * Removed recipes stay holes but their IDs are gone, so a returning ID takes a new ordinal.
+         */
+        @Nonnull
+        public static Builder of(@Nonnull RecipeGraph graph) {
+            Builder builder = new Builder();
+            for (String key : graph.keys) {
+                builder.internKey(key);
+            }
+            int recipeCount = graph.recipeIds.length;
+            IntArrayList[] outputs = new IntArrayList[recipeCount];
+            IntArrayList[] inputs = new IntArrayList[recipeCount];
+            for (int recipe = 0; recipe < recipeCount; recipe++) {
+                outputs[recipe] = new IntArrayList();
+                inputs[recipe] = new IntArrayList();
+            }
+            for (int key = 0; key < graph.keys.length; key++) {
+                link(graph.producedOffsets, graph.producedRecipes, key, builder.produced.get(key), outputs);
+                link(graph.consumedOffsets, graph.consumedRecipes, key, builder.consumed.get(key), inputs);
+            }
+
+            for (int recipe = 0; recipe < recipeCount; recipe++) {
+                String recipeId = graph.recipeIds[recipe];
+                builder.recipeIds.add(recipeId);
+                if (recipeId == null) {
+                    builder.edges.add(null);
+                } else {
+                    builder.recipeOrdinals.put(recipeId, recipe);
+                    builder.edges.add(new Edges(outputs[recipe].toIntArray(), inputs[recipe].toIntArray()));
+                }
+            }
+            return builder;
+        }
+
+        /**
+         * Copies one CSR row into a builder row, recording the key on each recipe of the row
+         */
+        private static void link(int[] offsets, int[] recipes, int key, IntArrayList row, IntArrayList[] keysByRecipe) {
+            row.addElements(0, recipes, offsets[key], offsets[key + 1] - offsets[key]);
+            for (int i = offsets[key]; i < offsets[key + 1]; i++) {
+                keysByRecipe[recipes[i]].add(key);
+            }
+        }
+
+        /**
+         * Adds a recipe, or replaces the edges of a recipe that is already present
+         *
+         * @param outputs item IDs the recipe produces
+         * @param inputs  item and resource type IDs the recipe consumes
+         */
+        public void put(@Nonnull String recipeId, @Nonnull Collection<String> outputs, @Nonnull Collection<String> inputs) {
+            int recipe = this.recipeOrdinals.getInt(recipeId);
+            if (recipe < 0) {
+                recipe = this.recipeIds.size();
+                this.recipeIds.add(recipeId);
+                this.recipeOrdinals.put(recipeId, recipe);
+                this.edges.add(null);
+            } else {
+                this.unlink(recipe);
+            }
+
+            Edges recipeEdges = new Edges(this.intern(outputs), this.intern(inputs));
+            for (int key : recipeEdges.outputs) {
+                insert(this.produced.get(key), recipe);
+                this.dirtyKeys.add(key);
+            }
+            for (int key : recipeEdges.inputs) {
+                insert(this.consumed.get(key), recipe);
+                this.dirtyKeys.add(key);
+            }
+            this.edges.set(recipe, recipeEdges);
+        }
+
+        /**
+         * Same as calling {@link #put} for each recipe in order. Large batches are partitioned: each partition
+         * interns its own keys and builds its own rows on the common ForkJoinPool, sharing nothing, and the
+         * fragments are then merged with one global lookup per distinct key instead of one per edge.
+         */
+        public void putAll(@Nonnull List<String> recipeIds, @Nonnull List<? extends Collection<String>> outputs,
+                           @Nonnull List<? extends Collection<String>> inputs) {
+            int count = recipeIds.size();
+            if (count < PARALLEL_THRESHOLD) {
+                for (int i = 0; i < count; i++) {
+                    this.put(recipeIds.get(i), outputs.get(i), inputs.get(i));
+                }
+                return;
+            }
+
+            List<Fragment> fragments = ForkJoinPool.commonPool().invoke(new FragmentTask(outputs, inputs, 0, count));
+
+            // Ordinals are assigned in batch order; when an ID repeats, its last entry wins as with put
+            Object2IntOpenHashMap<String> lastPositions = new Object2IntOpenHashMap<>(count);
+            for (int i = 0; i < count; i++) {
+                lastPositions.put(recipeIds.get(i), i);
+            }
+            int[] recipes = new int[count];
+            for (int i = 0; i < count; i++) {
+                String recipeId = recipeIds.get(i);
+                int recipe = this.recipeOrdinals.getInt(recipeId);
+                if (recipe < 0) {
+                    recipe = this.recipeIds.size();
+                    this.recipeIds.add(recipeId);
+                    this.recipeOrdinals.put(recipeId, recipe);
+                    this.edges.add(null);
+                } else {
+                    this.unlink(recipe);
+                }
+                recipes[i] = lastPositions.getInt(recipeId) == i ? recipe : -1;
+            }
+
+            for (Fragment fragment : fragments) {
+                int[] globalKeys = new int[fragment.keys.size()];
+                for (int key = 0; key < globalKeys.length; key++) {
+                    globalKeys[key] = this.internKey(fragment.keys.get(key));
+                }
+                for (int i = 0; i < fragment.outputs.length; i++) {
+                    int recipe = recipes[fragment.start + i];
+                    if (recipe >= 0) {
+                        this.edges.set(recipe, new Edges(remap(fragment.outputs[i], globalKeys), remap(fragment.inputs[i], globalKeys)));
+                    }
+                }
+                for (int key = 0; key < globalKeys.length; key++) {
+                    this.merge(fragment.produced.get(key), this.produced.get(globalKeys[key]), recipes, globalKeys[key]);
+                    this.merge(fragment.consumed.get(key), this.consumed.get(globalKeys[key]), recipes, globalKeys[key]);
+                }
+            }
+        }
+
+        private void merge(IntArrayList positions, IntArrayList row, int[] recipes, int key) {
+            for (int i = 0; i < positions.size(); i++) {
+                int recipe = recipes[positions.getInt(i)];
+                if (recipe >= 0) {
+                    insert(row, recipe);
+                    this.dirtyKeys.add(key);
+                }
+            }
+        }
+
+        private static int[] remap(int[] localKeys, int[] globalKeys) {
+            int[] keys = new int[localKeys.length];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = globalKeys[localKeys[i]];
+            }
+            return keys;
+        }
+
+        public void remove(@Nonnull String recipeId) {
+            int recipe = this.recipeOrdinals.getInt(recipeId);
+            if (recipe >= 0) {
+                this.unlink(recipe);
+            }
+        }
+
+        /**
+         * Passes the ordinals of the recipes producing an item to the action, in load order
+         */
+        public void forEachProducingRecipe(@Nonnull String itemId, @Nonnull IntConsumer action) {
+            int key = this.keyOrdinals.getInt(itemId);
+            if (key >= 0) {
+                this.produced.get(key).forEach(action);
+            }
+        }
+
+        /**
+         * Passes the ordinals of the recipes consuming an item or resource type to the action, in load order
+         */
+        public void forEachConsumingRecipe(@Nonnull String key, @Nonnull IntConsumer action) {
+            int ordinal = this.keyOrdinals.getInt(key);
+            if (ordinal >= 0) {
+                this.consumed.get(ordinal).forEach(action);
+            }
+        }
+
+        /**
+         * ID of a recipe, or null when the recipe at this ordinal was removed
+         */
+        @Nullable
+        public String getRecipeId(int recipeOrdinal) {
+            return this.edges.get(recipeOrdinal) != null ? this.recipeIds.get(recipeOrdinal) : null;
+        }
+
+        /**
+         * IDs of the items and resource types whose rows changed since the previous call
+         */
+        @Nonnull
+        public Set<String> drainDirtyKeys() {
+            Set<String> dirty = new HashSet<>(this.dirtyKeys.size());
+            for (int key : this.dirtyKeys) {
+                dirty.add(this.keys.get(key));
+            }
+            this.dirtyKeys.clear();
+            return dirty;
+        }
+
+        /**
+         * Lays the current rows out as a graph; a linear copy, no ID is hashed again
+         */
+        @Nonnull
+        public RecipeGraph build() {
+            int keyCount = this.keys.size();
+            int[] producedOffsets = offsets(this.produced);
+            int[] consumedOffsets = offsets(this.consumed);
+            int[] producedRecipes = new int[producedOffsets[keyCount]];
+            int[] consumedRecipes = new int[consumedOffsets[keyCount]];
+            for (int key = 0; key < keyCount; key++) {
+                this.produced.get(key).getElements(0, producedRecipes, producedOffsets[key], this.produced.get(key).size());
+                this.consumed.get(key).getElements(0, consumedRecipes, consumedOffsets[key], this.consumed.get(key).size());
+            }
+
+            // Removed recipes keep their ordinal reserved, but are not part of the graph
+            String[] recipeIds = this.recipeIds.toArray(new String[0]);
+            for (int recipe = 0; recipe < recipeIds.length; recipe++) {
+                if (this.edges.get(recipe) == null) {
+                    recipeIds[recipe] = null;
+                }
+            }
+
+            return new RecipeGraph(this.keys.toArray(new String[0]), recipeIds, producedOffsets, producedRecipes,
+                    consumedOffsets, consumedRecipes);
+        }
+
+        private void unlink(int recipe) {
+            Edges recipeEdges = this.edges.get(recipe);
+            if (recipeEdges == null) {
+                return;
+            }
+            for (int key : recipeEdges.outputs) {
+                delete(this.produced.get(key), recipe);
+                this.dirtyKeys.add(key);
+            }
+            for (int key : recipeEdges.inputs) {
+                delete(this.consumed.get(key), recipe);
+                this.dirtyKeys.add(key);
+            }
+            this.edges.set(recipe, null);
+        }
+
+        /**
+         * Interns the IDs of one side of a recipe, skipping nulls and duplicates within the recipe
+         */
+        private int[] intern(Collection<String> ids) {
+            IntArrayList ordinals = new IntArrayList(ids.size());
+            for (String id : ids) {
+                if (id == null) {
+                    continue;
+                }
+                int ordinal = this.internKey(id);
+                if (!ordinals.contains(ordinal)) {
+                    ordinals.add(ordinal);
+                }
+            }
+            return ordinals.toIntArray();
+        }
+
+        private int internKey(String id) {
+            int ordinal = this.keyOrdinals.getInt(id);
+            if (ordinal < 0) {
+                ordinal = this.keys.size();
+                this.keys.add(id);
+                this.keyOrdinals.put(id, ordinal);
+                this.produced.add(new IntArrayList());
+                this.consumed.add(new IntArrayList());
+            }
+            return ordinal;
+        }
+
+        private static void insert(IntArrayList row, int recipe) {
+            int index = Arrays.binarySearch(row.elements(), 0, row.size(), recipe);
+            if (index < 0) {
+                row.add(-index - 1, recipe);
+            }
+        }
+
+        private static void delete(IntArrayList row, int recipe) {
+            int index = Arrays.binarySearch(row.elements(), 0, row.size(), recipe);
+            if (index >= 0) {
+                row.removeInt(index);
+            }
+        }
+
+        private static int[] offsets(List<IntArrayList> rows) {
+            int[] offsets = new int[rows.size() + 1];
+            for (int i = 0; i < rows.size(); i++) {
+                offsets[i + 1] = offsets[i] + rows.get(i).size();
+            }
+            return offsets;
+        }
+
+        /**
+         * Keys and rows of one partition of a batch, with keys interned locally and recipes as batch positions
+         */
+        private static final class Fragment {
+            private final int start;
+            private final List<String> keys = new ObjectArrayList<>();
+            private final Object2IntOpenHashMap<String> keyIndexes = new Object2IntOpenHashMap<>();
+            private final List<IntArrayList> produced = new ObjectArrayList<>(); // Local key -> batch positions, ascending
+            private final List<IntArrayList> consumed = new ObjectArrayList<>();
+            private final int[][] outputs; // Recipe in partition -> local keys
+            private final int[][] inputs;
+
+            private Fragment(List<? extends Collection<String>> outputs, List<? extends Collection<String>> inputs, int start, int end) {
+                this.start = start;
+                this.keyIndexes.defaultReturnValue(-1);
+                this.outputs = new int[end - start][];
+                this.inputs = new int[end - start][];
+                for (int position = start; position < end; position++) {
+                    this.outputs[position - start] = this.link(outputs.get(position), this.produced, position);
+                    this.inputs[position - start] = this.link(inputs.get(position), this.consumed, position);
+                }
+            }
+
+            private int[] link(Collection<String> ids, List<IntArrayList> rows, int position) {
+                IntArrayList keys = new IntArrayList(ids.size());
+                for (String id : ids) {
+                    if (id == null) {
+                        continue;
+                    }
+                    int key = this.keyIndexes.getInt(id);
+                    if (key < 0) {
+                        key = this.keys.size();
+                        this.keys.add(id);
+                        this.keyIndexes.put(id, key);
+                        this.produced.add(new IntArrayList());
+                        this.consumed.add(new IntArrayList());
+                    }
+                    if (!keys.contains(key)) {
+                        keys.add(key);
+                        rows.get(key).add(position);
+                    }
+                }
+                return keys.toIntArray();
+            }
+        }
+
+        private static final class FragmentTask extends RecursiveTask<List<Fragment>> {
+            private final List<? extends Collection<String>> outputs;
+            private final List<? extends Collection<String>> inputs;
+            private final int start;
+            private final int end;
+
+            private FragmentTask(List<? extends Collection<String>> outputs, List<? extends Collection<String>> inputs, int start, int end) {
+                this.outputs = outputs;
+                this.inputs = inputs;
+                this.start = start;
+                this.end = end;
+            }
+
+            @Override
+            protected List<Fragment> compute() {
+                if (this.end - this.start <= PARTITION_SIZE) {
+                    List<Fragment> fragments = new ObjectArrayList<>(1);
+                    fragments.add(new Fragment(this.outputs, this.inputs, this.start, this.end));
+                    return fragments;
+                }
+                int middle = (this.start + this.end) >>> 1;
+                FragmentTask left = new FragmentTask(this.outputs, this.inputs, this.start, middle);
+                left.fork();
+                List<Fragment> fragments = new FragmentTask(this.outputs, this.inputs, middle, this.end).compute();
+                List<Fragment> merged = new ObjectArrayList<>(left.join());
+                merged.addAll(fragments);
+                return merged;
+            }
+        }
+
+        private static final class Edges {
+            private final int[] outputs; // Key ordinals
+            private final int[] inputs;
+
+            private Edges(int[] outputs, int[] inputs) {
+                this.outputs = outputs;
+                this.inputs = inputs;
+            }
+        }
+    }
+}
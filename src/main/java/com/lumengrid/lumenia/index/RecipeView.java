@@ -0,0 +1,103 @@
+package com.lumengrid.lumenia.index;
+
+import com.hypixel.hytale.protocol.BenchRequirement;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
+import com.lumengrid.lumenia.util.Accessors;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A crafting recipe flattened once when recipes load, so rendering and validation never have to reflect
+ * on {@link CraftingRecipe} or branch on how it happens to expose its inputs
+ */
+public final class RecipeView {
+    private static final String[] INPUT_METHOD_NAMES = {"getInput", "getInputs", "getIngredients", "getMaterials", "getRecipeInputs", "getRequiredMaterials"};
+
+    public final String recipeId;
+    @Nullable
+    public final String benchId; // First bench requirement, null when crafted by hand
+    public final int benchTier;
+    public final Material[] inputs;
+    public final Material[] outputs; // Only outputs with an item ID
+
+    private RecipeView(String recipeId, @Nullable String benchId, int benchTier, Material[] inputs, Material[] outputs) {
+        this.recipeId = recipeId;
+        this.benchId = benchId;
+        this.benchTier = benchTier;
+        this.inputs = inputs;
+        this.outputs = outputs;
+    }
+
+    @Nonnull
+    public static RecipeView of(@Nonnull CraftingRecipe recipe) {
+        String benchId = null;
+        int benchTier = 0;
+        BenchRequirement[] benches = recipe.getBenchRequirement();
+        if (benches != null && benches.length > 0 && benches[0] != null) {
+            benchId = benches[0].id;
+            benchTier = benches[0].requiredTierLevel;
+        }
+
+        // The first input accessor returning something; accessors are resolved once per class and then cached
+        Object inputsObj = Accessors.getFirst(recipe, INPUT_METHOD_NAMES);
+
+        List<Material> outputs = new ArrayList<>();
+        if (recipe.getOutputs() != null) {
+            for (MaterialQuantity output : recipe.getOutputs()) {
+                if (output != null && output.getItemId() != null && !output.getItemId().isEmpty()) {
+                    outputs.add(new Material(output));
+                }
+            }
+        }
+
+        return new RecipeView(recipe.getId(), benchId, benchTier, toMaterials(inputsObj), outputs.toArray(new Material[0]));
+    }
+
+    public boolean isHandCrafted() {
+        return this.benchId == null;
+    }
+
+    /**
+     * Inputs may come back as a single material, a list, an array or any other collection
+     */
+    private static Material[] toMaterials(@Nullable Object inputsObj) {
+        List<Material> materials = new ArrayList<>();
+        if (inputsObj instanceof MaterialQuantity input) {
+            materials.add(new Material(input));
+        } else if (inputsObj instanceof MaterialQuantity[] inputs) {
+            for (MaterialQuantity input : inputs) {
+                if (input != null) {
+                    materials.add(new Material(input));
+                }
+            }
+        } else if (inputsObj instanceof Collection<?> inputs) {
+            for (Object input : inputs) {
+                if (input instanceof MaterialQuantity material) {
+                    materials.add(new Material(material));
+                }
+            }
+        }
+        return materials.toArray(new Material[0]);
+    }
+
+    public static final class Material {
+        @Nullable
+        public final String itemId;
+        @Nullable
+        public final String resourceTypeId; // Shown instead of the item when there is no item ID
+        public final int quantity;
+
+        private Material(@Nonnull MaterialQuantity material) {
+            String itemId = material.getItemId();
+            this.itemId = itemId != null && !itemId.isEmpty() ? itemId : null;
+            String resourceTypeId = material.getResourceTypeId();
+            this.resourceTypeId = resourceTypeId != null && !resourceTypeId.isEmpty() ? resourceTypeId : null;
+            this.quantity = material.getQuantity();
+        }
+    }
+}
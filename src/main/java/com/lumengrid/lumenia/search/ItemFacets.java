@@ -0,0 +1,239 @@
+package com.lumengrid.lumenia.search;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * One bitset over the item ordinal space per mod, item group, resource type and crafting bench.
+ * Returned bitsets are shared and must be treated as read-only; combine them on a copy.
+ */
+public final class ItemFacets {
+    private final int size;
+    private final Map<String, BitSet> byMod;
+    private final Map<String, BitSet> byGroup; // Normalized group -> items
+    private final Map<String, BitSet> byResourceType; // Normalized resource type ID -> items
+    private final Map<String, BitSet> byBench; // Normalized bench ID -> items crafted there
+
+    private ItemFacets(int size, Map<String, BitSet> byMod, Map<String, BitSet> byGroup,
+                       Map<String, BitSet> byResourceType, Map<String, BitSet> byBench) {
+        this.size = size;
+        this.byMod = byMod;
+        this.byGroup = byGroup;
+        this.byResourceType = byResourceType;
+        this.byBench = byBench;
+    }
+
+    /**
+     * Same item facets with the bench facet replaced, used when recipes load after the items
+     */
+    @Nonnull
+    ItemFacets withBenches(@Nonnull Map<String, BitSet> byBench) {
+        return new ItemFacets(this.size, this.byMod, this.byGroup, this.byResourceType, byBench);
+    }
+
+    /**
+     * Same item facets with the given benches replaced, and removed where their bitset is empty
+     */
+    @Nonnull
+    ItemFacets withBenchChanges(@Nonnull Map<String, BitSet> changedBenches) {
+        Map<String, BitSet> byBench = new HashMap<>(this.byBench);
+        for (Map.Entry<String, BitSet> entry : changedBenches.entrySet()) {
+            if (entry.getValue().isEmpty()) {
+                byBench.remove(entry.getKey());
+            } else {
+                byBench.put(entry.getKey(), entry.getValue());
+            }
+        }
+        return new ItemFacets(this.size, this.byMod, this.byGroup, this.byResourceType, byBench);
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    @Nullable
+    public BitSet getMod(@Nonnull String modName) {
+        return this.byMod.get(modName);
+    }
+
+    @Nullable
+    public BitSet getGroup(@Nonnull String group) {
+        return this.byGroup.get(ItemSearchIndex.normalize(group));
+    }
+
+    @Nullable
+    public BitSet getResourceType(@Nonnull String resourceTypeId) {
+        return this.byResourceType.get(ItemSearchIndex.normalize(resourceTypeId));
+    }
+
+    /**
+     * Items whose facet value equals the given value (ignoring case), or when no value is equal,
+     * items whose facet value contains it, so partially typed filters still narrow the grid
+     */
+    @Nonnull
+    public BitSet select(@Nonnull Facet facet, @Nonnull String value) {
+        Map<String, BitSet> values = switch (facet) {
+            case MOD -> this.byMod;
+            case GROUP -> this.byGroup;
+            case RESOURCE_TYPE -> this.byResourceType;
+            case BENCH -> this.byBench;
+        };
+        String normalized = ItemSearchIndex.normalize(value);
+        BitSet partial = new BitSet(this.size);
+        for (Map.Entry<String, BitSet> entry : values.entrySet()) {
+            String key = ItemSearchIndex.normalize(entry.getKey());
+            if (key.equals(normalized)) {
+                return (BitSet) entry.getValue().clone();
+            }
+            if (key.contains(normalized)) {
+                partial.or(entry.getValue());
+            }
+        }
+        return partial;
+    }
+
+    @Nonnull
+    public Set<String> getModNames() {
+        return Collections.unmodifiableSet(this.byMod.keySet());
+    }
+
+    /**
+     * Items whose group or one of whose resource types contains the normalized term, as a new bitset
+     */
+    @Nonnull
+    public BitSet matchingTerm(@Nonnull String term) {
+        BitSet matches = new BitSet(this.size);
+        for (Map.Entry<String, BitSet> entry : this.byGroup.entrySet()) {
+            if (entry.getKey().contains(term)) {
+                matches.or(entry.getValue());
+            }
+        }
+        for (Map.Entry<String, BitSet> entry : this.byResourceType.entrySet()) {
+            if (entry.getKey().contains(term)) {
+                matches.or(entry.getValue());
+            }
+        }
+        return matches;
+    }
+
+    static final class Builder {
+        private final int size;
+        private final Map<String, BitSet> byMod = new HashMap<>();
+        private final Map<String, BitSet> byGroup = new HashMap<>();
+        private final Map<String, BitSet> byResourceType = new HashMap<>();
+
+        Builder(int size) {
+            this.size = size;
+        }
+
+        void addMod(@Nullable String modName, int ordinal) {
+            if (modName != null && !modName.isEmpty()) {
+                this.byMod.computeIfAbsent(modName, k -> new BitSet(this.size)).set(ordinal);
+            }
+        }
+
+        void addGroup(@Nonnull String group, int ordinal) {
+            this.byGroup.computeIfAbsent(ItemSearchIndex.normalize(group), k -> new BitSet(this.size)).set(ordinal);
+        }
+
+        void addResourceType(@Nonnull String resourceTypeId, int ordinal) {
+            this.byResourceType.computeIfAbsent(ItemSearchIndex.normalize(resourceTypeId), k -> new BitSet(this.size)).set(ordinal);
+        }
+
+        ItemFacets build() {
+            return new ItemFacets(this.size, this.byMod, this.byGroup, this.byResourceType, Collections.emptyMap());
+        }
+    }
+
+    /**
+     * Edits existing facets for a few changed items. Maps and bitsets are copied the first time they change,
+     * every other one is shared with the source facets.
+     */
+    static final class Patch {
+        private final int size;
+        private final List<Map<String, BitSet>> maps; // Indexed by Facet ordinal
+        private final boolean[] copied = new boolean[Facet.values().length];
+        private final Set<BitSet> owned = Collections.newSetFromMap(new IdentityHashMap<>());
+
+        Patch(@Nonnull ItemFacets source, int size) {
+            this.size = size;
+            this.maps = new ArrayList<>(List.of(source.byMod, source.byGroup, source.byResourceType, source.byBench));
+        }
+
+        /**
+         * Removes the item from every facet value
+         */
+        void clear(int ordinal) {
+            for (Facet facet : Facet.values()) {
+                List<String> keys = null;
+                for (Map.Entry<String, BitSet> entry : this.maps.get(facet.ordinal()).entrySet()) {
+                    if (entry.getValue().get(ordinal)) {
+                        if (keys == null) {
+                            keys = new ArrayList<>();
+                        }
+                        keys.add(entry.getKey());
+                    }
+                }
+                if (keys != null) {
+                    for (String key : keys) {
+                        BitSet items = this.writable(facet, key);
+                        items.clear(ordinal);
+                        if (items.isEmpty()) {
+                            this.maps.get(facet.ordinal()).remove(key);
+                        }
+                    }
+                }
+            }
+        }
+
+        void addMod(@Nullable String modName, int ordinal) {
+            if (modName != null && !modName.isEmpty()) {
+                this.writable(Facet.MOD, modName).set(ordinal);
+            }
+        }
+
+        void addGroup(@Nonnull String group, int ordinal) {
+            this.writable(Facet.GROUP, ItemSearchIndex.normalize(group)).set(ordinal);
+        }
+
+        void addResourceType(@Nonnull String resourceTypeId, int ordinal) {
+            this.writable(Facet.RESOURCE_TYPE, ItemSearchIndex.normalize(resourceTypeId)).set(ordinal);
+        }
+
+        void addBench(@Nonnull String benchId, int ordinal) {
+            this.writable(Facet.BENCH, ItemSearchIndex.normalize(benchId)).set(ordinal);
+        }
+
+        ItemFacets build() {
+            return new ItemFacets(this.size, this.maps.get(0), this.maps.get(1), this.maps.get(2), this.maps.get(3));
+        }
+
+        private BitSet writable(Facet facet, String key) {
+            int index = facet.ordinal();
+            if (!this.copied[index]) {
+                this.maps.set(index, new HashMap<>(this.maps.get(index)));
+                this.copied[index] = true;
+            }
+            Map<String, BitSet> values = this.maps.get(index);
+            BitSet items = values.get(key);
+            if (items == null) {
+                items = new BitSet(this.size);
+            } else if (!this.owned.contains(items)) {
+                items = (BitSet) items.clone();
+            } else {
+                return items;
+            }
+            values.put(key, items);
+            this.owned.add(items);
+            return items;
+        }
+    }
+
+    public enum Facet {
+        MOD,
+        GROUP,
+        RESOURCE_TYPE,
+        BENCH
+    }
+}
@@ -0,0 +1,924 @@
+package com.lumengrid.lumenia.search;
+
+import com.hypixel.hytale.protocol.ItemResourceType;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
+import com.lumengrid.lumenia.index.LayeredMap;
+import com.lumengrid.lumenia.index.PagedArray;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted trigram index over the item catalog.
+ * Item IDs are indexed when the items load and translated names per language the first time a player
+ * searches in that language; item groups, resource types, mods and benches are answered from {@link ItemFacets} bitsets.
+ * Per-item arrays are {@link PagedArray}s and postings {@link LayeredMap}s, so item changes only copy what they touch.
+ */
+public final class ItemSearchIndex {
+    private static final int[] NO_MATCHES = new int[0];
+    private static final AtomicLong VERSIONS = new AtomicLong();
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+    public static final ItemSearchIndex EMPTY = build(Collections.emptyMap(), itemId -> null, Collections.emptyMap());
+
+    private final long version = VERSIONS.incrementAndGet();
+    private final int size;
+    private final PagedArray<String> ids;
+    private final PagedArray<String> normalizedIds;
+    private final PagedArray<Item> items; // Null for removed items
+    private final LayeredMap<String, Integer> ordinals;
+    private final LayeredMap<Long, int[]> postings; // Item ID trigrams
+    private final ItemFacets facets;
+    private final Map<String, LocaleNames> locales;
+    @Nullable
+    private final BitSet removed; // Ordinals of removed items, null when there are none
+    private final int drift; // Items appended or removed since the index was last built in ID order
+
+    private ItemSearchIndex(String[] ids, Item[] items, LayeredMap<Long, int[]> postings, ItemFacets facets) {
+        this.size = ids.length;
+        this.ids = PagedArray.of(ids);
+        this.items = PagedArray.of(items);
+        this.postings = postings;
+        this.facets = facets;
+        this.locales = new ConcurrentHashMap<>();
+        this.removed = null;
+        this.drift = 0;
+        String[] normalizedIds = new String[ids.length];
+        Map<String, Integer> ordinals = new Object2ObjectOpenHashMap<>(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            normalizedIds[i] = normalize(ids[i]);
+            ordinals.put(ids[i], i);
+        }
+        this.normalizedIds = PagedArray.of(normalizedIds);
+        this.ordinals = LayeredMap.of(ordinals);
+    }
+
+    private ItemSearchIndex(ItemSearchIndex source, ItemFacets facets, Map<String, LocaleNames> locales) {
+        this.size = source.size;
+        this.ids = source.ids;
+        this.normalizedIds = source.normalizedIds;
+        this.items = source.items;
+        this.ordinals = source.ordinals;
+        this.postings = source.postings;
+        this.locales = locales;
+        this.removed = source.removed;
+        this.drift = source.drift;
+        this.facets = facets;
+    }
+
+    private ItemSearchIndex(PagedArray<String> ids, PagedArray<String> normalizedIds, PagedArray<Item> items,
+                            LayeredMap<String, Integer> ordinals, LayeredMap<Long, int[]> postings, ItemFacets facets,
+                            Map<String, LocaleNames> locales, @Nullable BitSet removed, int drift) {
+        this.size = ids.size();
+        this.ids = ids;
+        this.normalizedIds = normalizedIds;
+        this.items = items;
+        this.ordinals = ordinals;
+        this.postings = postings;
+        this.facets = facets;
+        this.locales = locales;
+        this.removed = removed;
+        this.drift = drift;
+    }
+
+    /**
+     * @param modResolver  resolves the mod name of an item ID, called once per item
+     * @param benchOutputs bench ID -> IDs of the items crafted at that bench
+     */
+    @Nonnull
+    public static ItemSearchIndex build(@Nonnull Map<String, Item> itemMap, @Nonnull Function<String, String> modResolver,
+                                        @Nonnull Map<String, ? extends Collection<String>> benchOutputs) {
+        // Sort by ID so ordinals, and therefore result order, are stable between builds
+        List<String> sortedIds = new ArrayList<>(itemMap.size());
+        for (Map.Entry<String, Item> entry : itemMap.entrySet()) {
+            if (entry.getKey() != null && entry.getValue() != null) {
+                sortedIds.add(entry.getKey());
+            }
+        }
+        Collections.sort(sortedIds);
+
+        int size = sortedIds.size();
+        String[] ids = sortedIds.toArray(new String[0]);
+        Item[] items = new Item[size];
+        Map<Long, IntArrayList> builder = new HashMap<>();
+        LongOpenHashSet itemTrigrams = new LongOpenHashSet();
+        ItemFacets.Builder facets = new ItemFacets.Builder(size);
+
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            Item item = itemMap.get(ids[ordinal]);
+            items[ordinal] = item;
+
+            itemTrigrams.clear();
+            addTrigrams(normalize(ids[ordinal]), itemTrigrams);
+            for (long trigram : itemTrigrams) {
+                builder.computeIfAbsent(trigram, k -> new IntArrayList()).add(ordinal);
+            }
+
+            facets.addMod(modResolver.apply(ids[ordinal]), ordinal);
+            facets.addGroup(getItemGroupString(item), ordinal);
+            ItemResourceType[] resourceTypes = item.getResourceTypes();
+            if (resourceTypes != null) {
+                for (ItemResourceType resourceType : resourceTypes) {
+                    if (resourceType != null && resourceType.id != null) {
+                        facets.addResourceType(resourceType.id, ordinal);
+                    }
+                }
+            }
+        }
+
+        ItemSearchIndex index = new ItemSearchIndex(ids, items, toPostings(builder), facets.build());
+        return benchOutputs.isEmpty() ? index : index.withBenchOutputs(benchOutputs);
+    }
+
+    /**
+     * Same index with the bench facet rebuilt, used when recipes are (re)loaded without the items changing
+     *
+     * @param benchOutputs bench ID -> IDs of the items crafted at that bench
+     */
+    @Nonnull
+    public ItemSearchIndex withBenchOutputs(@Nonnull Map<String, ? extends Collection<String>> benchOutputs) {
+        Map<String, BitSet> byBench = new HashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> entry : benchOutputs.entrySet()) {
+            BitSet items = new BitSet(this.size);
+            for (String itemId : entry.getValue()) {
+                int ordinal = this.getOrdinal(itemId);
+                if (ordinal >= 0) {
+                    items.set(ordinal);
+                }
+            }
+            if (!items.isEmpty()) {
+                byBench.put(normalize(entry.getKey()), items);
+            }
+        }
+        return new ItemSearchIndex(this, this.facets.withBenches(byBench), this.locales); // Same items, so translated names stay valid
+    }
+
+    /**
+     * Same index with only the given benches' facets rebuilt, used when a few recipes are reloaded
+     *
+     * @param changedBenches bench ID -> IDs of all the items now crafted at that bench, empty when none
+     */
+    @Nonnull
+    public ItemSearchIndex withBenchChanges(@Nonnull Map<String, ? extends Collection<String>> changedBenches) {
+        if (changedBenches.isEmpty()) {
+            return this;
+        }
+        Map<String, BitSet> byBench = new HashMap<>();
+        for (Map.Entry<String, ? extends Collection<String>> entry : changedBenches.entrySet()) {
+            BitSet items = new BitSet(this.size);
+            for (String itemId : entry.getValue()) {
+                int ordinal = this.getOrdinal(itemId);
+                if (ordinal >= 0) {
+                    items.set(ordinal);
+                }
+            }
+            byBench.put(normalize(entry.getKey()), items);
+        }
+        return new ItemSearchIndex(this, this.facets.withBenchChanges(byBench), this.locales);
+    }
+
+    /**
+     * Same index with the given items added, updated or removed. Only the postings, facet values, pages and
+     * translated names of those items are copied; new items are appended after the existing ones and
+     * removed ones leave a hole, until enough have piled up that rebuilding in ID order is worth it.
+     *
+     * @param changedItemIds items that were loaded, new or updated
+     * @param removedItemIds items that were removed
+     * @param benchOutputs   bench ID -> IDs of the items crafted at that bench
+     */
+    @Nonnull
+    public ItemSearchIndex withItemChanges(@Nonnull Map<String, Item> itemMap, @Nonnull Collection<String> changedItemIds,
+                                           @Nonnull Collection<String> removedItemIds, @Nonnull Function<String, String> modResolver,
+                                           @Nonnull Map<String, ? extends Collection<String>> benchOutputs) {
+        List<String> appended = new ArrayList<>();
+        for (String itemId : changedItemIds) {
+            if (itemMap.get(itemId) != null && !this.ordinals.containsKey(itemId)) {
+                appended.add(itemId);
+            }
+        }
+        int drift = this.drift + appended.size() + removedItemIds.size();
+        if (this.size == 0 || drift > this.size / 8) {
+            return build(itemMap, modResolver, benchOutputs);
+        }
+        Collections.sort(appended);
+
+        int size = this.size + appended.size();
+        PagedArray.Editor<String> ids = this.ids.edit(size);
+        PagedArray.Editor<String> normalizedIds = this.normalizedIds.edit(size);
+        PagedArray.Editor<Item> items = this.items.edit(size);
+        Map<String, Integer> appendedOrdinals = new Object2ObjectOpenHashMap<>(appended.size());
+        PostingsPatch postings = new PostingsPatch(this.postings);
+        BitSet removed = this.removed != null ? (BitSet) this.removed.clone() : new BitSet(size);
+        ItemFacets.Patch facets = new ItemFacets.Patch(this.facets, size);
+        IntArrayList touched = new IntArrayList();
+
+        for (String itemId : removedItemIds) {
+            Integer ordinal = this.ordinals.get(itemId);
+            if (ordinal == null || removed.get(ordinal)) {
+                continue;
+            }
+            patchPostings(postings, ordinal, normalizedIds.get(ordinal), null);
+            facets.clear(ordinal);
+            removed.set(ordinal);
+            items.set(ordinal, null);
+            touched.add(ordinal.intValue());
+        }
+
+        int next = this.size;
+        for (String itemId : appended) {
+            ids.set(next, itemId);
+            normalizedIds.set(next, normalize(itemId));
+            appendedOrdinals.put(itemId, next);
+            next++;
+        }
+        LayeredMap<String, Integer> ordinals = this.ordinals.with(appendedOrdinals, Collections.emptyList());
+
+        for (String itemId : changedItemIds) {
+            Item item = itemMap.get(itemId);
+            Integer ordinal = ordinals.get(itemId);
+            if (item == null || ordinal == null) {
+                continue;
+            }
+            if (ordinal >= this.size || removed.get(ordinal)) {
+                // New or returning item: its ID was not indexed
+                patchPostings(postings, ordinal, null, normalizedIds.get(ordinal));
+                removed.clear(ordinal);
+            } else {
+                facets.clear(ordinal);
+            }
+            items.set(ordinal, item);
+            touched.add(ordinal.intValue());
+
+            facets.addMod(modResolver.apply(itemId), ordinal);
+            facets.addGroup(getItemGroupString(item), ordinal);
+            ItemResourceType[] resourceTypes = item.getResourceTypes();
+            if (resourceTypes != null) {
+                for (ItemResourceType resourceType : resourceTypes) {
+                    if (resourceType != null && resourceType.id != null) {
+                        facets.addResourceType(resourceType.id, ordinal);
+                    }
+                }
+            }
+            for (Map.Entry<String, ? extends Collection<String>> entry : benchOutputs.entrySet()) {
+                if (entry.getValue().contains(itemId)) {
+                    facets.addBench(entry.getKey(), ordinal);
+                }
+            }
+        }
+
+        // Translated names already built are patched for the touched items rather than dropped
+        PagedArray<Item> patchedItems = items.build();
+        Map<String, LocaleNames> locales = new ConcurrentHashMap<>();
+        for (Map.Entry<String, LocaleNames> entry : this.locales.entrySet()) {
+            locales.put(entry.getKey(), entry.getValue().withChanges(patchedItems, touched));
+        }
+
+        return new ItemSearchIndex(ids.build(), normalizedIds.build(), patchedItems, ordinals, postings.build(),
+                facets.build(), locales, removed.isEmpty() ? null : removed, drift);
+    }
+
+    /**
+     * Same index without any translated names, used when translations reload; each language is translated again
+     * the first time it is used
+     */
+    @Nonnull
+    public ItemSearchIndex withoutLocales() {
+        return new ItemSearchIndex(this, this.facets, new ConcurrentHashMap<>());
+    }
+
+    /**
+     * Unique to this index, as a cache key that does not keep the index alive
+     */
+    public long getVersion() {
+        return this.version;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    @Nonnull
+    public String getId(int ordinal) {
+        return this.ids.get(ordinal);
+    }
+
+    /**
+     * Item at an ordinal, or null when it was removed
+     */
+    @Nullable
+    public Item getItem(int ordinal) {
+        return this.items.get(ordinal);
+    }
+
+    /**
+     * Ordinal of an item, or -1 when it is not indexed or was removed
+     */
+    public int getOrdinal(@Nonnull String itemId) {
+        Integer ordinal = this.ordinals.get(itemId);
+        return ordinal != null && this.items.get(ordinal) != null ? ordinal : -1;
+    }
+
+    /**
+     * Translated name of an item, or null when it is not indexed or has no translation
+     */
+    @Nullable
+    public String getDisplayName(@Nullable String language, @Nonnull String itemId) {
+        int ordinal = this.getOrdinal(itemId);
+        return ordinal >= 0 ? this.getLocaleNames(language).getDisplayName(ordinal) : null;
+    }
+
+    /**
+     * Translated names in the language, built the first time it is used
+     */
+    @Nonnull
+    public LocaleNames getLocaleNames(@Nullable String language) {
+        String key = language != null ? language : "";
+        LocaleNames names = this.locales.get(key);
+        if (names == null) {
+            names = this.locales.computeIfAbsent(key, k -> this.buildLocaleNames(language));
+        }
+        return names;
+    }
+
+    @Nonnull
+    public ItemFacets getFacets() {
+        return this.facets;
+    }
+
+    /**
+     * Returns the ordinals of all items, in ordinal order
+     */
+    @Nonnull
+    public int[] all() {
+        if (this.removed != null) {
+            return toOrdinals(this.live(null));
+        }
+        int[] all = new int[this.size];
+        for (int i = 0; i < all.length; i++) {
+            all[i] = i;
+        }
+        return all;
+    }
+
+    /**
+     * Returns the ordinals of every item in the filter (all items when null) matching all the given terms,
+     * in ordinal order. A term matches when the translated name, item ID, item group or one of the
+     * resource type IDs contains it.
+     */
+    @Nonnull
+    public int[] search(@Nullable String language, @Nonnull String[] terms, @Nullable BitSet filter) {
+        if (this.removed != null) {
+            filter = this.live(filter);
+        }
+        String[] normalized = normalizeTerms(terms);
+        if (normalized.length == 0) {
+            return filter != null ? toOrdinals(filter) : this.all();
+        }
+
+        LocaleNames names = this.getLocaleNames(language);
+
+        // Longest terms first: they have the most trigrams and the shortest candidate lists
+        Arrays.sort(normalized, Comparator.comparingInt(String::length).reversed());
+
+        BitSet domain = filter;
+        for (String term : normalized) {
+            // Group and resource type matches come straight from the facet bitsets
+            BitSet termMatches = this.facets.matchingTerm(term);
+            if (domain != null) {
+                termMatches.and(domain);
+            }
+
+            if (term.length() >= 3) {
+                for (int ordinal : this.trigramCandidates(term, names)) {
+                    if ((domain == null || domain.get(ordinal)) && !termMatches.get(ordinal)
+                            && this.textMatches(names, ordinal, term)) {
+                        termMatches.set(ordinal);
+                    }
+                }
+            } else if (domain != null) {
+                for (int ordinal = domain.nextSetBit(0); ordinal >= 0; ordinal = domain.nextSetBit(ordinal + 1)) {
+                    if (!termMatches.get(ordinal) && this.textMatches(names, ordinal, term)) {
+                        termMatches.set(ordinal);
+                    }
+                }
+            } else {
+                for (int ordinal = 0; ordinal < this.size; ordinal++) {
+                    if (!termMatches.get(ordinal) && this.textMatches(names, ordinal, term)) {
+                        termMatches.set(ordinal);
+                    }
+                }
+            }
+
+            if (termMatches.isEmpty()) {
+                return NO_MATCHES;
+            }
+            domain = termMatches;
+        }
+        return toOrdinals(domain);
+    }
+
+    /**
+     * Keeps the candidates that match the term (or, when negated, that do not), in their given order.
+     * A term matches as in {@link #search(String, String[], BitSet)}.
+     */
+    @Nonnull
+    public int[] filter(@Nullable String language, @Nonnull int[] candidates, @Nonnull String term, boolean negated) {
+        String normalized = normalize(term.trim());
+        BitSet facetMatches = this.facets.matchingTerm(normalized);
+        LocaleNames names = this.getLocaleNames(language);
+        int[] matched = new int[candidates.length];
+        int count = 0;
+        for (int ordinal : candidates) {
+            boolean matches = facetMatches.get(ordinal) || this.textMatches(names, ordinal, normalized);
+            if (matches != negated) {
+                matched[count++] = ordinal;
+            }
+        }
+        return count == candidates.length ? candidates : Arrays.copyOf(matched, count);
+    }
+
+    /**
+     * Ordinals of all items, or of one mod's items, sorted by translated name in the language (item ID when
+     * untranslated, then item ID between equal names). Collated once per language and mod and shared, so the
+     * returned array must not be modified.
+     */
+    @Nonnull
+    public int[] getSortedOrdinals(@Nullable String language, @Nullable String modName) {
+        NameOrder order = this.getNameOrder(this.getLocaleNames(language));
+        if (modName == null) {
+            return order.ordinals;
+        }
+        int[] sorted = order.byMod.get(modName);
+        if (sorted == null) {
+            sorted = order.byMod.computeIfAbsent(modName, k -> {
+                BitSet mod = this.facets.getMod(k);
+                if (mod == null) {
+                    return NO_MATCHES;
+                }
+                int[] ordinals = new int[mod.cardinality()];
+                int count = 0;
+                for (int ordinal : order.ordinals) {
+                    if (mod.get(ordinal)) {
+                        ordinals[count++] = ordinal;
+                    }
+                }
+                return count == ordinals.length ? ordinals : Arrays.copyOf(ordinals, count);
+            });
+        }
+        return sorted;
+    }
+
+    /**
+     * The given ordinals as a new array, in the order of {@link #getSortedOrdinals(String, String)}
+     */
+    @Nonnull
+    public int[] sortByName(@Nullable String language, @Nonnull int[] ordinals) {
+        int[] positions = this.getNameOrder(this.getLocaleNames(language)).positions;
+        // (position, ordinal) packed into one key, so this is a primitive sort with no comparator
+        long[] keys = new long[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            keys[i] = ((long) positions[ordinals[i]] << 32) | ordinals[i];
+        }
+        Arrays.sort(keys);
+        int[] sorted = new int[ordinals.length];
+        for (int i = 0; i < keys.length; i++) {
+            sorted[i] = (int) keys[i];
+        }
+        return sorted;
+    }
+
+    /**
+     * Relevance rank of each match, lower ranks first: exact name, name prefix, name containing
+     * the whole query, and finally items that only matched on their ID, group or resource types
+     */
+    @Nonnull
+    public int[] rank(@Nullable String language, @Nonnull int[] ordinals, @Nonnull String[] terms) {
+        String phrase = String.join(" ", normalizeTerms(terms));
+        LocaleNames names = this.getLocaleNames(language);
+        int[] ranks = new int[ordinals.length];
+        for (int i = 0; i < ordinals.length; i++) {
+            String name = names.normalized.get(ordinals[i]);
+            if (name == null) {
+                ranks[i] = 3;
+            } else if (name.equals(phrase)) {
+                ranks[i] = 0;
+            } else if (name.startsWith(phrase)) {
+                ranks[i] = 1;
+            } else if (name.contains(phrase)) {
+                ranks[i] = 2;
+            } else {
+                ranks[i] = 3;
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Lowercase form with accents folded, so "Épée" and "epee" match each other
+     */
+    @Nonnull
+    public static String normalize(@Nonnull String text) {
+        String lower = text.toLowerCase(Locale.ENGLISH);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 0x80) {
+                // Composed again afterwards so scripts that decompose without accents (Hangul) are left as they were
+                String folded = DIACRITICS.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+                return Normalizer.normalize(folded, Normalizer.Form.NFC);
+            }
+        }
+        return lower;
+    }
+
+    @Nonnull
+    public static String[] normalizeTerms(@Nonnull String[] terms) {
+        List<String> normalized = new ArrayList<>(terms.length);
+        for (String term : terms) {
+            if (term != null && !term.isBlank()) {
+                normalized.add(normalize(term.trim()));
+            }
+        }
+        return normalized.toArray(new String[0]);
+    }
+
+    @Nonnull
+    public static String getItemGroupString(@Nonnull Item item) {
+        if (item.getTool() != null) return "Tool";
+        if (item.getWeapon() != null) return "Weapon";
+        if (item.getArmor() != null) return "Armor";
+        if (item.getGlider() != null) return "Glider";
+        if (item.getUtility() != null) return "Utility";
+        if (item.getPortalKey() != null) return "PortalKey";
+        if (item.hasBlockType()) return "Block";
+        return "Item";
+    }
+
+    /**
+     * The filter (all items when null) without the removed items, as a new bitset
+     */
+    private BitSet live(@Nullable BitSet filter) {
+        BitSet live;
+        if (filter != null) {
+            live = (BitSet) filter.clone();
+        } else {
+            live = new BitSet(this.size);
+            live.set(0, this.size);
+        }
+        if (this.removed != null) {
+            live.andNot(this.removed);
+        }
+        return live;
+    }
+
+    private boolean textMatches(LocaleNames names, int ordinal, String term) {
+        String name = names.normalized.get(ordinal);
+        return (name != null && name.contains(term)) || this.normalizedIds.get(ordinal).contains(term);
+    }
+
+    private int[] trigramCandidates(String term, LocaleNames names) {
+        int[] candidates = null;
+        for (int i = 0; i + 3 <= term.length(); i++) {
+            long trigram = trigram(term, i);
+            int[] idPosting = this.postings.get(trigram);
+            int[] namePosting = names.postings.get(trigram);
+            int[] posting = union(idPosting != null ? idPosting : NO_MATCHES, namePosting != null ? namePosting : NO_MATCHES);
+            candidates = candidates == null ? posting : intersect(candidates, posting);
+            if (candidates.length == 0) {
+                break;
+            }
+        }
+        return candidates != null ? candidates : NO_MATCHES;
+    }
+
+    private NameOrder getNameOrder(LocaleNames names) {
+        NameOrder order = names.order;
+        if (order == null) {
+            synchronized (names) {
+                order = names.order;
+                if (order == null) {
+                    order = this.collate(names);
+                    names.order = order;
+                }
+            }
+        }
+        return order;
+    }
+
+    private NameOrder collate(LocaleNames names) {
+        int[] ordinals = this.all();
+        CollationKey[] keys = new CollationKey[this.size];
+        for (int ordinal : ordinals) {
+            String name = names.display.get(ordinal);
+            keys[ordinal] = names.getCollationKey(name != null ? name : this.ids.get(ordinal));
+        }
+        IntArrays.quickSort(ordinals, (a, b) -> {
+            int compare = keys[a].compareTo(keys[b]);
+            return compare != 0 ? compare : this.ids.get(a).compareTo(this.ids.get(b));
+        });
+
+        // Removed items sort last, should one ever be passed in
+        int[] positions = new int[this.size];
+        Arrays.fill(positions, Integer.MAX_VALUE);
+        for (int i = 0; i < ordinals.length; i++) {
+            positions[ordinals[i]] = i;
+        }
+        return new NameOrder(ordinals, positions);
+    }
+
+    private LocaleNames buildLocaleNames(@Nullable String language) {
+        String[] display = new String[this.size];
+        String[] normalized = new String[this.size];
+        Map<Long, IntArrayList> builder = new HashMap<>();
+        LongOpenHashSet nameTrigrams = new LongOpenHashSet();
+        I18nModule i18n = I18nModule.get();
+
+        for (int ordinal = 0; ordinal < this.size; ordinal++) {
+            display[ordinal] = translate(i18n, language, this.items.get(ordinal));
+            if (display[ordinal] == null) {
+                continue;
+            }
+            normalized[ordinal] = normalize(display[ordinal]);
+
+            nameTrigrams.clear();
+            addTrigrams(normalized[ordinal], nameTrigrams);
+            for (long trigram : nameTrigrams) {
+                builder.computeIfAbsent(trigram, k -> new IntArrayList()).add(ordinal);
+            }
+        }
+        return new LocaleNames(language, PagedArray.of(display), PagedArray.of(normalized), toPostings(builder),
+                new ConcurrentHashMap<>());
+    }
+
+    @Nullable
+    private static String translate(I18nModule i18n, @Nullable String language, @Nullable Item item) {
+        String translationKey = item != null ? item.getTranslationKey() : null;
+        return translationKey != null ? i18n.getMessage(language, translationKey) : null;
+    }
+
+    /**
+     * Moves an ordinal from the postings of the old text's trigrams to those of the new text.
+     * Postings are shared with earlier indexes, so changed ones are replaced, never modified.
+     */
+    private static void patchPostings(PostingsPatch postings, int ordinal,
+                                      @Nullable String oldText, @Nullable String newText) {
+        LongOpenHashSet oldTrigrams = new LongOpenHashSet();
+        LongOpenHashSet newTrigrams = new LongOpenHashSet();
+        if (oldText != null) {
+            addTrigrams(oldText, oldTrigrams);
+        }
+        if (newText != null) {
+            addTrigrams(newText, newTrigrams);
+        }
+        for (long trigram : oldTrigrams) {
+            if (!newTrigrams.contains(trigram)) {
+                int[] posting = postings.get(trigram);
+                int index = posting != null ? Arrays.binarySearch(posting, ordinal) : -1;
+                if (index < 0) {
+                    continue;
+                }
+                if (posting.length == 1) {
+                    postings.remove(trigram);
+                } else {
+                    int[] patched = new int[posting.length - 1];
+                    System.arraycopy(posting, 0, patched, 0, index);
+                    System.arraycopy(posting, index + 1, patched, index, posting.length - index - 1);
+                    postings.put(trigram, patched);
+                }
+            }
+        }
+        for (long trigram : newTrigrams) {
+            if (!oldTrigrams.contains(trigram)) {
+                int[] posting = postings.get(trigram);
+                if (posting == null) {
+                    postings.put(trigram, new int[]{ordinal});
+                    continue;
+                }
+                int index = Arrays.binarySearch(posting, ordinal);
+                if (index >= 0) {
+                    continue;
+                }
+                index = -index - 1;
+                int[] patched = new int[posting.length + 1];
+                System.arraycopy(posting, 0, patched, 0, index);
+                patched[index] = ordinal;
+                System.arraycopy(posting, index, patched, index + 1, posting.length - index);
+                postings.put(trigram, patched);
+            }
+        }
+    }
+
+    private static int[] toOrdinals(BitSet bits) {
+        return bits.stream().toArray();
+    }
+
+    private static LayeredMap<Long, int[]> toPostings(Map<Long, IntArrayList> builder) {
+        Map<Long, int[]> postings = new Object2ObjectOpenHashMap<>(builder.size());
+        for (Map.Entry<Long, IntArrayList> entry : builder.entrySet()) {
+            postings.put(entry.getKey(), entry.getValue().toIntArray());
+        }
+        return LayeredMap.of(postings);
+    }
+
+    private static void addTrigrams(String text, LongOpenHashSet out) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            out.add(trigram(text, i));
+        }
+    }
+
+    private static long trigram(String text, int start) {
+        return ((long) text.charAt(start) << 32) | ((long) text.charAt(start + 1) << 16) | text.charAt(start + 2);
+    }
+
+    private static int[] intersect(int[] a, int[] b) {
+        int[] out = new int[Math.min(a.length, b.length)];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                i++;
+            } else if (a[i] > b[j]) {
+                j++;
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    private static int[] union(int[] a, int[] b) {
+        if (a.length == 0) return b;
+        if (b.length == 0) return a;
+        int[] out = new int[a.length + b.length];
+        int i = 0, j = 0, n = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j]) {
+                out[n++] = a[i++];
+            } else if (a[i] > b[j]) {
+                out[n++] = b[j++];
+            } else {
+                out[n++] = a[i];
+                i++;
+                j++;
+            }
+        }
+        while (i < a.length) out[n++] = a[i++];
+        while (j < b.length) out[n++] = b[j++];
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    /**
+     * Postings of the next index: changed ones are collected here and layered over the previous postings once done
+     */
+    private static final class PostingsPatch {
+        private final LayeredMap<Long, int[]> source;
+        private final Long2ObjectOpenHashMap<int[]> changes = new Long2ObjectOpenHashMap<>(); // Null value once removed
+
+        private PostingsPatch(LayeredMap<Long, int[]> source) {
+            this.source = source;
+        }
+
+        @Nullable
+        private int[] get(long trigram) {
+            return this.changes.containsKey(trigram) ? this.changes.get(trigram) : this.source.get(trigram);
+        }
+
+        private void put(long trigram, @Nonnull int[] posting) {
+            this.changes.put(trigram, posting);
+        }
+
+        private void remove(long trigram) {
+            this.changes.put(trigram, null);
+        }
+
+        private LayeredMap<Long, int[]> build() {
+            Map<Long, int[]> puts = new Object2ObjectOpenHashMap<>(this.changes.size());
+            List<Long> removals = new ArrayList<>();
+            for (Long2ObjectMap.Entry<int[]> entry : this.changes.long2ObjectEntrySet()) {
+                if (entry.getValue() != null) {
+                    puts.put(entry.getLongKey(), entry.getValue());
+                } else {
+                    removals.add(entry.getLongKey());
+                }
+            }
+            return this.source.with(puts, removals);
+        }
+    }
+
+    /**
+     * Live ordinals sorted by translated name, and the same order per mod
+     */
+    private static final class NameOrder {
+        private final int[] ordinals;
+        private final int[] positions; // Index in ordinals per ordinal
+        private final Map<String, int[]> byMod = new ConcurrentHashMap<>();
+
+        private NameOrder(int[] ordinals, int[] positions) {
+            this.ordinals = ordinals;
+            this.positions = positions;
+        }
+    }
+
+    /**
+     * Translated names in one language: every item by ordinal, as displayed and normalized for search, and other
+     * translation keys (such as NPC roles) translated once on first use. Dropped with {@link #withoutLocales()}
+     * when translations reload. Names sort with the language's collation rules, ignoring case.
+     */
+    public static final class LocaleNames {
+        private static final String NONE = ""; // Cached missing translation
+
+        @Nullable
+        private final String language;
+        private final PagedArray<String> display; // Translated name per ordinal, null when untranslated
+        private final PagedArray<String> normalized; // Same, normalized
+        private final LayeredMap<Long, int[]> postings; // Trigrams of the normalized names
+        private final Map<String, String> messages; // Translation key -> message
+        private final Collator collator; // Not thread safe, locked while in use
+        @Nullable
+        private volatile NameOrder order; // Collated on first use, not carried over when items change
+
+        private LocaleNames(@Nullable String language, PagedArray<String> display, PagedArray<String> normalized,
+                            LayeredMap<Long, int[]> postings, Map<String, String> messages) {
+            this.language = language;
+            this.display = display;
+            this.normalized = normalized;
+            this.postings = postings;
+            this.messages = messages;
+            this.collator = Collator.getInstance(language != null ? Locale.forLanguageTag(language) : Locale.ROOT);
+            this.collator.setStrength(Collator.SECONDARY);
+        }
+
+        @Nullable
+        public String getDisplayName(int ordinal) {
+            return ordinal < this.display.size() ? this.display.get(ordinal) : null;
+        }
+
+        @Nullable
+        public String getNormalizedName(int ordinal) {
+            return ordinal < this.normalized.size() ? this.normalized.get(ordinal) : null;
+        }
+
+        /**
+         * Message of any translation key in this language, or null when there is none
+         */
+        @Nullable
+        public String translate(@Nullable String translationKey) {
+            if (translationKey == null) {
+                return null;
+            }
+            String message = this.messages.get(translationKey);
+            if (message == null) {
+                message = this.messages.computeIfAbsent(translationKey, key -> {
+                    String translated = I18nModule.get().getMessage(this.language, key);
+                    return translated != null ? translated : NONE;
+                });
+            }
+            return message.isEmpty() ? null : message;
+        }
+
+        /**
+         * Key to sort a name in this language with; comparing keys is much cheaper than collating the names each time
+         */
+        @Nonnull
+        public CollationKey getCollationKey(@Nonnull String text) {
+            synchronized (this.collator) {
+                return this.collator.getCollationKey(text);
+            }
+        }
+
+        /**
+         * Same names with the given ordinals translated again from the (new) items
+         */
+        private LocaleNames withChanges(PagedArray<Item> items, IntArrayList ordinals) {
+            PagedArray.Editor<String> display = this.display.edit(items.size());
+            PagedArray.Editor<String> normalized = this.normalized.edit(items.size());
+            PostingsPatch postings = new PostingsPatch(this.postings);
+            I18nModule i18n = I18nModule.get();
+            for (int ordinal : ordinals) {
+                String name = ItemSearchIndex.translate(i18n, this.language, items.get(ordinal));
+                String normalizedName = name != null ? normalize(name) : null;
+                if (!Objects.equals(normalizedName, normalized.get(ordinal))) {
+                    patchPostings(postings, ordinal, normalized.get(ordinal), normalizedName);
+                    normalized.set(ordinal, normalizedName);
+                }
+                display.set(ordinal, name);
+            }
+            // Translations have not changed, only items, so other keys stay valid
+            return new LocaleNames(this.language, display.build(), normalized.build(), postings.build(), this.messages);
+        }
+    }
+}
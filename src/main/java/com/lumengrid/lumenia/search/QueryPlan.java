@@ -0,0 +1,299 @@
+package com.lumengrid.lumenia.search;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+
+/**
+ * A search query compiled once into the clauses it filters by.
+ * Besides plain text terms the query understands:
+ * <ul>
+ *     <li>{@code @Mod} - items added by a mod</li>
+ *     <li>{@code #Wood} - items with a resource type</li>
+ *     <li>{@code type:Weapon} - items in an item group</li>
+ *     <li>{@code bench:Workbench} - items crafted at a bench</li>
+ *     <li>{@code "iron ore"} - a phrase matched as a single term</li>
+ *     <li>{@code -term} - excludes items matching any of the above</li>
+ * </ul>
+ * Facet clauses run first as bitset operations, smallest set first; text terms then only scan what is left
+ * and exclusions are checked last, on the fewest candidates.
+ */
+public final class QueryPlan {
+    private static final int[] NO_MATCHES = new int[0];
+
+    public static final QueryPlan EMPTY = compile("");
+
+    private final String[] terms; // Positive text terms, in query order
+    private final Set<String> excludedTerms;
+    private final Set<FacetClause> facetClauses;
+    private final String canonical;
+
+    private QueryPlan(List<String> terms, Set<String> excludedTerms, Set<FacetClause> facetClauses) {
+        this.terms = terms.toArray(new String[0]);
+        this.excludedTerms = excludedTerms;
+        this.facetClauses = facetClauses;
+
+        // Text terms keep their order since it affects ranking; the other clauses are sorted
+        List<String> clauses = new ArrayList<>();
+        for (String excluded : excludedTerms) {
+            clauses.add("-" + quote(excluded));
+        }
+        for (FacetClause clause : facetClauses) {
+            clauses.add(clause.toString());
+        }
+        Collections.sort(clauses);
+        StringJoiner joiner = new StringJoiner(" ");
+        for (String term : this.terms) {
+            joiner.add(quote(term));
+        }
+        for (String clause : clauses) {
+            joiner.add(clause);
+        }
+        this.canonical = joiner.toString();
+    }
+
+    @Nonnull
+    public static QueryPlan compile(@Nonnull String query) {
+        List<String> terms = new ArrayList<>();
+        Set<String> excludedTerms = new TreeSet<>();
+        Set<FacetClause> facetClauses = new TreeSet<>();
+
+        int length = query.length();
+        int i = 0;
+        while (i < length) {
+            if (Character.isWhitespace(query.charAt(i))) {
+                i++;
+                continue;
+            }
+
+            boolean negated = query.charAt(i) == '-';
+            if (negated) {
+                i++;
+            }
+
+            ItemFacets.Facet facet = null;
+            if (query.startsWith("@", i)) {
+                facet = ItemFacets.Facet.MOD;
+                i += 1;
+            } else if (query.startsWith("#", i)) {
+                facet = ItemFacets.Facet.RESOURCE_TYPE;
+                i += 1;
+            } else if (query.regionMatches(true, i, "type:", 0, 5)) {
+                facet = ItemFacets.Facet.GROUP;
+                i += 5;
+            } else if (query.regionMatches(true, i, "bench:", 0, 6)) {
+                facet = ItemFacets.Facet.BENCH;
+                i += 6;
+            }
+
+            // The value runs up to the next whitespace outside of quotes
+            StringBuilder value = new StringBuilder();
+            boolean quoted = false;
+            while (i < length) {
+                char c = query.charAt(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (!quoted && Character.isWhitespace(c)) {
+                    break;
+                } else {
+                    value.append(c);
+                }
+                i++;
+            }
+
+            // Ignore operators without a value, e.g. while the player is still typing "@"
+            String normalized = ItemSearchIndex.normalize(value.toString().trim());
+            if (normalized.isEmpty()) {
+                continue;
+            }
+
+            if (facet != null) {
+                facetClauses.add(new FacetClause(facet, normalized, negated));
+            } else if (negated) {
+                excludedTerms.add(normalized);
+            } else if (!terms.contains(normalized)) {
+                terms.add(normalized);
+            }
+        }
+        return new QueryPlan(terms, excludedTerms, facetClauses);
+    }
+
+    public boolean isEmpty() {
+        return this.terms.length == 0 && this.excludedTerms.isEmpty() && this.facetClauses.isEmpty();
+    }
+
+    /**
+     * Positive text terms in query order, used to rank the matches
+     */
+    @Nonnull
+    public String[] getTerms() {
+        return this.terms.clone();
+    }
+
+    /**
+     * Normalized form of the query, equal for queries that select the same items in the same order
+     */
+    @Nonnull
+    public String getCanonical() {
+        return this.canonical;
+    }
+
+    /**
+     * Returns the ordinals of the items in the filter (all items when null) matching every clause, in ordinal order
+     */
+    @Nonnull
+    public int[] execute(@Nonnull ItemSearchIndex index, @Nullable String language, @Nullable BitSet filter) {
+        ItemFacets facets = index.getFacets();
+
+        List<BitSet> required = new ArrayList<>();
+        if (filter != null) {
+            required.add(filter);
+        }
+        BitSet excluded = null;
+        for (FacetClause clause : this.facetClauses) {
+            BitSet selected = facets.select(clause.facet, clause.value);
+            if (clause.negated) {
+                if (excluded == null) {
+                    excluded = selected;
+                } else {
+                    excluded.or(selected);
+                }
+            } else if (selected.isEmpty()) {
+                return NO_MATCHES;
+            } else {
+                required.add(selected);
+            }
+        }
+
+        BitSet domain = null;
+        if (!required.isEmpty() || excluded != null) {
+            domain = new BitSet(index.size());
+            if (required.isEmpty()) {
+                domain.set(0, index.size());
+            } else {
+                // Intersect starting from the most selective facet
+                required.sort(Comparator.comparingInt(BitSet::cardinality));
+                domain.or(required.get(0));
+                for (int i = 1; i < required.size() && !domain.isEmpty(); i++) {
+                    domain.and(required.get(i));
+                }
+            }
+            if (excluded != null) {
+                domain.andNot(excluded);
+            }
+            if (domain.isEmpty()) {
+                return NO_MATCHES;
+            }
+        }
+
+        int[] matches = index.search(language, this.terms, domain);
+        for (String term : this.excludedTerms) {
+            if (matches.length == 0) {
+                break;
+            }
+            matches = index.filter(language, matches, term, true);
+        }
+        return matches;
+    }
+
+    /**
+     * A plan refines a previous one when it keeps all of its facet clauses and exclusions, and every previous
+     * text term is contained in one of the new terms, e.g. "iro @mod" to "iron @mod".
+     * Its matches are then a subset of the previous matches.
+     */
+    public boolean refines(@Nullable QueryPlan previous) {
+        if (previous == null || previous.isEmpty()) {
+            return false;
+        }
+        if (!this.facetClauses.equals(previous.facetClauses) || !this.excludedTerms.equals(previous.excludedTerms)) {
+            return false;
+        }
+        for (String previousTerm : previous.terms) {
+            boolean covered = false;
+            for (String term : this.terms) {
+                if (term.contains(previousTerm)) {
+                    covered = true;
+                    break;
+                }
+            }
+            if (!covered) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Narrows the matches of a previous plan down to the matches of this one.
+     * Only valid when {@link #refines(QueryPlan)} holds for the previous plan.
+     */
+    @Nonnull
+    public int[] refine(@Nonnull ItemSearchIndex index, @Nullable String language,
+                        @Nonnull int[] previousMatches, @Nonnull QueryPlan previous) {
+        // Every previous match already satisfies the clauses and terms it was searched with
+        Set<String> satisfied = new HashSet<>(Arrays.asList(previous.terms));
+        int[] candidates = previousMatches;
+        for (String term : this.terms) {
+            if (candidates.length == 0) {
+                break;
+            }
+            if (!satisfied.contains(term)) {
+                candidates = index.filter(language, candidates, term, false);
+            }
+        }
+        return candidates;
+    }
+
+    @Override
+    public String toString() {
+        return this.canonical;
+    }
+
+    private static String quote(String value) {
+        return value.indexOf(' ') >= 0 ? "\"" + value + "\"" : value;
+    }
+
+    private static final class FacetClause implements Comparable<FacetClause> {
+        private final ItemFacets.Facet facet;
+        private final String value;
+        private final boolean negated;
+
+        private FacetClause(ItemFacets.Facet facet, String value, boolean negated) {
+            this.facet = facet;
+            this.value = value;
+            this.negated = negated;
+        }
+
+        @Override
+        public int compareTo(FacetClause other) {
+            int result = this.facet.compareTo(other.facet);
+            if (result == 0) {
+                result = Boolean.compare(this.negated, other.negated);
+            }
+            return result != 0 ? result : this.value.compareTo(other.value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof FacetClause other)) return false;
+            return this.facet == other.facet && this.negated == other.negated && this.value.equals(other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.facet, this.value, this.negated);
+        }
+
+        @Override
+        public String toString() {
+            String prefix = switch (this.facet) {
+                case MOD -> "@";
+                case RESOURCE_TYPE -> "#";
+                case GROUP -> "type:";
+                case BENCH -> "bench:";
+            };
+            return (this.negated ? "-" : "") + prefix + quote(this.value);
+        }
+    }
+}
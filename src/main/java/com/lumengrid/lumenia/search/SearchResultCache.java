@@ -0,0 +1,166 @@
+package com.lumengrid.lumenia.search;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Server-wide LRU cache of item grid results, shared by every open GUI.
+ * Keyed by language, mod filter and normalized query; the cache is split into independently locked
+ * segments so players searching at the same time rarely contend.
+ */
+public final class SearchResultCache {
+    private static final int SEGMENTS = 16;
+
+    private final Segment[] segments;
+    private final int maxSize;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public SearchResultCache(int maxSize) {
+        this.maxSize = Math.max(0, maxSize);
+        int segmentSize = (this.maxSize + SEGMENTS - 1) / SEGMENTS;
+        this.segments = new Segment[SEGMENTS];
+        for (int i = 0; i < SEGMENTS; i++) {
+            this.segments[i] = new Segment(segmentSize);
+        }
+    }
+
+    /**
+     * Returns the cached results for a query, or null if they are missing
+     */
+    @Nullable
+    public SearchResults get(@Nonnull Key key) {
+        if (this.maxSize == 0) {
+            return null;
+        }
+        Segment segment = this.segmentFor(key);
+        SearchResults entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+        }
+        if (entry == null) {
+            this.misses.increment();
+            return null;
+        }
+        this.hits.increment();
+        return entry;
+    }
+
+    public void put(@Nonnull Key key, @Nonnull SearchResults results) {
+        if (this.maxSize == 0) {
+            return;
+        }
+        Segment segment = this.segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, results);
+        }
+    }
+
+    /**
+     * Drops every cached result, called whenever a new search index is published so old results do not linger
+     */
+    public void invalidate() {
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Segment segment : this.segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    public int getMaxSize() {
+        return this.maxSize;
+    }
+
+    public long getHits() {
+        return this.hits.sum();
+    }
+
+    public long getMisses() {
+        return this.misses.sum();
+    }
+
+    public long getEvictions() {
+        return this.evictions.sum();
+    }
+
+    @Nonnull
+    public String describeStats() {
+        long hitCount = this.getHits();
+        long total = hitCount + this.getMisses();
+        double hitRate = total == 0 ? 0.0D : (double) hitCount / total * 100.0D;
+        return String.format("size=%d/%d hits=%d misses=%d evictions=%d hitRate=%.1f%%",
+                this.size(), this.maxSize, hitCount, this.getMisses(), this.getEvictions(), hitRate);
+    }
+
+    private Segment segmentFor(Key key) {
+        int hash = key.hashCode();
+        return this.segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * Cache key: version of the search index, language, mod filter and the canonical form of the compiled query,
+     * so that "iron ore" and " Iron  Ore" or "@mod #wood" and "#wood @mod" share an entry, and pages pinned to
+     * different indexes keep separate entries
+     */
+    public static final class Key {
+        private final long indexVersion;
+        private final String language;
+        private final String modFilter;
+        private final String query;
+        private final int hash;
+
+        public Key(@Nonnull ItemSearchIndex index, @Nullable String language, @Nullable String modFilter, @Nonnull QueryPlan plan) {
+            this.indexVersion = index.getVersion();
+            this.language = language != null ? language : "";
+            this.modFilter = modFilter != null ? modFilter : "";
+            this.query = plan.getCanonical();
+            this.hash = Objects.hash(this.indexVersion, this.language, this.modFilter, this.query);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key other)) return false;
+            return this.hash == other.hash && this.indexVersion == other.indexVersion && this.language.equals(other.language)
+                    && this.modFilter.equals(other.modFilter) && this.query.equals(other.query);
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+    }
+
+    private final class Segment extends LinkedHashMap<Key, SearchResults> {
+        private final int capacity;
+
+        private Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, SearchResults> eldest) {
+            if (this.size() > this.capacity) {
+                SearchResultCache.this.evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
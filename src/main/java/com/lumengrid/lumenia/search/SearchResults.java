@@ -0,0 +1,111 @@
+package com.lumengrid.lumenia.search;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Arrays;
+
+/**
+ * Compact, ordered result set of an item grid query.
+ * Ranked results are only sorted as far as the requested pages need: the keys are heapified once and
+ * each page pops just its own rows, so paging costs O(page log n) instead of a full sort.
+ */
+public final class SearchResults {
+    private final int[] ordinals; // Matching item ordinals, in display order between equal ranks
+    @Nullable
+    private final int[] ranks; // Rank per entry of ordinals (lower first), null when ordinals are in display order
+
+    // Lazily materialized sort state for ranked results
+    private long[] heap;
+    private int heapSize;
+    private int[] sortedPrefix;
+    private int sortedCount;
+
+    private SearchResults(int[] ordinals, @Nullable int[] ranks) {
+        this.ordinals = ordinals;
+        this.ranks = ranks;
+    }
+
+    @Nonnull
+    public static SearchResults unranked(@Nonnull int[] ordinals) {
+        return new SearchResults(ordinals, null);
+    }
+
+    @Nonnull
+    public static SearchResults ranked(@Nonnull int[] ordinals, @Nonnull int[] ranks) {
+        return new SearchResults(ordinals, ranks);
+    }
+
+    public int size() {
+        return this.ordinals.length;
+    }
+
+    public int pageCount(int pageSize) {
+        return (this.ordinals.length + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * Returns the ordinals shown on the given page, in display order
+     */
+    @Nonnull
+    public int[] page(int page, int pageSize) {
+        int start = Math.max(0, page) * pageSize;
+        int end = Math.min(start + pageSize, this.ordinals.length);
+        if (start >= end) {
+            return new int[0];
+        }
+        if (this.ranks == null) {
+            return Arrays.copyOfRange(this.ordinals, start, end);
+        }
+        synchronized (this) {
+            this.sortUpTo(end);
+            return Arrays.copyOfRange(this.sortedPrefix, start, end);
+        }
+    }
+
+    private void sortUpTo(int count) {
+        if (this.heap == null) {
+            // (rank, index) packed into one key, so ties keep the given order
+            this.heap = new long[this.ordinals.length];
+            for (int i = 0; i < this.ordinals.length; i++) {
+                this.heap[i] = ((long) this.ranks[i] << 32) | i;
+            }
+            this.heapSize = this.heap.length;
+            for (int i = (this.heapSize >>> 1) - 1; i >= 0; i--) {
+                this.siftDown(i);
+            }
+            this.sortedPrefix = new int[this.ordinals.length];
+        }
+
+        while (this.sortedCount < count) {
+            long top = this.heap[0];
+            this.heap[0] = this.heap[--this.heapSize];
+            this.siftDown(0);
+            this.sortedPrefix[this.sortedCount++] = this.ordinals[(int) top];
+        }
+
+        if (this.heapSize == 0) {
+            this.heap = new long[0];
+        }
+    }
+
+    private void siftDown(int i) {
+        long[] h = this.heap;
+        int size = this.heapSize;
+        long value = h[i];
+        while (true) {
+            int child = (i << 1) + 1;
+            if (child >= size) {
+                break;
+            }
+            if (child + 1 < size && h[child + 1] < h[child]) {
+                child++;
+            }
+            if (h[child] >= value) {
+                break;
+            }
+            h[i] = h[child];
+            i = child;
+        }
+        h[i] = value;
+    }
+}
@@ -0,0 +1,101 @@
+package com.lumengrid.lumenia.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of no-argument getters we can only reach by name, for server APIs that differ between versions.
+ * Each method is looked up once per class and bound as a {@link MethodHandle}; methods that do not exist are
+ * remembered as well, so probing a missing name costs a map lookup instead of a failed reflective lookup.
+ */
+public final class Accessors {
+    private static final ClassValue<Map<String, Accessor>> ACCESSORS = new ClassValue<>() {
+        @Override
+        protected Map<String, Accessor> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    };
+
+    private Accessors() {
+    }
+
+    /**
+     * The public no-argument method with the given name, or {@link Accessor#MISSING}
+     */
+    @Nonnull
+    public static Accessor find(@Nonnull Class<?> type, @Nonnull String methodName) {
+        return ACCESSORS.get(type).computeIfAbsent(methodName, name -> Accessor.lookup(type, name));
+    }
+
+    /**
+     * Calls the given getters on the target in order and returns the first non-null result, or null when none has one
+     */
+    @Nullable
+    public static Object getFirst(@Nonnull Object target, @Nonnull String... methodNames) {
+        for (String methodName : methodNames) {
+            Object value = get(target, methodName);
+            if (value != null) {
+                return value;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Calls the named getter on the target, or returns null when it does not exist or fails
+     */
+    @Nullable
+    public static Object get(@Nonnull Object target, @Nonnull String methodName) {
+        return find(target.getClass(), methodName).get(target);
+    }
+
+    public static final class Accessor {
+        public static final Accessor MISSING = new Accessor(null);
+
+        private static final MethodType GETTER = MethodType.methodType(Object.class, Object.class);
+
+        @Nullable
+        private final MethodHandle handle;
+
+        private Accessor(@Nullable MethodHandle handle) {
+            this.handle = handle;
+        }
+
+        private static Accessor lookup(Class<?> type, String methodName) {
+            try {
+                Method method = type.getMethod(methodName);
+                if (method.getParameterCount() != 0 || method.getReturnType() == void.class) {
+                    return MISSING;
+                }
+                return new Accessor(MethodHandles.publicLookup().unreflect(method).asType(GETTER));
+            } catch (NoSuchMethodException | IllegalAccessException | SecurityException _) {
+                return MISSING;
+            }
+        }
+
+        public boolean isPresent() {
+            return this.handle != null;
+        }
+
+        /**
+         * Calls the getter on the target; primitives come back boxed. Null when missing or when the call throws.
+         */
+        @Nullable
+        public Object get(@Nonnull Object target) {
+            if (this.handle == null) {
+                return null;
+            }
+            try {
+                return (Object) this.handle.invokeExact(target);
+            } catch (Throwable _) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.lumengrid.lumenia.util;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Length-prefixed strings and arrays for the binary cache files. Files are written with a {@link DataOutputStream}
+ * and read back from a (usually memory-mapped) {@link ByteBuffer}, both big-endian.
+ */
+public final class BinaryIO {
+    private BinaryIO() {
+    }
+
+    /**
+     * Writes a UTF-8 string; null is written as length -1
+     */
+    public static void writeString(@Nonnull DataOutputStream out, @Nullable String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Nullable
+    public static String readString(@Nonnull ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    public static void writeStrings(@Nonnull DataOutputStream out, @Nonnull String[] values) throws IOException {
+        out.writeInt(values.length);
+        for (String value : values) {
+            writeString(out, value);
+        }
+    }
+
+    @Nonnull
+    public static String[] readStrings(@Nonnull ByteBuffer in) {
+        String[] values = new String[in.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = readString(in);
+        }
+        return values;
+    }
+
+    public static void writeInts(@Nonnull DataOutputStream out, @Nonnull int[] values) throws IOException {
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    /**
+     * Reads an int array with one bulk copy out of the buffer
+     */
+    @Nonnull
+    public static int[] readInts(@Nonnull ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+}
@@ -0,0 +1,83 @@
+package com.lumengrid.lumenia;
+
+import com.hypixel.hytale.assetstore.map.DefaultAssetMap;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.lumengrid.lumenia.index.RecipeGraph;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.MockedStatic;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IndexCacheTest {
+    @TempDir
+    Path dir;
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void recipeHashFollowsRecipeFiles() throws IOException {
+        Path swords = Files.writeString(this.dir.resolve("Swords.json"), "{}");
+        DefaultAssetMap<String, CraftingRecipe> assetMap = mock(DefaultAssetMap.class);
+        when(assetMap.getPath("Sword")).thenReturn(swords);
+        when(assetMap.getPath("Dagger")).thenReturn(swords);
+
+        try (MockedStatic<CraftingRecipe> recipes = mockStatic(CraftingRecipe.class)) {
+            recipes.when(CraftingRecipe::getAssetMap).thenReturn(assetMap);
+            long hash = IndexCache.hashRecipes(List.of("Sword", "Dagger", "Generated"));
+
+            assertEquals(hash, IndexCache.hashRecipes(List.of("Generated", "Dagger", "Sword")));
+            assertNotEquals(hash, IndexCache.hashRecipes(List.of("Sword", "Dagger")));
+
+            Files.writeString(swords, "{\"Input\": []}");
+            Files.setLastModifiedTime(swords, FileTime.fromMillis(Files.getLastModifiedTime(swords).toMillis() + 1000));
+            assertNotEquals(hash, IndexCache.hashRecipes(List.of("Sword", "Dagger", "Generated")));
+        }
+    }
+
+    @Test
+    void writesOnlyOnFlush() throws IOException {
+        Path file = this.dir.resolve(IndexCache.FILE_NAME);
+        IndexCache cache = IndexCache.open(file);
+        cache.putMobLoot(Map.of("Trork", new MobRoleInfo("Trork", 7, "npc.trork", "Trork_Model", "Drops_Trork")),
+                Map.of("Drops_Trork", new MobDropTable("Drops_Trork", 9, new String[]{"Bone"}, new int[]{1}, new int[]{2})));
+        RecipeGraph.Builder recipes = new RecipeGraph.Builder();
+        recipes.put("Stick", List.of("Stick"), List.of("Plank"));
+        cache.putRecipeGraph(1, 2, recipes.build());
+        assertFalse(Files.exists(file));
+
+        cache.flush();
+        IndexCache read = IndexCache.open(file);
+        assertEquals(7, read.getMobRoles().get("Trork").stamp);
+        assertArrayEquals(new String[]{"Bone"}, read.getDropTables().get("Drops_Trork").itemIds);
+        assertNotNull(read.getRecipeGraph(1, 2));
+        assertNull(read.getRecipeGraph(1, 3));
+
+        // Nothing changed since the last write
+        Files.delete(file);
+        cache.flush();
+        assertFalse(Files.exists(file));
+    }
+
+    @Test
+    void replacesFileItWasReadFrom() throws IOException {
+        Path file = this.dir.resolve(IndexCache.FILE_NAME);
+        IndexCache cache = IndexCache.open(file);
+        cache.putMobLoot(Map.of(), Map.of());
+        cache.flush();
+
+        IndexCache read = IndexCache.open(file);
+        read.putMobLoot(Map.of("Sheep", new MobRoleInfo("Sheep", 1, null, null, null)), Map.of());
+        read.flush();
+
+        assertEquals(Set.of("Sheep"), IndexCache.open(file).getMobRoles().keySet());
+    }
+}
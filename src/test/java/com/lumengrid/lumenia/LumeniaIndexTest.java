@@ -0,0 +1,59 @@
+package com.lumengrid.lumenia;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LumeniaIndexTest {
+    private static LumeniaIndex withMobLoot() {
+        List<MobRoleInfo> roles = List.of(
+                new MobRoleInfo("Trork", 1, "npc.trork", "Trork_Model", "Drops_Trork"),
+                new MobRoleInfo("Skeleton", 1, "npc.skeleton", "Skeleton_Model", "Drops_Skeleton"),
+                new MobRoleInfo("Sheep", 1, "npc.sheep", "Sheep_Model", null));
+        Map<String, MobDropTable> tables = Map.of(
+                "Drops_Trork", new MobDropTable("Drops_Trork", 1, new String[]{"Bone", "Leather", "Bone"},
+                        new int[]{1, 1, 2}, new int[]{2, 3, 4}),
+                "Drops_Skeleton", new MobDropTable("Drops_Skeleton", 1, new String[]{"Bone"},
+                        new int[]{1}, new int[]{1}));
+        return LumeniaIndex.EMPTY.toBuilder().mobLoot(MobDropTable.assemble(roles, tables)).build();
+    }
+
+    @Test
+    void indexesDropsByItemAndByRole() {
+        LumeniaIndex index = withMobLoot();
+
+        assertEquals(Set.of("Trork", "Skeleton"), index.getMobDrops("Bone").keySet());
+        assertEquals(Set.of("Trork"), index.getMobDrops("Leather").keySet());
+        assertEquals(Set.of("Bone", "Leather"), index.getRoleDrops("Trork").keySet());
+        assertEquals(Set.of("Bone"), index.getRoleDrops("Skeleton").keySet());
+        assertNull(index.getRoleDrops("Sheep"));
+        assertNull(index.getRoleDrops("Unknown"));
+    }
+
+    @Test
+    void roleDropsAreTheItemDrops() {
+        LumeniaIndex index = withMobLoot();
+
+        for (Map.Entry<String, Map<String, MobDropInfo>> item : index.getMobLoot().entrySet()) {
+            for (Map.Entry<String, MobDropInfo> drop : item.getValue().entrySet()) {
+                assertSame(drop.getValue(), index.getRoleDrops(drop.getKey()).get(item.getKey()));
+            }
+        }
+        // A role listing an item twice keeps its last entry
+        assertEquals(Map.entry(2, 4), index.getRoleDrops("Trork").get("Bone").quantities);
+        assertThrows(UnsupportedOperationException.class, () -> index.getRoleDrops("Trork").remove("Bone"));
+    }
+
+    @Test
+    void nextSnapshotKeepsRoleDrops() {
+        LumeniaIndex index = withMobLoot();
+        LumeniaIndex next = index.toBuilder().withoutTranslations().build();
+
+        assertEquals(index.getVersion() + 1, next.getVersion());
+        assertSame(index.getRoleDrops("Trork"), next.getRoleDrops("Trork"));
+    }
+}
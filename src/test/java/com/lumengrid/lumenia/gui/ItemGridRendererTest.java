@@ -0,0 +1,175 @@
+package com.lumengrid.lumenia.gui;
+
+import com.hypixel.hytale.protocol.packets.interface_.CustomUIEventBindingType;
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.ui.builder.UICommandBuilder;
+import com.hypixel.hytale.server.core.ui.builder.UIEventBuilder;
+import com.lumengrid.lumenia.search.ItemSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ItemGridRendererTest {
+    private static final String GRID = "#Grid";
+
+    private final ItemGridRenderer renderer = new ItemGridRenderer(GRID, 3, 9);
+    private ItemSearchIndex index;
+    private UICommandBuilder commands;
+    private UIEventBuilder events;
+
+    @BeforeEach
+    void setUp() {
+        this.index = index();
+        this.nextUpdate();
+    }
+
+    /**
+     * Untranslated items A to J, so names come from their IDs
+     */
+    private static ItemSearchIndex index() {
+        Map<String, Item> items = new HashMap<>();
+        for (char id = 'A'; id <= 'J'; id++) {
+            items.put(String.valueOf(id), mock(Item.class));
+        }
+        return ItemSearchIndex.build(items, _ -> "Core", Map.of());
+    }
+
+    private void nextUpdate() {
+        this.commands = mock(UICommandBuilder.class);
+        this.events = mock(UIEventBuilder.class);
+    }
+
+    private void render(ItemSearchIndex index, String... itemIds) {
+        int[] ordinals = new int[itemIds.length];
+        for (int i = 0; i < itemIds.length; i++) {
+            ordinals[i] = index.getOrdinal(itemIds[i]);
+        }
+        this.renderer.render(this.commands, this.events, index, ordinals);
+    }
+
+    private void render(String... itemIds) {
+        this.render(this.index, itemIds);
+    }
+
+    private void verifyBound(String cell, String itemId) {
+        verify(this.commands).set(cell + " #ItemId.Text", itemId);
+        verify(this.events).addEventBinding(eq(CustomUIEventBindingType.Activating), eq(cell), any(), anyBoolean());
+        verify(this.events).addEventBinding(eq(CustomUIEventBindingType.Activating), eq(cell + " #ItemId"), any(), anyBoolean());
+    }
+
+    @Test
+    void firstRenderAppendsAndBindsEveryCell() {
+        this.render("A", "B", "C", "D");
+
+        verify(this.commands).clear(GRID);
+        verify(this.commands, times(2)).appendInline(eq(GRID), anyString());
+        verify(this.commands, times(3)).append(eq(GRID + "[0]"), anyString());
+        verify(this.commands).append(eq(GRID + "[1]"), anyString());
+        verifyBound(GRID + "[0][0]", "A");
+        verifyBound(GRID + "[1][0]", "D");
+        verify(this.events, times(8)).addEventBinding(any(), anyString(), any(), anyBoolean());
+    }
+
+    @Test
+    void sameItemsSendNothing() {
+        this.render("A", "B", "C", "D");
+        this.nextUpdate();
+
+        this.render("A", "B", "C", "D");
+
+        verifyNoInteractions(this.commands, this.events);
+    }
+
+    @Test
+    void newerIndexSetsFieldsWithoutBindingAgain() {
+        this.render("A", "B", "C", "D");
+        this.nextUpdate();
+
+        this.render(index(), "A", "B", "C", "D");
+
+        verify(this.commands).set(GRID + "[0][0] #ItemId.Text", "A");
+        verify(this.commands).set(GRID + "[1][0] #ItemId.Text", "D");
+        verify(this.commands, never()).clear(anyString());
+        verify(this.commands, never()).append(anyString(), anyString());
+        verifyNoInteractions(this.events);
+    }
+
+    @Test
+    void changedItemAppendsItsRowAgain() {
+        this.render("A", "B", "C", "D", "E");
+        this.nextUpdate();
+
+        this.render("A", "B", "C", "D", "F");
+
+        verify(this.commands).clear(GRID + "[1]");
+        verify(this.commands, times(2)).append(eq(GRID + "[1]"), anyString());
+        verify(this.commands, never()).clear(GRID);
+        verify(this.commands, never()).clear(GRID + "[0]");
+        verify(this.commands, never()).append(eq(GRID + "[0]"), anyString());
+        verifyBound(GRID + "[1][0]", "D");
+        verifyBound(GRID + "[1][1]", "F");
+        verify(this.events, times(4)).addEventBinding(any(), anyString(), any(), anyBoolean());
+    }
+
+    @Test
+    void appendedAgainRowHidesCellsPastThePage() {
+        this.render("A", "B", "C", "D", "E", "F");
+        this.nextUpdate();
+
+        this.render("A", "B", "C", "G");
+
+        verify(this.commands).clear(GRID + "[1]");
+        verify(this.commands, times(3)).append(eq(GRID + "[1]"), anyString());
+        verifyBound(GRID + "[1][0]", "G");
+        verify(this.commands).set(GRID + "[1][1].Visible", false);
+        verify(this.commands).set(GRID + "[1][2].Visible", false);
+        verify(this.events, times(2)).addEventBinding(any(), anyString(), any(), anyBoolean());
+    }
+
+    @Test
+    void hiddenCellShownWithItsItemKeepsItsBindings() {
+        this.render("A", "B", "C", "D");
+        this.render("A", "B");
+        this.nextUpdate();
+
+        this.render("A", "B", "C", "D");
+
+        verify(this.commands).set(GRID + "[0][2].Visible", true);
+        verify(this.commands).set(GRID + "[1].Visible", true);
+        verify(this.commands).set(GRID + "[1][0].Visible", true);
+        verify(this.commands, never()).clear(anyString());
+        verifyNoInteractions(this.events);
+    }
+
+    @Test
+    void hiddenRowShownWithAnotherItemIsAppendedAgain() {
+        this.render("A", "B", "C", "D");
+        this.render("A", "B", "C");
+        this.nextUpdate();
+
+        this.render("A", "B", "C", "E");
+
+        verify(this.commands).clear(GRID + "[1]");
+        verify(this.commands).set(GRID + "[1].Visible", true);
+        verify(this.commands, never()).set(GRID + "[1][0].Visible", true);
+        verifyBound(GRID + "[1][0]", "E");
+    }
+
+    @Test
+    void resetStartsOver() {
+        this.render("A", "B", "C", "D");
+        this.renderer.reset();
+        this.nextUpdate();
+
+        this.render("A", "B", "C", "D");
+
+        verify(this.commands).clear(GRID);
+        verify(this.commands, times(2)).appendInline(eq(GRID), anyString());
+        verify(this.events, times(8)).addEventBinding(any(), anyString(), any(), anyBoolean());
+    }
+}
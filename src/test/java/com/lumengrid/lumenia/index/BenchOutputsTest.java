@@ -0,0 +1,103 @@
+package com.lumengrid.lumenia.index;
+
+import com.hypixel.hytale.protocol.BenchRequirement;
+import com.hypixel.hytale.server.core.asset.type.item.config.CraftingRecipe;
+import com.hypixel.hytale.server.core.inventory.MaterialQuantity;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BenchOutputsTest {
+    @Test
+    void keepsItemWhileAnyRecipeCraftsIt() {
+        BenchOutputs outputs = new BenchOutputs();
+        CraftingRecipe first = recipe(new String[]{"Anvil"}, "Sword");
+        CraftingRecipe second = recipe(new String[]{"Anvil"}, "Sword", "Shield");
+        outputs.add(first);
+        outputs.add(second);
+
+        outputs.remove(first);
+        assertEquals(Set.of("Sword", "Shield"), outputs.asMap().get("Anvil"));
+
+        outputs.remove(second);
+        assertFalse(outputs.asMap().containsKey("Anvil"));
+    }
+
+    @Test
+    void countsRepeatedBenchOrOutputOnce() {
+        BenchOutputs outputs = new BenchOutputs();
+        CraftingRecipe repeated = recipe(new String[]{"Anvil", "Anvil"}, "Sword", "Sword");
+        CraftingRecipe other = recipe(new String[]{"Anvil"}, "Sword");
+        outputs.add(repeated);
+        outputs.add(other);
+
+        outputs.remove(other);
+        assertEquals(Set.of("Sword"), outputs.asMap().get("Anvil"));
+        outputs.remove(repeated);
+        assertTrue(outputs.asMap().isEmpty());
+    }
+
+    @Test
+    void ignoresRemovalOfUnknownRecipe() {
+        BenchOutputs outputs = new BenchOutputs();
+        outputs.remove(recipe(new String[]{"Anvil"}, "Sword"));
+
+        assertTrue(outputs.asMap().isEmpty());
+        assertTrue(outputs.drainChanges().isEmpty());
+    }
+
+    @Test
+    void drainsChangedBenchesOnce() {
+        BenchOutputs outputs = new BenchOutputs();
+        CraftingRecipe sword = recipe(new String[]{"Anvil", "Forge"}, "Sword");
+        outputs.add(sword);
+        outputs.add(recipe(new String[]{"Workbench"}, "Stick"));
+
+        Map<String, Set<String>> changes = outputs.drainChanges();
+        assertEquals(Map.of("Anvil", Set.of("Sword"), "Forge", Set.of("Sword"), "Workbench", Set.of("Stick")), changes);
+        assertTrue(outputs.drainChanges().isEmpty());
+
+        outputs.remove(sword);
+        assertEquals(Map.of("Anvil", Set.of(), "Forge", Set.of()), outputs.drainChanges());
+        // Drained sets are copies
+        assertEquals(Set.of("Stick"), changes.get("Workbench"));
+    }
+
+    @Test
+    void skipsRecipesWithoutBenchOrOutputs() {
+        BenchOutputs outputs = new BenchOutputs();
+        MaterialQuantity[] sticks = {material("Stick")};
+        CraftingRecipe byHand = mock(CraftingRecipe.class);
+        when(byHand.getOutputs()).thenReturn(sticks);
+        outputs.add(byHand);
+
+        assertTrue(outputs.asMap().isEmpty());
+    }
+
+    private static CraftingRecipe recipe(String[] benchIds, String... outputIds) {
+        BenchRequirement[] benches = new BenchRequirement[benchIds.length];
+        for (int i = 0; i < benchIds.length; i++) {
+            benches[i] = mock(BenchRequirement.class);
+            benches[i].id = benchIds[i];
+        }
+        MaterialQuantity[] outputs = new MaterialQuantity[outputIds.length];
+        for (int i = 0; i < outputIds.length; i++) {
+            outputs[i] = material(outputIds[i]);
+        }
+        CraftingRecipe recipe = mock(CraftingRecipe.class);
+        when(recipe.getBenchRequirement()).thenReturn(benches);
+        when(recipe.getOutputs()).thenReturn(outputs);
+        return recipe;
+    }
+
+    private static MaterialQuantity material(String itemId) {
+        MaterialQuantity material = mock(MaterialQuantity.class);
+        when(material.getItemId()).thenReturn(itemId);
+        return material;
+    }
+}
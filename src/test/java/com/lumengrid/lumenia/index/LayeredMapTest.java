@@ -0,0 +1,82 @@
+package com.lumengrid.lumenia.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LayeredMapTest {
+    @Test
+    void removesThenPuts() {
+        LayeredMap<String, Integer> map = LayeredMap.of(Map.of("a", 1, "b", 2));
+        LayeredMap<String, Integer> next = map.with(Map.of("b", 3, "c", 4), List.of("a", "b"));
+
+        assertEquals(Map.of("b", 3, "c", 4), next);
+        assertEquals(2, next.size());
+        assertFalse(next.containsKey("a"));
+        assertNull(next.get("a"));
+    }
+
+    @Test
+    void leavesPreviousVersionsAlone() {
+        LayeredMap<String, Integer> first = LayeredMap.of(Map.of("a", 1));
+        LayeredMap<String, Integer> second = first.with(Map.of("b", 2), List.of());
+        LayeredMap<String, Integer> third = second.with(Map.of("a", 3), List.of("b"));
+
+        assertEquals(Map.of("a", 1), first);
+        assertEquals(Map.of("a", 1, "b", 2), second);
+        assertEquals(Map.of("a", 3), third);
+    }
+
+    @Test
+    void returnsSameVersionWithoutChanges() {
+        LayeredMap<String, Integer> map = LayeredMap.of(Map.of("a", 1));
+
+        assertSame(map, map.with(Map.of(), List.of()));
+        assertTrue(LayeredMap.of(Map.of()).isEmpty());
+    }
+
+    @Test
+    void ignoresRemovalOfMissingKey() {
+        LayeredMap<String, Integer> map = LayeredMap.of(Map.of("a", 1)).with(Map.of(), List.of("x"));
+
+        assertEquals(1, map.size());
+        assertEquals(Set.of("a"), map.keySet());
+    }
+
+    @Test
+    void matchesHashMapOverManyChanges() {
+        Random random = new Random(7);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 2000; i++) {
+            expected.put(i, i);
+        }
+        LayeredMap<Integer, Integer> map = LayeredMap.of(expected);
+
+        for (int change = 0; change < 3000; change++) {
+            Map<Integer, Integer> puts = new HashMap<>();
+            List<Integer> removals = List.of(random.nextInt(2500), random.nextInt(2500));
+            for (int i = random.nextInt(3); i >= 0; i--) {
+                puts.put(random.nextInt(2500), change);
+            }
+            removals.forEach(expected::remove);
+            expected.putAll(puts);
+            map = map.with(puts, removals);
+
+            if (change % 500 == 0) {
+                assertEquals(expected, map);
+                assertEquals(expected.size(), map.entrySet().stream().count());
+            }
+        }
+        assertEquals(expected, map);
+        assertEquals(expected.size(), map.size());
+        for (int key = 0; key < 2500; key++) {
+            assertEquals(expected.get(key), map.get(key));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package com.lumengrid.lumenia.index;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Without an asset map, mods come from the namespace in the item ID
+ */
+class ModOriginTableTest {
+    @Test
+    void changesMatchFreshTable() {
+        ModOriginTable table = ModOriginTable.of(Map.of("Sword", "Vanilla", "a:Axe", "a", "a:Bow", "a", "b:Gem", "b"));
+        ModOriginTable patched = table.withItemChanges(List.of("c:Ring", "a:Axe", "Sword"), Set.of("b:Gem", "a:Bow"), null);
+        ModOriginTable fresh = ModOriginTable.build(List.of("Sword", "a:Axe", "c:Ring"), null);
+
+        assertEquals(fresh.getModNames(), patched.getModNames());
+        for (String modName : List.of("Vanilla", "a", "b", "c")) {
+            assertEquals(fresh.getItems(modName), patched.getItems(modName), modName);
+        }
+        assertEquals("c", patched.getModName("c:Ring"));
+        assertEquals(List.of("a", "c", "Vanilla"), patched.getModNames());
+    }
+
+    @Test
+    void leavesPreviousTableAlone() {
+        ModOriginTable table = ModOriginTable.of(Map.of("a:Axe", "a", "b:Gem", "b"));
+        table.withItemChanges(List.of("c:Ring"), Set.of("b:Gem"), null);
+
+        assertEquals(List.of("a", "b"), table.getModNames());
+        assertEquals(List.of("b:Gem"), table.getItems("b"));
+        assertEquals(List.of(), table.getItems("c"));
+    }
+
+    @Test
+    void removedThenReloadedItemKeepsItsMod() {
+        ModOriginTable table = ModOriginTable.of(Map.of("a:Axe", "a"));
+        ModOriginTable patched = table.withItemChanges(List.of("a:Axe"), Set.of("a:Axe"), null);
+
+        assertEquals(List.of("a:Axe"), patched.getItems("a"));
+        assertEquals("a", patched.getModName("a:Axe"));
+    }
+
+    @Test
+    void itemMovesBetweenMods() {
+        ModOriginTable table = ModOriginTable.of(Map.of("a:Axe", "Other", "a:Bow", "a"));
+        ModOriginTable patched = table.withItemChanges(List.of("a:Axe"), Set.of(), null);
+
+        assertEquals(List.of("a:Axe", "a:Bow"), patched.getItems("a"));
+        assertEquals(List.of(), patched.getItems("Other"));
+        assertEquals(List.of("a"), patched.getModNames());
+    }
+}
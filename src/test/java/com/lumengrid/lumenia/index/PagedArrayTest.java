@@ -0,0 +1,70 @@
+package com.lumengrid.lumenia.index;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedArrayTest {
+    private static PagedArray<Integer> numbers(int size) {
+        Integer[] numbers = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            numbers[i] = i;
+        }
+        return PagedArray.of(numbers);
+    }
+
+    @Test
+    void readsLikeTheArray() {
+        PagedArray<Integer> array = numbers(3000);
+
+        assertEquals(3000, array.size());
+        for (int i = 0; i < 3000; i++) {
+            assertEquals(i, array.get(i));
+        }
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> array.get(3000));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> array.get(-1));
+        assertEquals(0, PagedArray.of(new String[0]).size());
+    }
+
+    @Test
+    void editLeavesSourceUntouched() {
+        PagedArray<Integer> array = numbers(3000);
+        PagedArray.Editor<Integer> editor = array.edit(3000);
+        editor.set(5, -5);
+        editor.set(2500, null);
+        PagedArray<Integer> edited = editor.build();
+
+        assertEquals(-5, edited.get(5));
+        assertNull(edited.get(2500));
+        assertEquals(6, edited.get(6));
+        assertEquals(5, array.get(5));
+        assertEquals(2500, array.get(2500));
+    }
+
+    @Test
+    void editGrowsWithNullsUntilSet() {
+        PagedArray<Integer> array = numbers(1020);
+        PagedArray.Editor<Integer> editor = array.edit(2100);
+        editor.set(2099, 99);
+        PagedArray<Integer> grown = editor.build();
+
+        assertEquals(2100, grown.size());
+        assertEquals(1019, grown.get(1019));
+        assertNull(grown.get(1020));
+        assertNull(grown.get(2000));
+        assertEquals(99, grown.get(2099));
+        assertEquals(1020, array.size());
+        assertThrows(IllegalArgumentException.class, () -> array.edit(10));
+    }
+
+    @Test
+    void editorReadsItsOwnWrites() {
+        PagedArray.Editor<Integer> editor = numbers(10).edit(11);
+        editor.set(3, 30);
+
+        assertEquals(30, editor.get(3));
+        assertEquals(4, editor.get(4));
+        assertNull(editor.get(10));
+        assertThrows(ArrayIndexOutOfBoundsException.class, () -> editor.set(11, 0));
+    }
+}
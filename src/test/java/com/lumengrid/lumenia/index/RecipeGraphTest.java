@@ -0,0 +1,186 @@
+package com.lumengrid.lumenia.index;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RecipeGraphTest {
+    @Test
+    void putLinksOutputsAndInputs() {
+        RecipeGraph.Builder builder = new RecipeGraph.Builder();
+        builder.put("Plank", List.of("Plank"), List.of("Log"));
+        builder.put("Stick", List.of("Stick"), List.of("Plank", "Plank"));
+
+        assertEquals(2, builder.build().getRecipeCount());
+        assertArrayEquals(new int[]{0}, producing(builder, "Plank"));
+        assertArrayEquals(new int[]{1}, consuming(builder, "Plank"));
+        assertArrayEquals(new int[]{0}, consuming(builder, "Log"));
+        assertArrayEquals(new int[0], producing(builder, "Log"));
+        assertArrayEquals(new int[0], producing(builder, "Unknown"));
+        assertArrayEquals(new int[0], consuming(builder, "Unknown"));
+    }
+
+    @Test
+    void reloadKeepsOrdinalAndReplacesEdges() {
+        RecipeGraph.Builder builder = new RecipeGraph.Builder();
+        builder.put("A", List.of("Out"), List.of("In"));
+        builder.put("B", List.of("Out"), List.of("In"));
+        builder.drainDirtyKeys();
+        builder.put("A", List.of("Out"), List.of("Other"));
+
+        assertEquals(Set.of("Out", "In", "Other"), builder.drainDirtyKeys());
+        assertEquals("A", builder.getRecipeId(0));
+        assertArrayEquals(new int[]{0, 1}, producing(builder, "Out"));
+        assertArrayEquals(new int[]{1}, consuming(builder, "In"));
+        assertArrayEquals(new int[]{0}, consuming(builder, "Other"));
+    }
+
+    @Test
+    void removeLeavesHoleThatTheIdTakesBack() {
+        RecipeGraph.Builder builder = new RecipeGraph.Builder();
+        builder.put("A", List.of("Out"), List.of("In"));
+        builder.put("B", List.of("Out"), List.of("In"));
+        builder.remove("A");
+
+        RecipeGraph graph = builder.build();
+        assertEquals(2, graph.getRecipeCount());
+        assertNull(graph.getRecipeId(0));
+        assertArrayEquals(new int[]{1}, producing(builder, "Out"));
+        assertNull(builder.getRecipeId(0));
+
+        builder.put("A", List.of("Out"), List.of());
+        assertEquals("A", builder.build().getRecipeId(0));
+        assertArrayEquals(new int[]{0, 1}, producing(builder, "Out"));
+    }
+
+    @Test
+    void builderOfBuiltGraphReadsTheSame() {
+        RecipeGraph.Builder builder = builder(500, 1);
+        builder.remove("Recipe11");
+
+        assertSameRows(builder, RecipeGraph.Builder.of(builder.build()), builder.build());
+    }
+
+    @Test
+    void parallelPutAllMatchesPut() {
+        int count = RecipeGraph.Builder.PARALLEL_THRESHOLD * 2 + 17;
+        Batch batch = batch(count, 2);
+        // Repeated IDs: the last entry wins, as with put
+        batch.recipeIds.set(count - 1, batch.recipeIds.get(3));
+
+        RecipeGraph.Builder sequential = new RecipeGraph.Builder();
+        sequential.put("Existing", List.of("Item3"), List.of("Item4"));
+        for (int i = 0; i < count; i++) {
+            sequential.put(batch.recipeIds.get(i), batch.outputs.get(i), batch.inputs.get(i));
+        }
+        RecipeGraph.Builder parallel = new RecipeGraph.Builder();
+        parallel.put("Existing", List.of("Item3"), List.of("Item4"));
+        parallel.putAll(batch.recipeIds, batch.outputs, batch.inputs);
+
+        assertSameGraph(sequential.build(), parallel.build());
+    }
+
+    @Test
+    void writeAndReadRoundTrip() throws IOException {
+        RecipeGraph.Builder builder = builder(300, 3);
+        builder.remove("Recipe7");
+        RecipeGraph graph = builder.build();
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            graph.write(out);
+        }
+        RecipeGraph read = RecipeGraph.read(ByteBuffer.wrap(bytes.toByteArray()));
+
+        assertSameGraph(graph, read);
+        assertNull(read.getRecipeId(7));
+    }
+
+    @Test
+    void builderOfGraphContinuesWithDeltas() {
+        RecipeGraph.Builder original = builder(200, 4);
+        RecipeGraph.Builder restored = RecipeGraph.Builder.of(original.build());
+        for (RecipeGraph.Builder builder : List.of(original, restored)) {
+            builder.remove("Recipe5");
+            builder.put("Recipe9", List.of("Item1"), List.of("Item2", "Wood"));
+            builder.put("New", List.of("NewItem"), List.of("Item1"));
+        }
+
+        assertSameGraph(original.build(), restored.build());
+    }
+
+    private static void assertSameGraph(RecipeGraph expected, RecipeGraph actual) {
+        assertEquals(expected.getRecipeCount(), actual.getRecipeCount());
+        for (int recipe = 0; recipe < expected.getRecipeCount(); recipe++) {
+            assertEquals(expected.getRecipeId(recipe), actual.getRecipeId(recipe));
+        }
+        assertEquals(expected.getKeyCount(), actual.getKeyCount());
+        for (int key = 0; key < expected.getKeyCount(); key++) {
+            assertEquals(expected.getKey(key), actual.getKey(key));
+        }
+        assertSameRows(RecipeGraph.Builder.of(expected), RecipeGraph.Builder.of(actual), expected);
+    }
+
+    private static void assertSameRows(RecipeGraph.Builder expected, RecipeGraph.Builder actual, RecipeGraph keys) {
+        for (int key = 0; key < keys.getKeyCount(); key++) {
+            String id = keys.getKey(key);
+            assertArrayEquals(producing(expected, id), producing(actual, id), id);
+            assertArrayEquals(consuming(expected, id), consuming(actual, id), id);
+        }
+    }
+
+    private static int[] producing(RecipeGraph.Builder builder, String itemId) {
+        IntArrayList recipes = new IntArrayList();
+        builder.forEachProducingRecipe(itemId, recipes::add);
+        return recipes.toIntArray();
+    }
+
+    private static int[] consuming(RecipeGraph.Builder builder, String key) {
+        IntArrayList recipes = new IntArrayList();
+        builder.forEachConsumingRecipe(key, recipes::add);
+        return recipes.toIntArray();
+    }
+
+    private static RecipeGraph.Builder builder(int count, long seed) {
+        Batch batch = batch(count, seed);
+        RecipeGraph.Builder builder = new RecipeGraph.Builder();
+        for (int i = 0; i < count; i++) {
+            builder.put(batch.recipeIds.get(i), batch.outputs.get(i), batch.inputs.get(i));
+        }
+        return builder;
+    }
+
+    /**
+     * Recipes over a small pool of items, so keys are shared between many recipes and partitions
+     */
+    private static Batch batch(int count, long seed) {
+        Random random = new Random(seed);
+        Batch batch = new Batch();
+        for (int i = 0; i < count; i++) {
+            batch.recipeIds.add("Recipe" + i);
+            batch.outputs.add(List.of("Item" + random.nextInt(count / 2 + 1)));
+            List<String> inputs = new ArrayList<>();
+            for (int j = random.nextInt(4); j >= 0; j--) {
+                inputs.add(random.nextInt(5) == 0 ? "Wood" : "Item" + random.nextInt(count / 2 + 1));
+            }
+            batch.inputs.add(inputs);
+        }
+        return batch;
+    }
+
+    private static final class Batch {
+        private final List<String> recipeIds = new ArrayList<>();
+        private final List<List<String>> outputs = new ArrayList<>();
+        private final List<List<String>> inputs = new ArrayList<>();
+    }
+}
@@ -0,0 +1,92 @@
+package com.lumengrid.lumenia.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ItemFacetsTest {
+    private static ItemFacets facets() {
+        ItemFacets.Builder builder = new ItemFacets.Builder(4);
+        builder.addMod("Core", 0);
+        builder.addMod("Core", 1);
+        builder.addMod("Extra", 2);
+        builder.addGroup("Weapon", 0);
+        builder.addGroup("Tool", 1);
+        builder.addGroup("Tool", 2);
+        builder.addResourceType("Wood", 1);
+        return builder.build();
+    }
+
+    @Test
+    void patchLeavesSourceUntouched() {
+        ItemFacets source = facets();
+        ItemFacets.Patch patch = new ItemFacets.Patch(source, 5);
+        patch.clear(1);
+        patch.addMod("Core", 4);
+        patch.addGroup("Weapon", 4);
+        ItemFacets patched = patch.build();
+
+        assertEquals(bits(0, 1), source.getMod("Core"));
+        assertEquals(bits(1, 2), source.getGroup("tool"));
+        assertEquals(bits(1), source.getResourceType("wood"));
+
+        assertEquals(bits(0, 4), patched.getMod("Core"));
+        assertEquals(bits(2), patched.getGroup("tool"));
+        assertEquals(bits(0, 4), patched.getGroup("weapon"));
+        assertEquals(5, patched.size());
+    }
+
+    @Test
+    void patchSharesUnchangedValues() {
+        ItemFacets source = facets();
+        ItemFacets.Patch patch = new ItemFacets.Patch(source, 4);
+        patch.addMod("Core", 3);
+        ItemFacets patched = patch.build();
+
+        assertNotSame(source.getMod("Core"), patched.getMod("Core"));
+        assertSame(source.getMod("Extra"), patched.getMod("Extra"));
+        assertSame(source.getGroup("tool"), patched.getGroup("tool"));
+        assertSame(source.getResourceType("wood"), patched.getResourceType("wood"));
+    }
+
+    @Test
+    void patchCopiesEachValueOnce() {
+        ItemFacets.Patch patch = new ItemFacets.Patch(facets(), 4);
+        patch.addMod("Core", 2);
+        patch.addMod("Core", 3);
+        patch.clear(0);
+
+        assertEquals(bits(1, 2, 3), patch.build().getMod("Core"));
+    }
+
+    @Test
+    void patchRemovesEmptiedValues() {
+        ItemFacets source = facets();
+        ItemFacets.Patch patch = new ItemFacets.Patch(source, 4);
+        patch.clear(1);
+        ItemFacets patched = patch.build();
+
+        assertNull(patched.getResourceType("wood"));
+        assertNotNull(source.getResourceType("wood"));
+        assertTrue(patched.select(ItemFacets.Facet.RESOURCE_TYPE, "wood").isEmpty());
+    }
+
+    @Test
+    void selectFallsBackToPartialMatches() {
+        ItemFacets facets = facets();
+
+        assertEquals(bits(0, 1), facets.select(ItemFacets.Facet.MOD, "core"));
+        assertEquals(bits(0, 1, 2), facets.select(ItemFacets.Facet.MOD, "e"));
+        assertNotSame(facets.getMod("Core"), facets.select(ItemFacets.Facet.MOD, "Core"));
+    }
+
+    private static BitSet bits(int... ordinals) {
+        BitSet bits = new BitSet();
+        for (int ordinal : ordinals) {
+            bits.set(ordinal);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,326 @@
+package com.lumengrid.lumenia.search;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import com.hypixel.hytale.server.core.modules.i18n.I18nModule;
+import org.junit.jupiter.api.Test;
+import org.mockito.MockedStatic;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class ItemSearchIndexTest {
+    private static final Map<String, List<String>> NO_BENCHES = Map.of();
+    private static final String LANGUAGE = "fr-FR";
+    private static final Map<String, String> NAMES = Map.of( // Item ID -> name in LANGUAGE
+            "Iron_Sword", "Épée de fer",
+            "Iron_Ingot", "Lingot de fer",
+            "Iron_Ore", "Minerai de fer",
+            "Gold_Ore", "Minerai d'or",
+            "Oak_Log", "Bûche de chêne",
+            "Oak_Plank", "planche",
+            "Wood_Plank", "Planche",
+            "Zebra_Rug", "Tapis zébré",
+            "Armor_Chest", "Armure");
+
+    /**
+     * Untranslated items, so names come from their IDs
+     */
+    private static Map<String, Item> items(String... itemIds) {
+        Map<String, Item> items = new HashMap<>();
+        for (String itemId : itemIds) {
+            items.put(itemId, mock(Item.class));
+        }
+        return items;
+    }
+
+    private static Map<String, Item> catalog() {
+        Map<String, Item> items = new HashMap<>();
+        for (int i = 10; i < 26; i++) {
+            items.putAll(items("Ore_" + i));
+        }
+        items.putAll(items("Iron_Sword", "Iron_Ingot"));
+        return items;
+    }
+
+    /**
+     * The catalog and the items of {@link #NAMES}, which only those have a translation key for; "Stone" is a block
+     */
+    private static Map<String, Item> translatedCatalog() {
+        Map<String, Item> items = catalog();
+        for (String itemId : NAMES.keySet()) {
+            Item item = mock(Item.class);
+            when(item.getTranslationKey()).thenReturn("item." + itemId);
+            items.put(itemId, item);
+        }
+        Item stone = mock(Item.class);
+        when(stone.hasBlockType()).thenReturn(true);
+        items.put("Stone", stone);
+        return items;
+    }
+
+    /**
+     * Serves {@link #NAMES} in {@link #LANGUAGE}, and no message in any other language
+     */
+    private static MockedStatic<I18nModule> translations() {
+        I18nModule i18n = mock(I18nModule.class);
+        when(i18n.getMessage(eq(LANGUAGE), anyString()))
+                .thenAnswer(invocation -> NAMES.get(invocation.<String>getArgument(1).substring("item.".length())));
+        MockedStatic<I18nModule> module = mockStatic(I18nModule.class);
+        module.when(I18nModule::get).thenReturn(i18n);
+        return module;
+    }
+
+    private static String mod(String itemId) {
+        return itemId.startsWith("Iron") ? "Smithing" : "Core";
+    }
+
+    @Test
+    void removedItemLeavesTombstone() {
+        Map<String, Item> items = catalog();
+        ItemSearchIndex index = ItemSearchIndex.build(items, ItemSearchIndexTest::mod, NO_BENCHES);
+        int ordinal = index.getOrdinal("Iron_Sword");
+
+        items.remove("Iron_Sword");
+        ItemSearchIndex patched = index.withItemChanges(items, Set.of(), Set.of("Iron_Sword"), ItemSearchIndexTest::mod, NO_BENCHES);
+
+        assertEquals(index.size(), patched.size());
+        assertEquals("Iron_Sword", patched.getId(ordinal));
+        assertNull(patched.getItem(ordinal));
+        assertEquals(-1, patched.getOrdinal("Iron_Sword"));
+        assertArrayEquals(new int[]{patched.getOrdinal("Iron_Ingot")}, patched.search(null, new String[]{"iron"}, null));
+        assertEquals(index.size() - 1, patched.all().length);
+        assertFalse(patched.getFacets().getMod("Smithing").get(ordinal));
+        // The previous index is not affected
+        assertEquals(ordinal, index.getOrdinal("Iron_Sword"));
+        assertEquals(2, index.search(null, new String[]{"iron"}, null).length);
+    }
+
+    @Test
+    void returningItemTakesItsOrdinalBack() {
+        Map<String, Item> items = catalog();
+        ItemSearchIndex index = ItemSearchIndex.build(items, ItemSearchIndexTest::mod, NO_BENCHES);
+        int ordinal = index.getOrdinal("Iron_Sword");
+        Item sword = items.remove("Iron_Sword");
+        ItemSearchIndex removed = index.withItemChanges(items, Set.of(), Set.of("Iron_Sword"), ItemSearchIndexTest::mod, NO_BENCHES);
+
+        items.put("Iron_Sword", sword);
+        ItemSearchIndex returned = removed.withItemChanges(items, Set.of("Iron_Sword"), Set.of(), ItemSearchIndexTest::mod, NO_BENCHES);
+
+        assertEquals(ordinal, returned.getOrdinal("Iron_Sword"));
+        assertSame(sword, returned.getItem(ordinal));
+        assertEquals(2, returned.search(null, new String[]{"iron"}, null).length);
+        assertTrue(returned.getFacets().getMod("Smithing").get(ordinal));
+    }
+
+    @Test
+    void newItemIsAppended() {
+        Map<String, Item> items = catalog();
+        ItemSearchIndex index = ItemSearchIndex.build(items, ItemSearchIndexTest::mod, NO_BENCHES);
+
+        items.putAll(items("Axe"));
+        ItemSearchIndex patched = index.withItemChanges(items, Set.of("Axe"), Set.of(), ItemSearchIndexTest::mod,
+                Map.of("Workbench", List.of("Axe")));
+
+        assertEquals(index.size(), patched.getOrdinal("Axe"));
+        assertEquals(index.size() + 1, patched.size());
+        assertArrayEquals(new int[]{patched.getOrdinal("Axe")}, patched.search(null, new String[]{"axe"}, null));
+        assertEquals(bits(patched.getOrdinal("Axe")), patched.getFacets().select(ItemFacets.Facet.BENCH, "workbench"));
+        assertEquals(-1, index.getOrdinal("Axe"));
+    }
+
+    @Test
+    void updatedItemKeepsItsOrdinal() {
+        Map<String, Item> items = catalog();
+        ItemSearchIndex index = ItemSearchIndex.build(items, ItemSearchIndexTest::mod, NO_BENCHES);
+        int ordinal = index.getOrdinal("Ore_12");
+
+        Item updated = mock(Item.class);
+        items.put("Ore_12", updated);
+        ItemSearchIndex patched = index.withItemChanges(items, Set.of("Ore_12"), Set.of(), itemId -> "Other", NO_BENCHES);
+
+        assertEquals(ordinal, patched.getOrdinal("Ore_12"));
+        assertSame(updated, patched.getItem(ordinal));
+        assertEquals(bits(ordinal), patched.getFacets().getMod("Other"));
+        assertFalse(patched.getFacets().getMod("Core").get(ordinal));
+        assertNotEquals(index.getVersion(), patched.getVersion());
+    }
+
+    @Test
+    void rebuildsInIdOrderOnceChangesPileUp() {
+        Map<String, Item> items = catalog();
+        ItemSearchIndex index = ItemSearchIndex.build(items, ItemSearchIndexTest::mod, NO_BENCHES);
+
+        // 18 items allow 2 appended or removed items before the index is rebuilt
+        items.remove("Ore_10");
+        index = index.withItemChanges(items, Set.of(), Set.of("Ore_10"), ItemSearchIndexTest::mod, NO_BENCHES);
+        items.putAll(items("Axe"));
+        index = index.withItemChanges(items, Set.of("Axe"), Set.of(), ItemSearchIndexTest::mod, NO_BENCHES);
+        assertEquals(19, index.size());
+        assertEquals(18, index.getOrdinal("Axe"));
+
+        items.remove("Ore_11");
+        index = index.withItemChanges(items, Set.of(), Set.of("Ore_11"), ItemSearchIndexTest::mod, NO_BENCHES);
+
+        assertEquals(17, index.size());
+        assertEquals(17, index.all().length);
+        assertEquals(0, index.getOrdinal("Axe"));
+        for (int ordinal = 1; ordinal < index.size(); ordinal++) {
+            assertTrue(index.getId(ordinal - 1).compareTo(index.getId(ordinal)) < 0);
+            assertNotNull(index.getItem(ordinal));
+        }
+        assertEquals(-1, index.getOrdinal("Ore_10"));
+    }
+
+    @Test
+    void patchedIndexSearchesLikeFreshBuild() {
+        Map<String, Item> items = new HashMap<>();
+        for (int i = 0; i < 300; i++) {
+            items.putAll(items((i % 3 == 0 ? "Iron_" : "Copper_") + i));
+        }
+        ItemSearchIndex patched = ItemSearchIndex.build(items, ItemSearchIndexTest::mod, NO_BENCHES);
+        patched.search(null, new String[]{"iron"}, null); // Names of the default language are carried over from here on
+
+        for (int change = 0; change < 10; change++) {
+            String removed = "Copper_" + (change * 3 + 1);
+            String added = "Iron_Plate_" + change;
+            items.remove(removed);
+            items.putAll(items(added));
+            patched = patched.withItemChanges(items, Set.of(added, "Iron_" + change * 3), Set.of(removed),
+                    ItemSearchIndexTest::mod, NO_BENCHES);
+        }
+        ItemSearchIndex fresh = ItemSearchIndex.build(items, ItemSearchIndexTest::mod, NO_BENCHES);
+
+        assertEquals(fresh.all().length, patched.all().length);
+        for (String term : new String[]{"iron", "copper", "plate", "_1", "n_2", "per_1"}) {
+            assertEquals(ids(fresh, fresh.search(null, new String[]{term}, null)),
+                    ids(patched, patched.search(null, new String[]{term}, null)), term);
+        }
+    }
+
+    @Test
+    void searchMatchesLinearScan() {
+        try (MockedStatic<I18nModule> _ = translations()) {
+            ItemSearchIndex index = ItemSearchIndex.build(translatedCatalog(), ItemSearchIndexTest::mod, NO_BENCHES);
+            BitSet everyOther = new BitSet();
+            for (int ordinal = 0; ordinal < index.size(); ordinal += 2) {
+                everyOther.set(ordinal);
+            }
+            String[][] queries = {
+                    {"fer"}, {"FER"}, {"épée"}, {"EPEE"}, {"pée"}, {"de f"}, {"d'or"}, {"zebre"}, {"zébré"},
+                    {"e"}, {"é"}, {"ch"}, {"pl"}, {"or"}, {"ore"}, {"iron_"}, {"_1"}, {"block"}, {"item"}, {"xyz"},
+                    {"fer", "lingot"}, {"minerai", "or"}, {"an", "pl"}, {"é", "de"}, {"iron", "e"}, {" ", ""}
+            };
+
+            assertArrayEquals(new int[]{index.getOrdinal("Iron_Sword")}, index.search(LANGUAGE, new String[]{"EPEE"}, null));
+            assertArrayEquals(new int[]{index.getOrdinal("Stone")}, index.search(null, new String[]{"blo"}, null));
+            for (String language : new String[]{LANGUAGE, null}) {
+                for (BitSet filter : new BitSet[]{null, everyOther}) {
+                    for (String[] terms : queries) {
+                        assertArrayEquals(linearScan(index, language, terms, filter),
+                                index.search(language, terms, filter), language + " " + String.join("+", terms));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void sortsByCollatedNameThenId() {
+        try (MockedStatic<I18nModule> _ = translations()) {
+            ItemSearchIndex index = ItemSearchIndex.build(translatedCatalog(), ItemSearchIndexTest::mod, NO_BENCHES);
+
+            List<String> expected = new ArrayList<>(List.of("Armor_Chest", "Oak_Log", "Iron_Sword", "Iron_Ingot",
+                    "Gold_Ore", "Iron_Ore"));
+            for (int i = 10; i < 26; i++) {
+                expected.add("Ore_" + i); // Untranslated, so sorted by ID among the names
+            }
+            // "planche" and "Planche" collate equal, so their IDs decide
+            expected.addAll(List.of("Oak_Plank", "Wood_Plank", "Stone", "Zebra_Rug"));
+            assertEquals(expected, idList(index, index.getSortedOrdinals(LANGUAGE, null)));
+            assertEquals(List.of("Iron_Sword", "Iron_Ingot", "Iron_Ore"), idList(index, index.getSortedOrdinals(LANGUAGE, "Smithing")));
+            assertSame(index.getSortedOrdinals(LANGUAGE, "Smithing"), index.getSortedOrdinals(LANGUAGE, "Smithing"));
+            assertEquals(0, index.getSortedOrdinals(LANGUAGE, "Unknown").length);
+
+            // Without translations every item sorts by its ID
+            List<String> byId = idList(index, index.getSortedOrdinals(null, null));
+            assertEquals(List.of("Armor_Chest", "Gold_Ore", "Iron_Ingot", "Iron_Ore", "Iron_Sword", "Oak_Log", "Oak_Plank"),
+                    byId.subList(0, 7));
+            assertEquals(List.of("Stone", "Wood_Plank", "Zebra_Rug"), byId.subList(byId.size() - 3, byId.size()));
+        }
+    }
+
+    @Test
+    void sortByNameFollowsSortedOrdinals() {
+        try (MockedStatic<I18nModule> _ = translations()) {
+            ItemSearchIndex index = ItemSearchIndex.build(translatedCatalog(), ItemSearchIndexTest::mod, NO_BENCHES);
+            int[] ordinals = {index.getOrdinal("Zebra_Rug"), index.getOrdinal("Wood_Plank"), index.getOrdinal("Ore_12"),
+                    index.getOrdinal("Oak_Plank"), index.getOrdinal("Iron_Sword"), index.getOrdinal("Armor_Chest")};
+            int[] given = ordinals.clone();
+
+            assertEquals(List.of("Armor_Chest", "Iron_Sword", "Ore_12", "Oak_Plank", "Wood_Plank", "Zebra_Rug"),
+                    idList(index, index.sortByName(LANGUAGE, ordinals)));
+            assertEquals(List.of("Armor_Chest", "Iron_Sword", "Oak_Plank", "Ore_12", "Wood_Plank", "Zebra_Rug"),
+                    idList(index, index.sortByName(null, ordinals)));
+            assertArrayEquals(given, ordinals);
+            assertEquals(0, index.sortByName(LANGUAGE, new int[0]).length);
+        }
+    }
+
+    private static List<String> idList(ItemSearchIndex index, int[] ordinals) {
+        List<String> ids = new ArrayList<>(ordinals.length);
+        for (int ordinal : ordinals) {
+            ids.add(index.getId(ordinal));
+        }
+        return ids;
+    }
+
+    /**
+     * What {@link ItemSearchIndex#search} finds, checking every item's name, ID and group against every term
+     */
+    private static int[] linearScan(ItemSearchIndex index, String language, String[] terms, BitSet filter) {
+        List<Integer> matches = new ArrayList<>();
+        for (int ordinal : index.all()) {
+            if (filter != null && !filter.get(ordinal)) {
+                continue;
+            }
+            String itemId = index.getId(ordinal);
+            String name = LANGUAGE.equals(language) ? NAMES.get(itemId) : null;
+            String group = ItemSearchIndex.getItemGroupString(index.getItem(ordinal));
+            boolean matchesAll = true;
+            for (String term : ItemSearchIndex.normalizeTerms(terms)) {
+                matchesAll &= (name != null && ItemSearchIndex.normalize(name).contains(term))
+                        || ItemSearchIndex.normalize(itemId).contains(term) || ItemSearchIndex.normalize(group).contains(term);
+            }
+            if (matchesAll) {
+                matches.add(ordinal);
+            }
+        }
+        return matches.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static Set<String> ids(ItemSearchIndex index, int[] ordinals) {
+        Set<String> ids = new HashSet<>();
+        for (int ordinal : ordinals) {
+            ids.add(index.getId(ordinal));
+        }
+        return ids;
+    }
+
+    private static BitSet bits(int... ordinals) {
+        BitSet bits = new BitSet();
+        for (int ordinal : ordinals) {
+            bits.set(ordinal);
+        }
+        return bits;
+    }
+}
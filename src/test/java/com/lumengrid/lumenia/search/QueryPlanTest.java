@@ -0,0 +1,109 @@
+package com.lumengrid.lumenia.search;
+
+import com.hypixel.hytale.server.core.asset.type.item.config.Item;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class QueryPlanTest {
+    @Test
+    void compilesTermsAndClauses() {
+        QueryPlan plan = QueryPlan.compile("Iron -ore @Core #Wood type:Weapon bench:Anvil -@Other");
+
+        assertArrayEquals(new String[]{"iron"}, plan.getTerms());
+        assertEquals("iron #wood -@other -ore @core bench:anvil type:weapon", plan.getCanonical());
+        assertFalse(plan.isEmpty());
+    }
+
+    @Test
+    void keepsQuotedPhrasesTogether() {
+        QueryPlan plan = QueryPlan.compile("\"iron ore\" @\"my mod\"");
+
+        assertArrayEquals(new String[]{"iron ore"}, plan.getTerms());
+        assertEquals("\"iron ore\" @\"my mod\"", plan.getCanonical());
+    }
+
+    @Test
+    void ignoresOperatorsWithoutValue() {
+        assertTrue(QueryPlan.compile("@ # type: bench: -").isEmpty());
+        assertTrue(QueryPlan.compile("   ").isEmpty());
+        assertEquals("", QueryPlan.EMPTY.getCanonical());
+    }
+
+    @Test
+    void dropsRepeatedTerms() {
+        assertArrayEquals(new String[]{"iron", "sword"}, QueryPlan.compile("iron sword IRON").getTerms());
+    }
+
+    @Test
+    void canonicalIgnoresCaseSpacingAndClauseOrder() {
+        assertEquals(QueryPlan.compile("iron ore").getCanonical(), QueryPlan.compile("  Iron   Ore ").getCanonical());
+        assertEquals(QueryPlan.compile("@mod #wood -bad").getCanonical(), QueryPlan.compile("-bad #wood @mod").getCanonical());
+    }
+
+    @Test
+    void canonicalKeepsTermOrder() {
+        // Term order affects ranking, so the results differ
+        assertNotEquals(QueryPlan.compile("iron ore").getCanonical(), QueryPlan.compile("ore iron").getCanonical());
+    }
+
+    @Test
+    void refinesWhenTermsGrow() {
+        assertTrue(QueryPlan.compile("iron @mod").refines(QueryPlan.compile("iro @mod")));
+        assertTrue(QueryPlan.compile("iron ore").refines(QueryPlan.compile("iron")));
+        assertTrue(QueryPlan.compile("iron -ore").refines(QueryPlan.compile("ir -ore")));
+    }
+
+    @Test
+    void doesNotRefineWhenClausesChange() {
+        assertFalse(QueryPlan.compile("iron @mod").refines(QueryPlan.compile("iro")));
+        assertFalse(QueryPlan.compile("iron").refines(QueryPlan.compile("iro @mod")));
+        assertFalse(QueryPlan.compile("iron -ore").refines(QueryPlan.compile("iro")));
+        assertFalse(QueryPlan.compile("iron").refines(QueryPlan.compile("gold")));
+        assertFalse(QueryPlan.compile("ir").refines(QueryPlan.compile("iron")));
+    }
+
+    @Test
+    void doesNotRefineNothing() {
+        assertFalse(QueryPlan.compile("iron").refines(null));
+        assertFalse(QueryPlan.compile("iron").refines(QueryPlan.EMPTY));
+    }
+
+    @Test
+    void refinedMatchesEqualFreshMatches() {
+        Map<String, Item> items = new HashMap<>();
+        for (String material : new String[]{"Iron", "Irongold", "Copper", "Stone", "Wood"}) {
+            for (String kind : new String[]{"Sword", "Shovel", "Ore", "Ingot", "Shield", "Stairs"}) {
+                items.put(material + "_" + kind, mock(Item.class)); // Untranslated, so names are IDs
+            }
+        }
+        ItemSearchIndex index = ItemSearchIndex.build(items, itemId -> itemId.startsWith("S") ? "Masonry" : "Core", Map.of());
+        BitSet modFilter = index.getFacets().getMod("Core");
+        // As typed, one character at a time
+        String[] typed = {"i", "ir", "iro", "iron", "iron ", "iron s", "iron sh", "iron shi", "iron -ore", "iron -ore s",
+                "iron -ore sw", "s @core", "st @core", "sto @core", "ston @core", "sh -shi", "sho -shi", "shov -shi",
+                "o", "or", "ore", "ore s", "ore st"};
+
+        int refined = 0;
+        for (BitSet filter : new BitSet[]{null, modFilter}) {
+            QueryPlan previous = null;
+            int[] previousMatches = null;
+            for (String query : typed) {
+                QueryPlan plan = QueryPlan.compile(query);
+                int[] matches = plan.execute(index, null, filter);
+                if (plan.refines(previous)) {
+                    assertArrayEquals(matches, plan.refine(index, null, previousMatches, previous), previous + " -> " + plan);
+                    refined++;
+                }
+                previous = plan;
+                previousMatches = matches;
+            }
+        }
+        assertTrue(refined >= 30, "refined " + refined);
+    }
+}
@@ -0,0 +1,104 @@
+package com.lumengrid.lumenia.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultCacheTest {
+    private static final SearchResults RESULTS = SearchResults.unranked(new int[]{1, 2, 3});
+
+    @Test
+    void sharesEntriesBetweenEquivalentQueries() {
+        SearchResultCache cache = new SearchResultCache(16);
+        cache.put(key(ItemSearchIndex.EMPTY, "@mod #wood"), RESULTS);
+
+        assertSame(RESULTS, cache.get(key(ItemSearchIndex.EMPTY, "  #Wood @Mod")));
+        assertNull(cache.get(key(ItemSearchIndex.EMPTY, "#wood")));
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void keepsIndexVersionsApart() {
+        SearchResultCache cache = new SearchResultCache(16);
+        ItemSearchIndex newer = ItemSearchIndex.EMPTY.withoutLocales();
+        cache.put(key(ItemSearchIndex.EMPTY, "iron"), RESULTS);
+
+        assertNull(cache.get(key(newer, "iron")));
+        assertNull(cache.get(new SearchResultCache.Key(ItemSearchIndex.EMPTY, "de_DE", null, QueryPlan.compile("iron"))));
+        assertNull(cache.get(new SearchResultCache.Key(ItemSearchIndex.EMPTY, null, "Core", QueryPlan.compile("iron"))));
+    }
+
+    @Test
+    void evictsLeastRecentlyUsedOfASegment() {
+        // 16 segments of 2 entries each
+        SearchResultCache cache = new SearchResultCache(32);
+        List<SearchResultCache.Key> keys = sameSegment(3);
+        cache.put(keys.get(0), RESULTS);
+        cache.put(keys.get(1), RESULTS);
+        cache.get(keys.get(0));
+        cache.put(keys.get(2), RESULTS);
+
+        assertNotNull(cache.get(keys.get(0)));
+        assertNull(cache.get(keys.get(1)));
+        assertNotNull(cache.get(keys.get(2)));
+        assertEquals(1, cache.getEvictions());
+    }
+
+    @Test
+    void staysWithinMaxSize() {
+        SearchResultCache cache = new SearchResultCache(16);
+        for (int i = 0; i < 1000; i++) {
+            cache.put(key(ItemSearchIndex.EMPTY, "item" + i), RESULTS);
+        }
+
+        assertTrue(cache.size() <= 16);
+        assertEquals(1000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    void invalidateDropsEverything() {
+        SearchResultCache cache = new SearchResultCache(16);
+        cache.put(key(ItemSearchIndex.EMPTY, "iron"), RESULTS);
+        cache.invalidate();
+
+        assertEquals(0, cache.size());
+        assertNull(cache.get(key(ItemSearchIndex.EMPTY, "iron")));
+    }
+
+    @Test
+    void cachesNothingWithoutSize() {
+        SearchResultCache cache = new SearchResultCache(0);
+        cache.put(key(ItemSearchIndex.EMPTY, "iron"), RESULTS);
+
+        assertNull(cache.get(key(ItemSearchIndex.EMPTY, "iron")));
+        assertEquals(0, cache.size());
+    }
+
+    private static SearchResultCache.Key key(ItemSearchIndex index, String query) {
+        return new SearchResultCache.Key(index, null, null, QueryPlan.compile(query));
+    }
+
+    /**
+     * Keys that land in the same segment, found the way the cache picks segments
+     */
+    private static List<SearchResultCache.Key> sameSegment(int count) {
+        List<SearchResultCache.Key> keys = new ArrayList<>();
+        int segment = -1;
+        for (int i = 0; keys.size() < count; i++) {
+            SearchResultCache.Key key = key(ItemSearchIndex.EMPTY, "query" + i);
+            int hash = key.hashCode();
+            int keySegment = (hash ^ (hash >>> 16)) & 15;
+            if (segment < 0) {
+                segment = keySegment;
+            }
+            if (keySegment == segment) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
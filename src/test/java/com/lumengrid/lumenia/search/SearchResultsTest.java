@@ -0,0 +1,70 @@
+package com.lumengrid.lumenia.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SearchResultsTest {
+    @Test
+    void pagesUnrankedResultsInGivenOrder() {
+        SearchResults results = SearchResults.unranked(new int[]{7, 3, 9, 1, 4});
+
+        assertEquals(5, results.size());
+        assertEquals(2, results.pageCount(3));
+        assertArrayEquals(new int[]{7, 3, 9}, results.page(0, 3));
+        assertArrayEquals(new int[]{1, 4}, results.page(1, 3));
+        assertArrayEquals(new int[0], results.page(2, 3));
+    }
+
+    @Test
+    void pagesRankedResultsByRank() {
+        SearchResults results = SearchResults.ranked(new int[]{10, 11, 12, 13, 14}, new int[]{3, 0, 2, 1, 0});
+
+        assertArrayEquals(new int[]{11, 14}, results.page(0, 2));
+        assertArrayEquals(new int[]{13, 12}, results.page(1, 2));
+        assertArrayEquals(new int[]{10}, results.page(2, 2));
+    }
+
+    @Test
+    void keepsGivenOrderBetweenEqualRanks() {
+        // Ordinals are given sorted by name, which must survive the heap
+        int[] ordinals = {50, 40, 30, 20, 10, 0};
+        SearchResults results = SearchResults.ranked(ordinals, new int[]{1, 1, 1, 1, 1, 1});
+
+        assertArrayEquals(ordinals, results.page(0, 6));
+    }
+
+    @Test
+    void matchesStableSortWhenPagedOutOfOrder() {
+        Random random = new Random(42);
+        int count = 1000;
+        int[] ordinals = IntStream.range(0, count).map(i -> random.nextInt(100_000)).toArray();
+        int[] ranks = IntStream.range(0, count).map(i -> random.nextInt(4)).toArray();
+        int[] expected = IntStream.range(0, count).boxed()
+                .sorted(Comparator.comparingInt(i -> ranks[i]))
+                .mapToInt(i -> ordinals[i])
+                .toArray();
+
+        SearchResults results = SearchResults.ranked(ordinals, ranks);
+        int pageSize = 45;
+        assertArrayEquals(Arrays.copyOfRange(expected, 3 * pageSize, 4 * pageSize), results.page(3, pageSize));
+        assertArrayEquals(Arrays.copyOfRange(expected, 0, pageSize), results.page(0, pageSize));
+        int last = results.pageCount(pageSize) - 1;
+        assertArrayEquals(Arrays.copyOfRange(expected, last * pageSize, count), results.page(last, pageSize));
+        assertArrayEquals(Arrays.copyOfRange(expected, pageSize, 2 * pageSize), results.page(1, pageSize));
+    }
+
+    @Test
+    void returnsNothingPastTheEnd() {
+        SearchResults results = SearchResults.ranked(new int[]{1, 2}, new int[]{1, 0});
+
+        assertArrayEquals(new int[0], results.page(5, 10));
+        assertArrayEquals(new int[]{2, 1}, results.page(-1, 10));
+        assertEquals(0, SearchResults.unranked(new int[0]).pageCount(10));
+    }
+}